@@ -0,0 +1,80 @@
+package com.payment.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.payment.card.dto.CardDetailsDTO;
+import com.payment.transaction.dto.AutomatedPaymentRequestDTO;
+import com.payment.transaction.dto.PaymentIntentDTO;
+import com.payment.transaction.dto.PaymentRequestDTO;
+import com.payment.transaction.service.AutomatedPaymentService;
+import com.stripe.exception.StripeException;
+
+/**
+ * Latencia de un pago automatizado con latencia de Stripe simulada, según el
+ * modo: una sola llamada (create con confirm=true) o create, confirm y
+ * capture por separado.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AutomatedPaymentLatencyBenchmark {
+
+	@Param({ "single-call", "multi-step" })
+	public String automatedMode;
+
+	@Param({ "true", "false" })
+	public boolean autoCapture;
+
+	@Param({ "20" })
+	public long stripeLatencyMs;
+
+	private ConfigurableApplicationContext context;
+	private AutomatedPaymentService automatedPaymentService;
+	private AutomatedPaymentRequestDTO request;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkContext.start("automated_" + automatedMode.replace('-', '_'),
+				"--payment.automated.mode=" + automatedMode,
+				"--payment.gateway.simulator.latency-ms=" + stripeLatencyMs);
+		automatedPaymentService = context.getBean(AutomatedPaymentService.class);
+
+		CardDetailsDTO card = new CardDetailsDTO();
+		card.setCardNumber("4242424242424242");
+		card.setExpMonth(12);
+		card.setExpYear(2030);
+		card.setCvc("123");
+		request = new AutomatedPaymentRequestDTO();
+		request.setPaymentRequest(new PaymentRequestDTO(10.0, "usd"));
+		request.setCardDetails(card);
+		request.setAutoCapture(autoCapture);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public PaymentIntentDTO processPayment() throws StripeException {
+		return automatedPaymentService.processPayment(request);
+	}
+}
@@ -0,0 +1,45 @@
+package com.payment.benchmark;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.payment.PaymentTransactionManagerApplication;
+
+/**
+ * Levanta la aplicación sin servidor web, sobre H2 en memoria (modo MySQL) y
+ * con el Stripe simulado, para que los benchmarks no dependan de la red.
+ */
+final class BenchmarkContext {
+
+	private BenchmarkContext() {
+	}
+
+	static ConfigurableApplicationContext start(String databaseName, String... extraArgs) {
+		SpringApplication application = new SpringApplication(PaymentTransactionManagerApplication.class);
+		application.setWebApplicationType(WebApplicationType.NONE);
+
+		String[] baseArgs = {
+				"--spring.datasource.url=jdbc:h2:mem:" + databaseName + ";MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+				"--spring.datasource.driverClassName=org.h2.Driver",
+				"--spring.datasource.username=sa",
+				"--spring.datasource.password=",
+				"--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+				// Las migraciones de Flyway son para MySQL; sobre H2 el esquema lo genera Hibernate
+				"--spring.flyway.enabled=false",
+				"--spring.jpa.hibernate.ddl-auto=create-drop",
+				"--spring.jpa.show-sql=false",
+				"--spring.jpa.properties.hibernate.format_sql=false",
+				"--STRIPE_API_KEY=sk_test_benchmark",
+				"--STRIPE_PUBLISHABLE_KEY=pk_test_benchmark",
+				"--stripe.webhook.secret=whsec_benchmark",
+				"--payment.gateway.mode=simulator",
+				"--payment.sync.enabled=false",
+				"--logging.level.root=WARN" };
+
+		String[] args = new String[baseArgs.length + extraArgs.length];
+		System.arraycopy(baseArgs, 0, args, 0, baseArgs.length);
+		System.arraycopy(extraArgs, 0, args, baseArgs.length, extraArgs.length);
+		return application.run(args);
+	}
+}
@@ -0,0 +1,64 @@
+package com.payment.benchmark;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.payment.card.enums.CardBrandEnum;
+import com.payment.card.enums.TestCardTypeEnum;
+import com.payment.card.service.CardNumberResolver;
+
+/**
+ * Resolución local de números de tarjeta: índice por PAN contra el recorrido
+ * lineal anterior de {@code values()}, detección de marca por BIN y rechazo
+ * de un número que no pasa Luhn. Sin contexto de Spring.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CardResolutionBenchmark {
+
+	// La última del catálogo: el peor caso del recorrido lineal
+	private final String testCardNumber = TestCardTypeEnum.UNIONPAY.getNumber();
+	private final String arbitraryCardNumber = "5105105105105100";
+	private final String invalidCardNumber = "4242424242424241";
+
+	@Benchmark
+	public Optional<TestCardTypeEnum> linearLookup() {
+		return Arrays.stream(TestCardTypeEnum.values()).filter(tc -> tc.getNumber().equals(testCardNumber))
+				.findFirst();
+	}
+
+	@Benchmark
+	public Optional<TestCardTypeEnum> indexedLookup() {
+		return TestCardTypeEnum.fromCardNumber(testCardNumber);
+	}
+
+	@Benchmark
+	public TestCardTypeEnum resolveTestCard() {
+		return CardNumberResolver.resolveTestCard(testCardNumber);
+	}
+
+	@Benchmark
+	public Optional<CardBrandEnum> brandOf() {
+		return CardNumberResolver.brandOf(arbitraryCardNumber);
+	}
+
+	@Benchmark
+	public boolean rejectInvalid() {
+		return CardNumberResolver.isLuhnValid(invalidCardNumber);
+	}
+}
@@ -0,0 +1,67 @@
+package com.payment.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.payment.transaction.dto.PaymentIntentDTO;
+import com.payment.transaction.service.StripeService;
+import com.stripe.model.PaymentIntent;
+
+/**
+ * Mapeo de PaymentIntent a DTO y serialización JSON de la respuesta, sin
+ * contexto de Spring.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoMappingBenchmark {
+
+	private StripeService stripeService;
+	private ObjectMapper objectMapper;
+	private PaymentIntent paymentIntent;
+	private PaymentIntentDTO paymentIntentDTO;
+
+	@Setup
+	public void setUp() {
+		stripeService = new StripeService();
+		objectMapper = new ObjectMapper();
+
+		paymentIntent = new PaymentIntent();
+		paymentIntent.setId("pi_3PbenchmarkAbCdEfGh");
+		paymentIntent.setAmount(1999L);
+		paymentIntent.setCurrency("usd");
+		paymentIntent.setStatus("requires_capture");
+		paymentIntent.setClientSecret("pi_3PbenchmarkAbCdEfGh_secret_123");
+		paymentIntentDTO = stripeService.convertToDTO(paymentIntent);
+	}
+
+	@Benchmark
+	public PaymentIntentDTO convertToDTO() {
+		return stripeService.convertToDTO(paymentIntent);
+	}
+
+	@Benchmark
+	public String serializeDTO() throws JsonProcessingException {
+		return objectMapper.writeValueAsString(paymentIntentDTO);
+	}
+
+	@Benchmark
+	public String convertAndSerialize() throws JsonProcessingException {
+		return objectMapper.writeValueAsString(stripeService.convertToDTO(paymentIntent));
+	}
+}
@@ -0,0 +1,105 @@
+package com.payment.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.payment.card.dto.CardDetailsDTO;
+import com.payment.transaction.dto.AutomatedPaymentRequestDTO;
+import com.payment.transaction.dto.PaymentIntentDTO;
+import com.payment.transaction.dto.PaymentRequestDTO;
+import com.payment.transaction.gateway.PaymentGateway;
+import com.payment.transaction.model.Payment;
+import com.payment.transaction.service.AutomatedPaymentService;
+import com.payment.transaction.service.PaymentService;
+import com.payment.transaction.service.PaymentSyncService;
+import com.stripe.exception.StripeException;
+import com.stripe.model.PaymentIntent;
+import com.stripe.param.PaymentIntentCreateParams;
+
+/**
+ * Flujos principales de pago contra H2 y el Stripe simulado (sin latencia):
+ * mide el costo propio de la aplicación (servicios, JPA, mapeos) por
+ * operación.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentFlowBenchmark {
+
+	private ConfigurableApplicationContext context;
+	private PaymentService paymentService;
+	private AutomatedPaymentService automatedPaymentService;
+	private PaymentSyncService paymentSyncService;
+	private PaymentGateway paymentGateway;
+
+	private PaymentRequestDTO paymentRequest;
+	private AutomatedPaymentRequestDTO automatedRequest;
+	private PaymentIntent pendingIntent;
+	private PaymentIntent confirmationIntent;
+	private boolean toggle;
+
+	@Setup(Level.Trial)
+	public void setUp() throws StripeException {
+		context = BenchmarkContext.start("payment_flow");
+		paymentService = context.getBean(PaymentService.class);
+		automatedPaymentService = context.getBean(AutomatedPaymentService.class);
+		paymentSyncService = context.getBean(PaymentSyncService.class);
+		paymentGateway = context.getBean(PaymentGateway.class);
+
+		paymentRequest = new PaymentRequestDTO(10.0, "usd");
+
+		CardDetailsDTO card = new CardDetailsDTO();
+		card.setCardNumber("4242424242424242");
+		card.setExpMonth(12);
+		card.setExpYear(2030);
+		card.setCvc("123");
+		automatedRequest = new AutomatedPaymentRequestDTO();
+		automatedRequest.setPaymentRequest(paymentRequest);
+		automatedRequest.setCardDetails(card);
+
+		// Un mismo PaymentIntent que alterna de estado en cada sincronización; ambos estados son
+		// abiertos porque volver de succeeded a uno anterior se rechaza como lectura vieja
+		pendingIntent = paymentGateway.create(PaymentIntentCreateParams.builder().setAmount(1000L)
+				.setCurrency("usd").build());
+		confirmationIntent = paymentGateway.retrieve(pendingIntent.getId());
+		confirmationIntent.setStatus("requires_confirmation");
+		paymentSyncService.syncPaymentStatus(pendingIntent);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public PaymentIntentDTO createPaymentIntent() throws StripeException {
+		return paymentService.createPaymentIntent(paymentRequest);
+	}
+
+	@Benchmark
+	public PaymentIntentDTO processAutomatedPayment() throws StripeException {
+		return automatedPaymentService.processPayment(automatedRequest);
+	}
+
+	@Benchmark
+	public Payment syncPaymentStatus() {
+		toggle = !toggle;
+		return paymentSyncService.syncPaymentStatus(toggle ? confirmationIntent : pendingIntent);
+	}
+}
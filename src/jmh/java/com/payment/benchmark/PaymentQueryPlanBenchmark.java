@@ -0,0 +1,174 @@
+package com.payment.benchmark;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+/**
+ * Consultas de pagos e historial sobre un dataset sembrado, con el esquema de
+ * las migraciones de Flyway hasta {@code schemaVersion}: {@code 1} es el
+ * esquema base (solo la clave primaria y el índice único de
+ * {@code payment_intent_id}) y {@code latest} agrega los índices de V2 y, desde
+ * V5, el estado como código TINYINT. Al preparar cada trial se imprime el plan
+ * ({@code EXPLAIN}) de cada consulta.
+ * <p>
+ * Por defecto usa H2 en memoria (modo MySQL). Con {@code -p jdbcUrl=...} corre
+ * contra un MySQL local; la base se limpia con {@code flyway clean}, así que
+ * debe ser descartable.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class PaymentQueryPlanBenchmark {
+
+	private static final List<Object> OPEN_STATUSES = List.of("requires_payment_method", "requires_confirmation",
+			"requires_action", "processing", "requires_capture");
+
+	// Desde V5 el estado se guarda como PaymentIntentStatusEnum.code (1..5 son los estados abiertos)
+	private static final List<Object> OPEN_STATUS_CODES = List.of(1, 2, 3, 4, 5);
+	private static final int SUCCEEDED_CODE = 6;
+	private static final int REQUIRES_PAYMENT_METHOD_CODE = 1;
+
+	private static final String OPEN_PAYMENTS_QUERY = "select id, payment_intent_id, status from payments "
+			+ "where status in (?, ?, ?, ?, ?)";
+	private static final String HISTORY_QUERY = "select id, status, created_at from payment_status_history "
+			+ "where payment_id = ? order by created_at desc";
+	private static final String CREATED_RANGE_QUERY = "select id, payment_intent_id, status from payments "
+			+ "where created_at >= ? and created_at < ?";
+	private static final String EVENT_QUERY = "select count(*) from payment_status_history where stripe_event_id = ?";
+
+	@Param({ "1", "latest" })
+	public String schemaVersion;
+
+	@Param({ "200000" })
+	public int rows;
+
+	@Param({ "jdbc:h2:mem:query_plan;MODE=MySQL;DB_CLOSE_DELAY=-1" })
+	public String jdbcUrl;
+
+	@Param({ "sa" })
+	public String jdbcUser;
+
+	@Param({ "" })
+	public String jdbcPassword;
+
+	private SingleConnectionDataSource dataSource;
+	private JdbcTemplate jdbcTemplate;
+	private LocalDateTime baseTime;
+	private long probe;
+	private List<Object> openStatuses;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		// Una sola conexión reutilizada: se mide la consulta, no la apertura de conexiones
+		dataSource = new SingleConnectionDataSource(jdbcUrl, jdbcUser, jdbcPassword, true);
+		Flyway flyway = Flyway.configure().dataSource(dataSource).cleanDisabled(false).target(schemaVersion).load();
+		flyway.clean();
+		flyway.migrate();
+		boolean statusCodes = "latest".equals(schemaVersion) || Integer.parseInt(schemaVersion) >= 5;
+		openStatuses = statusCodes ? OPEN_STATUS_CODES : OPEN_STATUSES;
+
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		baseTime = LocalDateTime.now().minusDays(365);
+		seed(statusCodes);
+
+		explain("findByStatusIn (open)", OPEN_PAYMENTS_QUERY, openStatuses.toArray());
+		explain("findByPaymentOrderByCreatedAtDesc", HISTORY_QUERY, rows / 2);
+		explain("created_at range (1 day)", CREATED_RANGE_QUERY, Timestamp.valueOf(baseTime.plusDays(100)),
+				Timestamp.valueOf(baseTime.plusDays(101)));
+		explain("existsByStripeEventId", EVENT_QUERY, "evt_" + (rows / 2));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		dataSource.destroy();
+	}
+
+	// 95% de pagos finales, dos entradas de historial por pago, created_at repartido en un año
+	private void seed(boolean statusCodes) {
+		List<Object[]> payments = new ArrayList<>(10_000);
+		List<Object[]> history = new ArrayList<>(20_000);
+		long secondsPerRow = Math.max(1, 365L * 24 * 3600 / rows);
+		for (int i = 1; i <= rows; i++) {
+			Object status = i % 20 == 0 ? openStatuses.get(i % openStatuses.size())
+					: statusCodes ? SUCCEEDED_CODE : "succeeded";
+			Object initialStatus = statusCodes ? REQUIRES_PAYMENT_METHOD_CODE : "requires_payment_method";
+			Timestamp createdAt = Timestamp.valueOf(baseTime.plusSeconds(i * secondsPerRow));
+			payments.add(new Object[] { (long) i, "pi_bench_" + i, status, 1000L, "usd", createdAt, createdAt });
+			history.add(new Object[] { 2L * i - 1, (long) i, initialStatus, createdAt, null });
+			history.add(new Object[] { 2L * i, (long) i, status, createdAt, "evt_" + i });
+
+			if (payments.size() == 10_000 || i == rows) {
+				jdbcTemplate.batchUpdate("insert into payments (id, payment_intent_id, status, amount, currency, "
+						+ "created_at, updated_at) values (?, ?, ?, ?, ?, ?, ?)", payments);
+				jdbcTemplate.batchUpdate("insert into payment_status_history (id, payment_id, status, created_at, "
+						+ "stripe_event_id) values (?, ?, ?, ?, ?)", history);
+				payments.clear();
+				history.clear();
+			}
+		}
+		if (jdbcUrl.startsWith("jdbc:mysql")) {
+			jdbcTemplate.execute("analyze table payments, payment_status_history");
+		} else {
+			jdbcTemplate.execute("analyze");
+		}
+	}
+
+	private void explain(String name, String sql, Object... args) {
+		System.out.println("[" + schemaVersion + "] " + name + ":");
+		for (Map<String, Object> row : jdbcTemplate.queryForList("explain " + sql, args)) {
+			System.out.println("    " + row);
+		}
+	}
+
+	// Recorre distintos pagos en cada invocación para no medir siempre la misma página en caché
+	private long nextId() {
+		probe = probe % rows + 7919;
+		return probe % rows + 1;
+	}
+
+	@Benchmark
+	public int openPayments() {
+		return jdbcTemplate.queryForList(OPEN_PAYMENTS_QUERY, openStatuses.toArray()).size();
+	}
+
+	@Benchmark
+	public int historyByPayment() {
+		return jdbcTemplate.queryForList(HISTORY_QUERY, nextId()).size();
+	}
+
+	@Benchmark
+	public int createdAtRange() {
+		LocalDateTime from = baseTime.plusHours(nextId() % (365 * 24));
+		return jdbcTemplate.queryForList(CREATED_RANGE_QUERY, Timestamp.valueOf(from),
+				Timestamp.valueOf(from.plusDays(1))).size();
+	}
+
+	@Benchmark
+	public Integer stripeEventLookup() {
+		return jdbcTemplate.queryForObject(EVENT_QUERY, Integer.class, "evt_" + nextId());
+	}
+}
@@ -0,0 +1,85 @@
+package com.payment.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.payment.transaction.gateway.PaymentGateway;
+import com.payment.transaction.service.PaymentReconciliationService;
+import com.payment.transaction.service.PaymentStatusRefresher;
+import com.payment.transaction.service.PaymentSyncService;
+import com.stripe.exception.StripeException;
+import com.stripe.param.PaymentIntentCreateParams;
+
+/**
+ * Duración de un refresco completo de pagos abiertos con latencia de Stripe
+ * simulada, según el límite de concurrencia y el tipo de hilo. Con
+ * {@code -p virtualThreads=true} (requiere Java 21) las llamadas corren en
+ * hilos virtuales.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RefreshFanOutBenchmark {
+
+	private static final int OPEN_PAYMENTS = 200;
+
+	@Param({ "1", "8", "64" })
+	public int refreshConcurrency;
+
+	@Param({ "false" })
+	public boolean virtualThreads;
+
+	@Param({ "20" })
+	public long stripeLatencyMs;
+
+	private ConfigurableApplicationContext context;
+	private PaymentReconciliationService reconciliationService;
+	private PaymentStatusRefresher refresher;
+
+	@Setup(Level.Trial)
+	public void setUp() throws StripeException {
+		context = BenchmarkContext.start("refresh_fan_out_" + refreshConcurrency,
+				"--payment.sync.refresh-concurrency=" + refreshConcurrency,
+				"--spring.threads.virtual.enabled=" + virtualThreads,
+				"--payment.gateway.simulator.latency-ms=" + stripeLatencyMs,
+				// Sin token bucket efectivo: se mide solo el efecto de la concurrencia
+				"--payment.sync.read-rate-per-second=100000", "--payment.sync.read-burst=1000");
+		reconciliationService = context.getBean(PaymentReconciliationService.class);
+		refresher = context.getBean(PaymentStatusRefresher.class);
+
+		PaymentGateway paymentGateway = context.getBean(PaymentGateway.class);
+		PaymentSyncService paymentSyncService = context.getBean(PaymentSyncService.class);
+		for (int i = 0; i < OPEN_PAYMENTS; i++) {
+			paymentSyncService.syncPaymentStatus(paymentGateway
+					.create(PaymentIntentCreateParams.builder().setAmount(1000L).setCurrency("usd").build()));
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		System.out.println("max Stripe calls in flight: " + refresher.getMaxInFlight());
+		context.close();
+	}
+
+	@Benchmark
+	public int refreshOpenPayments() {
+		return reconciliationService.refreshOpenPayments();
+	}
+}
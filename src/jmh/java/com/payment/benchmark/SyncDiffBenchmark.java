@@ -0,0 +1,97 @@
+package com.payment.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.payment.transaction.enums.PaymentIntentStatusEnum;
+import com.payment.transaction.model.Payment;
+import com.payment.transaction.repository.PaymentRepository;
+import com.payment.transaction.service.PaymentSyncDiffService;
+import com.stripe.model.PaymentIntent;
+
+/**
+ * Costo del diff de sincronización para una página de 100 PaymentIntents de
+ * Stripe a medida que crece la tabla {@code payments}. {@code setBasedDiff}
+ * es la implementación actual ({@link PaymentSyncDiffService});
+ * {@code listContainsDiff} reproduce la anterior (cargar todos los pagos y
+ * comparar con {@code List.contains}) como referencia.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class SyncDiffBenchmark {
+
+	private static final int PAGE_SIZE = 100;
+
+	@Param({ "10000", "100000", "1000000" })
+	public int tableSize;
+
+	private ConfigurableApplicationContext context;
+	private PaymentSyncDiffService diffService;
+	private PaymentRepository paymentRepository;
+	private List<PaymentIntent> stripePage;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkContext.start("sync_diff_" + tableSize);
+		diffService = context.getBean(PaymentSyncDiffService.class);
+		paymentRepository = context.getBean(PaymentRepository.class);
+
+		JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+		List<Object[]> rows = new ArrayList<>(10_000);
+		for (int i = 1; i <= tableSize; i++) {
+			rows.add(new Object[] { (long) i, "pi_bench_" + i, PaymentIntentStatusEnum.SUCCEEDED.getCode(), 1000L,
+					"usd" });
+			if (rows.size() == 10_000 || i == tableSize) {
+				jdbcTemplate.batchUpdate(
+						"insert into payments (id, payment_intent_id, status, amount, currency) values (?, ?, ?, ?, ?)",
+						rows);
+				rows.clear();
+			}
+		}
+
+		// Mitad de la página ya existe localmente, mitad es nueva
+		stripePage = new ArrayList<>(PAGE_SIZE);
+		for (int i = 0; i < PAGE_SIZE; i++) {
+			PaymentIntent intent = new PaymentIntent();
+			intent.setId(i % 2 == 0 ? "pi_bench_" + (tableSize - i) : "pi_new_" + i);
+			stripePage.add(intent);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public List<PaymentIntent> setBasedDiff() {
+		return diffService.findMissing(stripePage);
+	}
+
+	@Benchmark
+	public List<PaymentIntent> listContainsDiff() {
+		List<String> dbPaymentIds = paymentRepository.findAll().stream().map(Payment::getPaymentIntentId).toList();
+		return stripePage.stream().filter(intent -> !dbPaymentIds.contains(intent.getId())).toList();
+	}
+}
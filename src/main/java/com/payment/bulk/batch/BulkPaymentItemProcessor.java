@@ -0,0 +1,78 @@
+package com.payment.bulk.batch;
+
+import java.time.LocalDateTime;
+
+import org.springframework.batch.item.ItemProcessor;
+
+import com.payment.bulk.enums.BulkPaymentItemStatusEnum;
+import com.payment.bulk.model.BulkPaymentItem;
+import com.payment.transaction.dto.AutomatedPaymentRequestDTO;
+import com.payment.transaction.dto.PaymentIntentDTO;
+import com.payment.transaction.dto.PaymentRequestDTO;
+import com.payment.transaction.exception.PaymentProcessingException;
+import com.payment.transaction.service.AutomatedPaymentService;
+import com.stripe.exception.StripeException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Procesa cada ítem con el mismo flujo que /automated/process. Los errores de
+ * un ítem (tarjeta rechazada, datos inválidos, error de Stripe) quedan
+ * registrados en el ítem y no detienen el job.
+ */
+@Slf4j
+public class BulkPaymentItemProcessor implements ItemProcessor<BulkPaymentItem, BulkPaymentItem> {
+
+	private static final int MAX_ERROR_LENGTH = 500;
+
+	private final AutomatedPaymentService automatedPaymentService;
+
+	public BulkPaymentItemProcessor(AutomatedPaymentService automatedPaymentService) {
+		this.automatedPaymentService = automatedPaymentService;
+	}
+
+	@Override
+	public BulkPaymentItem process(BulkPaymentItem item) {
+		try {
+			if (item.getPaymentMethodId() == null) {
+				throw new IllegalArgumentException("Card was not resolved to a test payment method");
+			}
+			// Clave por ítem: si el job se reinicia a mitad de un chunk, Stripe no repite el cobro
+			PaymentIntentDTO result = automatedPaymentService.processPayment(toRequest(item),
+					item.getPaymentMethodId(), "bulk-" + item.getJobId() + "-" + item.getId());
+			item.setStatus(BulkPaymentItemStatusEnum.SUCCEEDED);
+			item.setPaymentIntentId(result.getId());
+			item.setPaymentStatus(result.getStatus());
+		} catch (PaymentProcessingException e) {
+			item.setStatus(BulkPaymentItemStatusEnum.REQUIRES_ACTION);
+			item.setPaymentIntentId(e.getPaymentIntent().getId());
+			item.setPaymentStatus(e.getPaymentIntent().getStatus());
+		} catch (StripeException e) {
+			if (e.getStripeError() != null && e.getStripeError().getPaymentIntent() != null) {
+				item.setPaymentIntentId(e.getStripeError().getPaymentIntent().getId());
+				item.setPaymentStatus(e.getStripeError().getPaymentIntent().getStatus());
+			}
+			fail(item, e);
+		} catch (IllegalArgumentException e) {
+			fail(item, e);
+		}
+		item.setUpdatedAt(LocalDateTime.now());
+		return item;
+	}
+
+	private static void fail(BulkPaymentItem item, Exception e) {
+		log.warn("Bulk payment item {} (job {}) failed: {}", item.getLineNumber(), item.getJobId(), e.getMessage());
+		item.setStatus(BulkPaymentItemStatusEnum.FAILED);
+		String message = e.getMessage();
+		item.setErrorMessage(message != null && message.length() > MAX_ERROR_LENGTH
+				? message.substring(0, MAX_ERROR_LENGTH) : message);
+	}
+
+	// Sin cardDetails: la tarjeta ya viene resuelta en paymentMethodId
+	private static AutomatedPaymentRequestDTO toRequest(BulkPaymentItem item) {
+		AutomatedPaymentRequestDTO request = new AutomatedPaymentRequestDTO();
+		request.setPaymentRequest(new PaymentRequestDTO(item.getAmount(), item.getCurrency()));
+		request.setAutoCapture(item.isAutoCapture());
+		return request;
+	}
+}
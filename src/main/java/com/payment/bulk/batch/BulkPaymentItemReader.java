@@ -0,0 +1,51 @@
+package com.payment.bulk.batch;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.springframework.batch.item.ItemReader;
+import org.springframework.data.domain.PageRequest;
+
+import com.payment.bulk.enums.BulkPaymentItemStatusEnum;
+import com.payment.bulk.model.BulkPaymentItem;
+import com.payment.bulk.repository.BulkPaymentItemRepository;
+
+/**
+ * Lee los ítems PENDING de una partición por keyset sobre el id. No guarda
+ * estado propio: al reiniciar el job, los ítems ya procesados dejaron de estar
+ * PENDING y se saltean solos.
+ */
+public class BulkPaymentItemReader implements ItemReader<BulkPaymentItem> {
+
+	private final BulkPaymentItemRepository repository;
+	private final String jobId;
+	private final long maxId;
+	private final int pageSize;
+
+	private long lastId;
+	private Iterator<BulkPaymentItem> page = Collections.emptyIterator();
+
+	public BulkPaymentItemReader(BulkPaymentItemRepository repository, String jobId, long minId, long maxId,
+			int pageSize) {
+		this.repository = repository;
+		this.jobId = jobId;
+		this.maxId = maxId;
+		this.pageSize = pageSize;
+		this.lastId = minId - 1;
+	}
+
+	@Override
+	public BulkPaymentItem read() {
+		if (!page.hasNext()) {
+			List<BulkPaymentItem> items = repository.findByStatusInRange(jobId, BulkPaymentItemStatusEnum.PENDING,
+					lastId, maxId, PageRequest.of(0, pageSize));
+			if (items.isEmpty()) {
+				return null;
+			}
+			lastId = items.get(items.size() - 1).getId();
+			page = items.iterator();
+		}
+		return page.next();
+	}
+}
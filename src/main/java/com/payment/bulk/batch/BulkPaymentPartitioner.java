@@ -0,0 +1,48 @@
+package com.payment.bulk.batch;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+
+import com.payment.bulk.repository.BulkPaymentItemRepository;
+
+/**
+ * Divide los ítems de un envío en rangos contiguos de id, uno por partición.
+ * Cada rango queda en el contexto de la partición, así que un reinicio vuelve
+ * a usar los mismos rangos.
+ */
+public class BulkPaymentPartitioner implements Partitioner {
+
+	public static final String MIN_ID_KEY = "minId";
+	public static final String MAX_ID_KEY = "maxId";
+
+	private final BulkPaymentItemRepository repository;
+	private final String jobId;
+
+	public BulkPaymentPartitioner(BulkPaymentItemRepository repository, String jobId) {
+		this.repository = repository;
+		this.jobId = jobId;
+	}
+
+	@Override
+	public Map<String, ExecutionContext> partition(int gridSize) {
+		Map<String, ExecutionContext> partitions = new HashMap<>();
+		Long minId = repository.findMinIdByJobId(jobId);
+		Long maxId = repository.findMaxIdByJobId(jobId);
+		if (minId == null || maxId == null) {
+			return partitions;
+		}
+
+		long rangeSize = Math.max(1, (maxId - minId + gridSize) / gridSize);
+		int index = 0;
+		for (long start = minId; start <= maxId; start += rangeSize) {
+			ExecutionContext context = new ExecutionContext();
+			context.putLong(MIN_ID_KEY, start);
+			context.putLong(MAX_ID_KEY, Math.min(start + rangeSize - 1, maxId));
+			partitions.put("partition" + index++, context);
+		}
+		return partitions;
+	}
+}
@@ -0,0 +1,124 @@
+package com.payment.bulk.config;
+
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.support.transaction.ResourcelessTransactionManager;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.batch.BatchTaskExecutor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+
+import com.payment.bulk.batch.BulkPaymentItemProcessor;
+import com.payment.bulk.batch.BulkPaymentItemReader;
+import com.payment.bulk.batch.BulkPaymentPartitioner;
+import com.payment.bulk.model.BulkPaymentItem;
+import com.payment.bulk.repository.BulkPaymentItemRepository;
+import com.payment.transaction.service.AutomatedPaymentService;
+
+/**
+ * Job de pagos masivos: un step particionado por rangos de id cuyas
+ * particiones corren en paralelo, cada una con un step orientado a chunks.
+ */
+@Configuration
+public class BulkPaymentJobConfig {
+
+	public static final String JOB_NAME = "bulkPaymentJob";
+	public static final String JOB_ID_PARAMETER = "bulkJobId";
+
+	@Value("${spring.threads.virtual.enabled:false}")
+	private boolean virtualThreads;
+
+	// Ítems por chunk
+	@Value("${payment.bulk.chunk-size:20}")
+	private int chunkSize;
+
+	// Particiones que se procesan en paralelo
+	@Value("${payment.bulk.partitions:4}")
+	private int partitions;
+
+	@Bean
+	public Job bulkPaymentJob(JobRepository jobRepository, Step bulkPaymentManagerStep) {
+		return new JobBuilder(JOB_NAME, jobRepository).start(bulkPaymentManagerStep).build();
+	}
+
+	@Bean
+	public Step bulkPaymentManagerStep(JobRepository jobRepository, BulkPaymentPartitioner bulkPaymentPartitioner,
+			Step bulkPaymentWorkerStep, @Qualifier("bulkPaymentPartitionExecutor") TaskExecutor partitionExecutor) {
+		return new StepBuilder("bulkPaymentManagerStep", jobRepository)
+				.partitioner("bulkPaymentWorkerStep", bulkPaymentPartitioner)
+				.step(bulkPaymentWorkerStep)
+				.gridSize(partitions)
+				.taskExecutor(partitionExecutor)
+				.build();
+	}
+
+	/**
+	 * El chunk no abre una transacción de base de datos: el processor hace una
+	 * llamada a Stripe por ítem y una transacción de chunk retendría una
+	 * conexión durante todas ellas. La lectura, la sincronización de cada pago
+	 * y la escritura de resultados usan transacciones cortas propias; un ítem
+	 * que quede PENDING tras una caída se reprocesa con la misma
+	 * Idempotency-Key.
+	 */
+	@Bean
+	public Step bulkPaymentWorkerStep(JobRepository jobRepository, BulkPaymentItemReader bulkPaymentItemReader,
+			BulkPaymentItemProcessor bulkPaymentItemProcessor, ItemWriter<BulkPaymentItem> bulkPaymentItemWriter) {
+		return new StepBuilder("bulkPaymentWorkerStep", jobRepository)
+				.<BulkPaymentItem, BulkPaymentItem>chunk(chunkSize, new ResourcelessTransactionManager())
+				.reader(bulkPaymentItemReader)
+				.processor(bulkPaymentItemProcessor)
+				.writer(bulkPaymentItemWriter)
+				.build();
+	}
+
+	@Bean
+	@StepScope
+	public BulkPaymentPartitioner bulkPaymentPartitioner(BulkPaymentItemRepository repository,
+			@Value("#{jobParameters['" + JOB_ID_PARAMETER + "']}") String jobId) {
+		return new BulkPaymentPartitioner(repository, jobId);
+	}
+
+	@Bean
+	@StepScope
+	public BulkPaymentItemReader bulkPaymentItemReader(BulkPaymentItemRepository repository,
+			@Value("#{jobParameters['" + JOB_ID_PARAMETER + "']}") String jobId,
+			@Value("#{stepExecutionContext['" + BulkPaymentPartitioner.MIN_ID_KEY + "']}") long minId,
+			@Value("#{stepExecutionContext['" + BulkPaymentPartitioner.MAX_ID_KEY + "']}") long maxId) {
+		return new BulkPaymentItemReader(repository, jobId, minId, maxId, chunkSize);
+	}
+
+	@Bean
+	public BulkPaymentItemProcessor bulkPaymentItemProcessor(AutomatedPaymentService automatedPaymentService) {
+		return new BulkPaymentItemProcessor(automatedPaymentService);
+	}
+
+	@Bean
+	public ItemWriter<BulkPaymentItem> bulkPaymentItemWriter(BulkPaymentItemRepository repository) {
+		return chunk -> repository.saveAll(chunk.getItems());
+	}
+
+	// Executor del JobLauncher de Spring Boot: el envío responde sin esperar al job
+	@Bean
+	@BatchTaskExecutor
+	public TaskExecutor bulkPaymentJobExecutor() {
+		SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("bulk-payment-job-");
+		executor.setVirtualThreads(virtualThreads);
+		return executor;
+	}
+
+	@Bean
+	public TaskExecutor bulkPaymentPartitionExecutor() {
+		SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("bulk-payment-partition-");
+		executor.setVirtualThreads(virtualThreads);
+		executor.setConcurrencyLimit(partitions);
+		return executor;
+	}
+}
@@ -0,0 +1,62 @@
+package com.payment.bulk.controller;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestPart;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.payment.bulk.dto.BulkPaymentJobDTO;
+import com.payment.bulk.service.BulkPaymentService;
+import com.payment.transaction.dto.AutomatedPaymentRequestDTO;
+import com.payment.transaction.exception.GlobalExceptionHandler;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/v1/payments/bulk")
+@Tag(name = "Bulk Payment Controller", description = "Endpoints for bulk payment processing with Spring Batch")
+@RequiredArgsConstructor
+public class BulkPaymentController extends GlobalExceptionHandler {
+
+	private final BulkPaymentService bulkPaymentService;
+
+	@PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+	@Operation(summary = "Submit a bulk payment job", description = "Stores the payments and processes them in the background as a partitioned Spring Batch job.")
+	public ResponseEntity<BulkPaymentJobDTO> submit(@RequestBody List<AutomatedPaymentRequestDTO> requests) {
+		return ResponseEntity.status(HttpStatus.ACCEPTED).body(bulkPaymentService.submit(requests));
+	}
+
+	@PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+	@Operation(summary = "Submit a bulk payment job from a CSV file", description = "Columns: amount,currency,cardNumber,expMonth,expYear,cvc[,autoCapture]. The header line is optional.")
+	public ResponseEntity<BulkPaymentJobDTO> submitCsv(@RequestPart("file") MultipartFile file) throws IOException {
+		return ResponseEntity.status(HttpStatus.ACCEPTED).body(bulkPaymentService.submitCsv(file.getInputStream()));
+	}
+
+	@GetMapping("/{jobId}")
+	@Operation(summary = "Get a bulk payment job", description = "Returns the job status, the item counts by status and a keyset page of per-item results.")
+	public ResponseEntity<BulkPaymentJobDTO> getJob(@PathVariable String jobId,
+			@RequestParam(defaultValue = "0") long afterId, @RequestParam(defaultValue = "100") int limit) {
+		return ResponseEntity.ok(bulkPaymentService.getJob(jobId, afterId, limit));
+	}
+
+	@PostMapping("/{jobId}/restart")
+	@Operation(summary = "Restart a bulk payment job", description = "Restarts a failed or stopped job; only the items still pending are processed.")
+	public ResponseEntity<BulkPaymentJobDTO> restart(@PathVariable String jobId) {
+		return ResponseEntity.status(HttpStatus.ACCEPTED).body(bulkPaymentService.restart(jobId));
+	}
+}
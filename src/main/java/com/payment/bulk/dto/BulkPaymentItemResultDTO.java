@@ -0,0 +1,19 @@
+package com.payment.bulk.dto;
+
+import com.payment.bulk.enums.BulkPaymentItemStatusEnum;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkPaymentItemResultDTO {
+	private Long id;
+	private int lineNumber;
+	private BulkPaymentItemStatusEnum status;
+	private String paymentIntentId;
+	private String paymentStatus;
+	private String errorMessage;
+}
@@ -0,0 +1,34 @@
+package com.payment.bulk.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import com.payment.bulk.enums.BulkPaymentItemStatusEnum;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkPaymentJobDTO {
+
+	private String jobId;
+
+	@Schema(description = "Spring Batch status of the last execution (STARTING, STARTED, COMPLETED, FAILED, ...)")
+	private String jobStatus;
+
+	private LocalDateTime startedAt;
+	private LocalDateTime finishedAt;
+
+	private long totalItems;
+	private Map<BulkPaymentItemStatusEnum, Long> itemsByStatus;
+
+	private List<BulkPaymentItemResultDTO> items;
+
+	@Schema(description = "Value to send as afterId to fetch the next page of items, null when there are no more rows")
+	private Long nextCursor;
+}
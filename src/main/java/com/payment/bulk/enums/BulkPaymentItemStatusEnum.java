@@ -0,0 +1,10 @@
+package com.payment.bulk.enums;
+
+public enum BulkPaymentItemStatusEnum {
+	// Pendiente de procesar (el job lo toma en la próxima ejecución o reinicio)
+	PENDING,
+	SUCCEEDED,
+	// 3D Secure: el PaymentIntent quedó esperando acción del cliente
+	REQUIRES_ACTION,
+	FAILED
+}
@@ -0,0 +1,70 @@
+package com.payment.bulk.model;
+
+import java.time.LocalDateTime;
+
+import com.payment.bulk.enums.BulkPaymentItemStatusEnum;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * Ítem de un envío masivo de pagos. Los ítems quedan en staging con estado
+ * PENDING y el job de Spring Batch los procesa y registra su resultado, lo que
+ * permite reiniciar el job sin volver a procesar los ya terminados.
+ */
+@Entity
+@Table(name = "bulk_payment_items", indexes = @Index(name = "idx_bulk_payment_items_job_status", columnList = "job_id, status, id"))
+@Data
+public class BulkPaymentItem {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bulk_payment_items_seq")
+	@SequenceGenerator(name = "bulk_payment_items_seq", sequenceName = "bulk_payment_items_seq", allocationSize = 50)
+	private Long id;
+
+	@Column(name = "job_id", nullable = false, length = 36)
+	private String jobId;
+
+	// Posición del ítem en el envío original (1..n)
+	@Column(name = "line_number", nullable = false)
+	private int lineNumber;
+
+	private Double amount;
+	private String currency;
+
+	// Payment method de prueba (pm_card_*) resuelto al recibir el ítem; ni el número ni el CVC se persisten
+	@Column(name = "payment_method_id")
+	private String paymentMethodId;
+	@Column(name = "exp_month")
+	private Integer expMonth;
+	@Column(name = "exp_year")
+	private Integer expYear;
+	@Column(name = "auto_capture", nullable = false)
+	private boolean autoCapture;
+
+	@Enumerated(EnumType.STRING)
+	@Column(nullable = false, length = 20)
+	private BulkPaymentItemStatusEnum status;
+
+	@Column(name = "payment_intent_id")
+	private String paymentIntentId;
+	@Column(name = "payment_status")
+	private String paymentStatus;
+	@Column(name = "error_message", length = 500)
+	private String errorMessage;
+
+	@Column(name = "created_at", nullable = false)
+	private LocalDateTime createdAt;
+	@Column(name = "updated_at")
+	private LocalDateTime updatedAt;
+
+}
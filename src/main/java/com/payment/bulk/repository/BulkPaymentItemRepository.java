@@ -0,0 +1,41 @@
+package com.payment.bulk.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.payment.bulk.enums.BulkPaymentItemStatusEnum;
+import com.payment.bulk.model.BulkPaymentItem;
+
+// Consultas declaradas en transacciones de solo lectura propias: fuera de una transacción JPA
+// (ej: dentro de un chunk del job masivo) el EntityManager no queda atado a la sincronización activa
+@Transactional(readOnly = true)
+public interface BulkPaymentItemRepository extends JpaRepository<BulkPaymentItem, Long> {
+
+	boolean existsByJobId(String jobId);
+
+	@Query("select min(i.id) from BulkPaymentItem i where i.jobId = :jobId")
+	Long findMinIdByJobId(@Param("jobId") String jobId);
+
+	@Query("select max(i.id) from BulkPaymentItem i where i.jobId = :jobId")
+	Long findMaxIdByJobId(@Param("jobId") String jobId);
+
+	// Keyset sobre los pendientes de una partición (id en (afterId, maxId])
+	@Query("select i from BulkPaymentItem i where i.jobId = :jobId and i.status = :status "
+			+ "and i.id > :afterId and i.id <= :maxId order by i.id asc")
+	List<BulkPaymentItem> findByStatusInRange(@Param("jobId") String jobId,
+			@Param("status") BulkPaymentItemStatusEnum status, @Param("afterId") long afterId,
+			@Param("maxId") long maxId, Pageable pageable);
+
+	// Resultados por ítem, paginados por keyset
+	List<BulkPaymentItem> findByJobIdAndIdGreaterThanOrderByIdAsc(String jobId, long afterId, Pageable pageable);
+
+	// Filas [status, cantidad] de un envío
+	@Query("select i.status, count(i) from BulkPaymentItem i where i.jobId = :jobId group by i.status")
+	List<Object[]> countByStatus(@Param("jobId") String jobId);
+
+}
@@ -0,0 +1,253 @@
+package com.payment.bulk.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.JobParametersInvalidException;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.repository.JobExecutionAlreadyRunningException;
+import org.springframework.batch.core.repository.JobInstanceAlreadyCompleteException;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.JobRestartException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.payment.bulk.config.BulkPaymentJobConfig;
+import com.payment.bulk.dto.BulkPaymentItemResultDTO;
+import com.payment.bulk.dto.BulkPaymentJobDTO;
+import com.payment.bulk.enums.BulkPaymentItemStatusEnum;
+import com.payment.bulk.model.BulkPaymentItem;
+import com.payment.bulk.repository.BulkPaymentItemRepository;
+import com.payment.card.dto.CardDetailsDTO;
+import com.payment.card.enums.TestCardTypeEnum;
+import com.payment.transaction.dto.AutomatedPaymentRequestDTO;
+import com.payment.transaction.dto.PaymentRequestDTO;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+public class BulkPaymentService {
+
+	private static final int MAX_ITEMS_PAGE_SIZE = 1000;
+
+	private final BulkPaymentItemRepository itemRepository;
+	private final JobLauncher jobLauncher;
+	private final JobRepository jobRepository;
+	private final Job bulkPaymentJob;
+	private final Validator validator;
+
+	// Máximo de ítems aceptados por envío
+	@Value("${payment.bulk.max-items:10000}")
+	private int maxItems;
+
+	public BulkPaymentService(BulkPaymentItemRepository itemRepository, JobLauncher jobLauncher,
+			JobRepository jobRepository, Job bulkPaymentJob, Validator validator) {
+		this.itemRepository = itemRepository;
+		this.jobLauncher = jobLauncher;
+		this.jobRepository = jobRepository;
+		this.bulkPaymentJob = bulkPaymentJob;
+		this.validator = validator;
+	}
+
+	/**
+	 * Guarda los ítems en staging y lanza el job en segundo plano. Los ítems
+	 * inválidos se registran directamente como FAILED con el motivo.
+	 */
+	public BulkPaymentJobDTO submit(List<AutomatedPaymentRequestDTO> requests) {
+		if (requests == null || requests.isEmpty()) {
+			throw new IllegalArgumentException("At least one payment is required");
+		}
+		if (requests.size() > maxItems) {
+			throw new IllegalArgumentException("A bulk submission accepts at most " + maxItems + " payments");
+		}
+
+		String jobId = UUID.randomUUID().toString();
+		LocalDateTime now = LocalDateTime.now();
+		List<BulkPaymentItem> items = new ArrayList<>(requests.size());
+		for (int i = 0; i < requests.size(); i++) {
+			items.add(toItem(jobId, i + 1, requests.get(i), now));
+		}
+		itemRepository.saveAll(items);
+		log.info("Bulk payment job {} submitted with {} items", jobId, items.size());
+
+		launch(jobId);
+		return getJob(jobId, 0, 0);
+	}
+
+	/**
+	 * Envío en CSV con columnas amount,currency,cardNumber,expMonth,expYear,cvc
+	 * y opcionalmente autoCapture. La primera línea puede ser un encabezado.
+	 */
+	public BulkPaymentJobDTO submitCsv(InputStream csv) throws IOException {
+		List<AutomatedPaymentRequestDTO> requests = new ArrayList<>();
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8))) {
+			String line;
+			boolean first = true;
+			while ((line = reader.readLine()) != null) {
+				if (line.isBlank()) {
+					continue;
+				}
+				if (first && line.toLowerCase().startsWith("amount")) {
+					first = false;
+					continue;
+				}
+				first = false;
+				requests.add(parseCsvLine(line));
+			}
+		}
+		return submit(requests);
+	}
+
+	@Transactional(readOnly = true)
+	public BulkPaymentJobDTO getJob(String jobId, long afterId, int limit) {
+		if (!itemRepository.existsByJobId(jobId)) {
+			throw new IllegalArgumentException("Bulk payment job not found with ID: " + jobId);
+		}
+
+		Map<BulkPaymentItemStatusEnum, Long> counts = new EnumMap<>(BulkPaymentItemStatusEnum.class);
+		long total = 0;
+		for (Object[] row : itemRepository.countByStatus(jobId)) {
+			long count = (Long) row[1];
+			counts.put((BulkPaymentItemStatusEnum) row[0], count);
+			total += count;
+		}
+
+		List<BulkPaymentItemResultDTO> items = List.of();
+		Long nextCursor = null;
+		if (limit > 0) {
+			int pageSize = Math.min(limit, MAX_ITEMS_PAGE_SIZE);
+			items = itemRepository.findByJobIdAndIdGreaterThanOrderByIdAsc(jobId, afterId, PageRequest.of(0, pageSize))
+					.stream()
+					.map(i -> new BulkPaymentItemResultDTO(i.getId(), i.getLineNumber(), i.getStatus(),
+							i.getPaymentIntentId(), i.getPaymentStatus(), i.getErrorMessage()))
+					.collect(Collectors.toList());
+			nextCursor = items.size() == pageSize ? items.get(items.size() - 1).getId() : null;
+		}
+
+		JobExecution execution = jobRepository.getLastJobExecution(BulkPaymentJobConfig.JOB_NAME, parameters(jobId));
+		String jobStatus = execution != null ? execution.getStatus().name() : BatchStatus.UNKNOWN.name();
+		LocalDateTime startedAt = execution != null ? execution.getStartTime() : null;
+		LocalDateTime finishedAt = execution != null ? execution.getEndTime() : null;
+
+		return new BulkPaymentJobDTO(jobId, jobStatus, startedAt, finishedAt, total, counts, items, nextCursor);
+	}
+
+	// Reinicia un job fallido o detenido; solo se procesan los ítems que siguen PENDING
+	public BulkPaymentJobDTO restart(String jobId) {
+		JobExecution execution = jobRepository.getLastJobExecution(BulkPaymentJobConfig.JOB_NAME, parameters(jobId));
+		if (execution == null) {
+			throw new IllegalArgumentException("Bulk payment job not found with ID: " + jobId);
+		}
+		BatchStatus status = execution.getStatus();
+		if (status != BatchStatus.FAILED && status != BatchStatus.STOPPED) {
+			throw new IllegalArgumentException("Cannot restart bulk payment job with status: " + status);
+		}
+		launch(jobId);
+		return getJob(jobId, 0, 0);
+	}
+
+	private void launch(String jobId) {
+		try {
+			jobLauncher.run(bulkPaymentJob, parameters(jobId));
+		} catch (JobExecutionAlreadyRunningException | JobRestartException | JobInstanceAlreadyCompleteException
+				| JobParametersInvalidException e) {
+			throw new IllegalArgumentException("Cannot launch bulk payment job " + jobId + ": " + e.getMessage(), e);
+		}
+	}
+
+	private static JobParameters parameters(String jobId) {
+		return new JobParametersBuilder().addString(BulkPaymentJobConfig.JOB_ID_PARAMETER, jobId).toJobParameters();
+	}
+
+	private BulkPaymentItem toItem(String jobId, int lineNumber, AutomatedPaymentRequestDTO request,
+			LocalDateTime now) {
+		BulkPaymentItem item = new BulkPaymentItem();
+		item.setJobId(jobId);
+		item.setLineNumber(lineNumber);
+		item.setCreatedAt(now);
+		item.setStatus(BulkPaymentItemStatusEnum.PENDING);
+
+		if (request == null) {
+			item.setStatus(BulkPaymentItemStatusEnum.FAILED);
+			item.setErrorMessage("Malformed payment line");
+			return item;
+		}
+
+		item.setAutoCapture(request.isAutoCapture());
+		if (request.getPaymentRequest() != null) {
+			item.setAmount(request.getPaymentRequest().getAmount());
+			item.setCurrency(request.getPaymentRequest().getCurrency());
+		}
+		if (request.getCardDetails() != null) {
+			item.setExpMonth(request.getCardDetails().getExpMonth());
+			item.setExpYear(request.getCardDetails().getExpYear());
+		}
+
+		Set<ConstraintViolation<AutomatedPaymentRequestDTO>> violations = validator.validate(request);
+		if (!violations.isEmpty()) {
+			item.setStatus(BulkPaymentItemStatusEnum.FAILED);
+			item.setErrorMessage(violations.stream().map(v -> v.getPropertyPath() + ": " + v.getMessage()).sorted()
+					.collect(Collectors.joining(", ")));
+			item.setUpdatedAt(now);
+			return item;
+		}
+
+		// Solo se guarda el payment method de prueba; un número que no es tarjeta de prueba falla aquí
+		Optional<TestCardTypeEnum> testCard = TestCardTypeEnum.fromCardNumber(request.getCardDetails().getCardNumber());
+		if (testCard.isEmpty()) {
+			item.setStatus(BulkPaymentItemStatusEnum.FAILED);
+			item.setErrorMessage("cardDetails.cardNumber: Unsupported test card number");
+			item.setUpdatedAt(now);
+			return item;
+		}
+		item.setPaymentMethodId(testCard.get().getPaymentMethodId());
+		return item;
+	}
+
+	// Una línea inválida no corta el envío: queda como ítem FAILED
+	private static AutomatedPaymentRequestDTO parseCsvLine(String line) {
+		String[] columns = line.split(",", -1);
+		if (columns.length < 6) {
+			return null;
+		}
+		try {
+			CardDetailsDTO card = new CardDetailsDTO();
+			card.setCardNumber(columns[2].trim());
+			card.setExpMonth(Integer.valueOf(columns[3].trim()));
+			card.setExpYear(Integer.valueOf(columns[4].trim()));
+			card.setCvc(columns[5].trim());
+
+			AutomatedPaymentRequestDTO request = new AutomatedPaymentRequestDTO();
+			request.setPaymentRequest(new PaymentRequestDTO(Double.parseDouble(columns[0].trim()), columns[1].trim()));
+			request.setCardDetails(card);
+			if (columns.length > 6 && !columns[6].isBlank()) {
+				request.setAutoCapture(Boolean.parseBoolean(columns[6].trim()));
+			}
+			return request;
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+}
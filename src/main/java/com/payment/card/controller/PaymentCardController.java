@@ -1,58 +1,65 @@
 package com.payment.card.controller;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import com.payment.card.dto.PaymentConfirmCardDetailsDTO;
 import com.payment.card.dto.TestCardTypeDTO;
 import com.payment.card.service.PaymentCardService;
 import com.payment.transaction.dto.PaymentIntentDTO;
 import com.payment.transaction.exception.GlobalExceptionHandler;
-import com.payment.transaction.service.PaymentSyncService;
 import com.stripe.exception.StripeException;
-import com.stripe.model.PaymentIntent;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/v1/payments/card")
 @Tag(name = "Payment Card Controller", description = "Endpoints for cards and payment confirmations with Stripe test cards")
 public class PaymentCardController extends GlobalExceptionHandler {
 
 	private final PaymentCardService paymentStripecardService;
-	private final PaymentSyncService paymentSyncService;
 
 	@Autowired
-	public PaymentCardController(PaymentCardService paymentStripecardService, 
-			PaymentSyncService paymentSyncService) {
+	public PaymentCardController(PaymentCardService paymentStripecardService) {
 		this.paymentStripecardService = paymentStripecardService;
-		this.paymentSyncService = paymentSyncService;
 	}
 
 	@PostMapping("/confirm/{paymentIntentId}")
 	@Operation(summary = "Confirm a PaymentIntent with card", description = "Confirms the payment using either an existing payment method or card details.")
 	public ResponseEntity<PaymentIntentDTO> confirmPaymentWithCard(@PathVariable String paymentIntentId,
-			@RequestBody PaymentConfirmCardDetailsDTO paymentConfirmCardDetailsDTO) throws StripeException {
+			@RequestBody PaymentConfirmCardDetailsDTO paymentConfirmCardDetailsDTO,
+			@RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) throws StripeException {
 		PaymentIntentDTO paymentIntentDTO = paymentStripecardService.confirmPaymentIntentWithCardDetails(paymentIntentId,
-				paymentConfirmCardDetailsDTO);
-		PaymentIntent paymentIntent = PaymentIntent.retrieve(paymentIntentId);
-		paymentSyncService.syncPaymentStatus(paymentIntent);
+				paymentConfirmCardDetailsDTO, idempotencyKey);
 		return ResponseEntity.ok(paymentIntentDTO);
 	}
 
+	// Con If-None-Match igual al ETag del catálogo responde 304 sin cuerpo
 	@GetMapping("/test/list")
-	public List<TestCardTypeDTO> getTestCards() throws StripeException {
-		return paymentStripecardService.getAllTestCards();
+	@Operation(summary = "List Stripe test cards", description = "Returns the test card catalog. Supports conditional requests through ETag / If-None-Match.")
+	public ResponseEntity<List<TestCardTypeDTO>> getTestCards(WebRequest request) {
+		String eTag = paymentStripecardService.getTestCardsETag();
+		if (request.checkNotModified(eTag)) {
+			return null;
+		}
+		return ResponseEntity.ok().eTag(eTag).cacheControl(CacheControl.maxAge(1, TimeUnit.HOURS).cachePublic())
+				.body(paymentStripecardService.getAllTestCards());
 	}
 
 	@PostMapping("/test/visa/confirm/{paymentIntentId}")
@@ -60,8 +67,6 @@ public class PaymentCardController extends GlobalExceptionHandler {
 	public ResponseEntity<PaymentIntentDTO> confirmPaymentWithTestPmCardVisa(@PathVariable String paymentIntentId)
 			throws StripeException {
 		PaymentIntentDTO paymentIntentDTO = paymentStripecardService.confirmPaymentIntentWithTestPmCardVisa(paymentIntentId);
-		PaymentIntent paymentIntent = PaymentIntent.retrieve(paymentIntentId);
-		paymentSyncService.syncPaymentStatus(paymentIntent);
 		return ResponseEntity.ok(paymentIntentDTO);
 	}
 
@@ -70,8 +75,6 @@ public class PaymentCardController extends GlobalExceptionHandler {
 	public ResponseEntity<PaymentIntentDTO> confirmPaymentIntentWithTestPmCardVisaDebit(
 			@Parameter(description = "PaymentIntent ID") @PathVariable String paymentIntentId) throws StripeException {
 		PaymentIntentDTO paymentIntentDTO = paymentStripecardService.confirmPaymentIntentWithTestPmCardVisaDebit(paymentIntentId);
-		PaymentIntent paymentIntent = PaymentIntent.retrieve(paymentIntentId);
-		paymentSyncService.syncPaymentStatus(paymentIntent);
 		return ResponseEntity.ok(paymentIntentDTO);
 	}
 
@@ -80,8 +83,6 @@ public class PaymentCardController extends GlobalExceptionHandler {
 	public ResponseEntity<PaymentIntentDTO> confirmPaymentIntentWithTestPmCardMastercard(
 			@Parameter(description = "PaymentIntent ID") @PathVariable String paymentIntentId) throws StripeException {
 		PaymentIntentDTO paymentIntentDTO = paymentStripecardService.confirmPaymentIntentWithTestPmCardMastercard(paymentIntentId);
-		PaymentIntent paymentIntent = PaymentIntent.retrieve(paymentIntentId);
-		paymentSyncService.syncPaymentStatus(paymentIntent);
 		return ResponseEntity.ok(paymentIntentDTO);
 	}
 
@@ -90,8 +91,6 @@ public class PaymentCardController extends GlobalExceptionHandler {
 	public ResponseEntity<PaymentIntentDTO> confirmPaymentIntentWithTestPmCardMastercard2(
 			@Parameter(description = "PaymentIntent ID") @PathVariable String paymentIntentId) throws StripeException {
 		PaymentIntentDTO paymentIntentDTO = paymentStripecardService.confirmPaymentIntentWithTestPmCardMastercard2(paymentIntentId);
-		PaymentIntent paymentIntent = PaymentIntent.retrieve(paymentIntentId);
-		paymentSyncService.syncPaymentStatus(paymentIntent);
 		return ResponseEntity.ok(paymentIntentDTO);
 	}
 
@@ -100,8 +99,6 @@ public class PaymentCardController extends GlobalExceptionHandler {
 	public ResponseEntity<PaymentIntentDTO> confirmPaymentIntentWithTestPmCardAmex(
 			@Parameter(description = "PaymentIntent ID") @PathVariable String paymentIntentId) throws StripeException {
 		PaymentIntentDTO paymentIntentDTO = paymentStripecardService.confirmPaymentIntentWithTestPmCardAmex(paymentIntentId);
-		PaymentIntent paymentIntent = PaymentIntent.retrieve(paymentIntentId);
-		paymentSyncService.syncPaymentStatus(paymentIntent);
 		return ResponseEntity.ok(paymentIntentDTO);
 	}
 
@@ -110,8 +107,6 @@ public class PaymentCardController extends GlobalExceptionHandler {
 	public ResponseEntity<PaymentIntentDTO> confirmPaymentIntentWithTestPmCardDiscover(
 			@Parameter(description = "PaymentIntent ID") @PathVariable String paymentIntentId) throws StripeException {
 		PaymentIntentDTO paymentIntentDTO = paymentStripecardService.confirmPaymentIntentWithTestPmCardDiscover(paymentIntentId);
-		PaymentIntent paymentIntent = PaymentIntent.retrieve(paymentIntentId);
-		paymentSyncService.syncPaymentStatus(paymentIntent);
 		return ResponseEntity.ok(paymentIntentDTO);
 	}
 
@@ -120,8 +115,6 @@ public class PaymentCardController extends GlobalExceptionHandler {
 	public ResponseEntity<PaymentIntentDTO> confirmPaymentIntentWithTestPmCardDiners(
 			@Parameter(description = "PaymentIntent ID") @PathVariable String paymentIntentId) throws StripeException {
 		PaymentIntentDTO paymentIntentDTO = paymentStripecardService.confirmPaymentIntentWithTestPmCardDiners(paymentIntentId);
-		PaymentIntent paymentIntent = PaymentIntent.retrieve(paymentIntentId);
-		paymentSyncService.syncPaymentStatus(paymentIntent);
 		return ResponseEntity.ok(paymentIntentDTO);
 	}
 
@@ -130,8 +123,6 @@ public class PaymentCardController extends GlobalExceptionHandler {
 	public ResponseEntity<PaymentIntentDTO> confirmPaymentIntentWithTestPmCardJcb(
 			@Parameter(description = "PaymentIntent ID") @PathVariable String paymentIntentId) throws StripeException {
 		PaymentIntentDTO paymentIntentDTO = paymentStripecardService.confirmPaymentIntentWithTestPmCardJcb(paymentIntentId);
-		PaymentIntent paymentIntent = PaymentIntent.retrieve(paymentIntentId);
-		paymentSyncService.syncPaymentStatus(paymentIntent);
 		return ResponseEntity.ok(paymentIntentDTO);
 	}
 
@@ -140,8 +131,6 @@ public class PaymentCardController extends GlobalExceptionHandler {
 	public ResponseEntity<PaymentIntentDTO> confirmPaymentIntentWithTestPmCardUnionpay(
 			@Parameter(description = "PaymentIntent ID") @PathVariable String paymentIntentId) throws StripeException {
 		PaymentIntentDTO paymentIntentDTO = paymentStripecardService.confirmPaymentIntentWithTestPmCardUnionpay(paymentIntentId);
-		PaymentIntent paymentIntent = PaymentIntent.retrieve(paymentIntentId);
-		paymentSyncService.syncPaymentStatus(paymentIntent);
 		return ResponseEntity.ok(paymentIntentDTO);
 	}
 }
@@ -1,5 +1,7 @@
 package com.payment.card.dto;
 
+import org.hibernate.validator.constraints.LuhnCheck;
+
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
@@ -12,6 +14,7 @@ import lombok.Data;
 public class CardDetailsDTO {
 	@NotBlank(message = "Card number is required")
 	@Pattern(regexp = "\\d{13,19}", message = "Card number must be between 13 and 19 digits")
+	@LuhnCheck(message = "Card number is invalid")
 	@Schema(description = "Card number (only use for test environments)", example = "4242424242424242", requiredMode = Schema.RequiredMode.REQUIRED)
 	private String cardNumber;
 	@NotNull(message = "Expiration month is required")
@@ -0,0 +1,30 @@
+package com.payment.card.enums;
+
+import java.util.List;
+
+import lombok.Getter;
+
+/**
+ * Marcas de tarjeta y sus rangos de BIN (primeros dígitos del número). Un rango
+ * se escribe como prefijo ({@code "4"}) o como intervalo de prefijos del mismo
+ * largo ({@code "2221-2720"}).
+ */
+@Getter
+public enum CardBrandEnum {
+
+	VISA("Visa", "4"),
+	MASTERCARD("Mastercard", "51-55", "2221-2720"),
+	AMEX("American Express", "34", "37"),
+	DISCOVER("Discover", "6011", "644-649", "65"),
+	DINERS("Diners Club", "300-305", "36", "38-39"),
+	JCB("JCB", "3528-3589"),
+	UNIONPAY("UnionPay", "62");
+
+	private final String displayName;
+	private final List<String> binRanges;
+
+	CardBrandEnum(String displayName, String... binRanges) {
+		this.displayName = displayName;
+		this.binRanges = List.of(binRanges);
+	}
+}
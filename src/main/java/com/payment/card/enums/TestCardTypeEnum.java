@@ -1,7 +1,11 @@
 package com.payment.card.enums;
 
 import java.util.Arrays;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -24,6 +28,12 @@ public enum TestCardTypeEnum {
 	JCB("JCB", "3566002020360505", "123", "07", "2030", "Tarjeta JCB de prueba", "pm_card_jcb"),
 	UNIONPAY("UnionPay", "6200000000000005", "123", "06", "2030", "Tarjeta UnionPay de prueba", "pm_card_unionpay");
 
+	// Índices inmutables, calculados una vez: búsqueda por hash en lugar de recorrer values()
+	private static final Map<String, TestCardTypeEnum> BY_NUMBER = Arrays.stream(values())
+			.collect(Collectors.toUnmodifiableMap(TestCardTypeEnum::getNumber, Function.identity()));
+	private static final Set<String> PAYMENT_METHOD_IDS = Arrays.stream(values())
+			.map(TestCardTypeEnum::getPaymentMethodId).collect(Collectors.toUnmodifiableSet());
+
 	private final String brand;
 	private final String number;
 	private final String cvc;
@@ -33,6 +43,10 @@ public enum TestCardTypeEnum {
 	private final String paymentMethodId;
 
 	public static Optional<TestCardTypeEnum> fromCardNumber(String cardNumber) {
-		return Arrays.stream(values()).filter(tc -> tc.getNumber().equals(cardNumber)).findFirst();
+		return cardNumber == null ? Optional.empty() : Optional.ofNullable(BY_NUMBER.get(cardNumber));
+	}
+
+	public static boolean isTestPaymentMethod(String paymentMethodId) {
+		return paymentMethodId != null && PAYMENT_METHOD_IDS.contains(paymentMethodId);
 	}
 }
@@ -0,0 +1,65 @@
+package com.payment.card.service;
+
+import com.payment.card.enums.CardBrandEnum;
+
+/**
+ * Trie de dígitos con los rangos de BIN de {@link CardBrandEnum}. La marca de
+ * un número es la del prefijo más largo que coincide, así que resolverla
+ * recorre como máximo tantos nodos como dígitos tiene el rango más largo
+ * (hoy 4), sin importar cuántos rangos haya. Inmutable una vez construido.
+ */
+final class CardBinTrie {
+
+	private final Node root = new Node();
+
+	CardBinTrie(CardBrandEnum... brands) {
+		for (CardBrandEnum brand : brands) {
+			for (String range : brand.getBinRanges()) {
+				int dash = range.indexOf('-');
+				if (dash < 0) {
+					insert(range, brand);
+					continue;
+				}
+				String from = range.substring(0, dash);
+				String to = range.substring(dash + 1);
+				for (int prefix = Integer.parseInt(from); prefix <= Integer.parseInt(to); prefix++) {
+					insert(String.valueOf(prefix), brand);
+				}
+			}
+		}
+	}
+
+	// Marca del prefijo más largo de cardNumber que está en el trie, o null si ninguno coincide
+	CardBrandEnum brandOf(String cardNumber) {
+		Node node = root;
+		CardBrandEnum brand = null;
+		for (int i = 0; i < cardNumber.length() && node != null; i++) {
+			int digit = cardNumber.charAt(i) - '0';
+			if (digit < 0 || digit > 9) {
+				return null;
+			}
+			node = node.children[digit];
+			if (node != null && node.brand != null) {
+				brand = node.brand;
+			}
+		}
+		return brand;
+	}
+
+	private void insert(String prefix, CardBrandEnum brand) {
+		Node node = root;
+		for (int i = 0; i < prefix.length(); i++) {
+			int digit = prefix.charAt(i) - '0';
+			if (node.children[digit] == null) {
+				node.children[digit] = new Node();
+			}
+			node = node.children[digit];
+		}
+		node.brand = brand;
+	}
+
+	private static final class Node {
+		private final Node[] children = new Node[10];
+		private CardBrandEnum brand;
+	}
+}
@@ -0,0 +1,62 @@
+package com.payment.card.service;
+
+import java.util.Optional;
+
+import com.payment.card.enums.CardBrandEnum;
+import com.payment.card.enums.TestCardTypeEnum;
+
+/**
+ * Resuelve números de tarjeta localmente, antes de cualquier llamada a
+ * Stripe: valida el dígito verificador (Luhn), detecta la marca por BIN y
+ * busca la tarjeta de prueba en el índice de {@link TestCardTypeEnum}. Un
+ * número inválido se rechaza aquí en lugar de costar un request a Stripe.
+ */
+public final class CardNumberResolver {
+
+	private static final CardBinTrie BIN_TRIE = new CardBinTrie(CardBrandEnum.values());
+
+	private CardNumberResolver() {
+	}
+
+	/**
+	 * Tarjeta de prueba para {@code cardNumber}. Lanza
+	 * {@link IllegalArgumentException} (400) si el número no pasa Luhn o no es
+	 * una tarjeta de prueba soportada.
+	 */
+	public static TestCardTypeEnum resolveTestCard(String cardNumber) {
+		if (!isLuhnValid(cardNumber)) {
+			throw new IllegalArgumentException("Invalid card number: checksum (Luhn) failed");
+		}
+		return TestCardTypeEnum.fromCardNumber(cardNumber).orElseThrow(() -> new IllegalArgumentException(
+				"Unsupported test card number: " + cardNumber + brandOf(cardNumber)
+						.map(brand -> " (" + brand.getDisplayName() + ")").orElse("")));
+	}
+
+	public static Optional<CardBrandEnum> brandOf(String cardNumber) {
+		return cardNumber == null ? Optional.empty() : Optional.ofNullable(BIN_TRIE.brandOf(cardNumber));
+	}
+
+	// Solo dígitos; se duplica uno de cada dos desde la derecha y la suma debe ser múltiplo de 10
+	public static boolean isLuhnValid(String cardNumber) {
+		if (cardNumber == null || cardNumber.isEmpty()) {
+			return false;
+		}
+		int sum = 0;
+		boolean doubled = false;
+		for (int i = cardNumber.length() - 1; i >= 0; i--) {
+			int digit = cardNumber.charAt(i) - '0';
+			if (digit < 0 || digit > 9) {
+				return false;
+			}
+			if (doubled) {
+				digit *= 2;
+				if (digit > 9) {
+					digit -= 9;
+				}
+			}
+			sum += digit;
+			doubled = !doubled;
+		}
+		return sum % 10 == 0;
+	}
+}
@@ -1,55 +1,53 @@
 package com.payment.card.service;
 
-import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Optional;
-import java.util.stream.Collectors;
 
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.payment.card.dto.PaymentConfirmCardDetailsDTO;
 import com.payment.card.dto.TestCardTypeDTO;
 import com.payment.card.enums.TestCardTypeEnum;
 import com.payment.transaction.dto.PaymentIntentDTO;
-import com.payment.transaction.enums.ConfirmablePaymentStatusEnum;
-import com.payment.transaction.model.Payment;
-import com.payment.transaction.repository.PaymentRepository;
-import com.stripe.Stripe;
+import com.payment.transaction.exception.PaymentIntentStateErrors;
+import com.payment.transaction.gateway.PaymentGateway;
+import com.payment.transaction.service.IdempotencyService;
+import com.payment.transaction.service.PaymentSyncService;
 import com.stripe.exception.StripeException;
 import com.stripe.model.PaymentIntent;
+import com.stripe.net.RequestOptions;
 import com.stripe.param.PaymentIntentConfirmParams;
 
-import jakarta.annotation.PostConstruct;
-
 @Service
 public class PaymentCardService {
 
-	@Value("${STRIPE_API_KEY}")
-	private String secretKey;
-
-	@Value("${STRIPE_PUBLISHABLE_KEY}")
-	private String publishableKey;
-
-	private final PaymentRepository paymentRepository;
-
-	public PaymentCardService(PaymentRepository paymentRepository) {
-		this.paymentRepository = paymentRepository;
+	private final PaymentGateway paymentGateway;
+	private final PaymentSyncService paymentSyncService;
+	private final IdempotencyService idempotencyService;
+
+	// El catálogo sale de un enum: se arma una sola vez y su ETag no cambia hasta el próximo deploy
+	private final List<TestCardTypeDTO> testCards;
+	private final String testCardsETag;
+
+	public PaymentCardService(PaymentGateway paymentGateway, PaymentSyncService paymentSyncService,
+			IdempotencyService idempotencyService) {
+		this.paymentGateway = paymentGateway;
+		this.paymentSyncService = paymentSyncService;
+		this.idempotencyService = idempotencyService;
+		this.testCards = Arrays.stream(TestCardTypeEnum.values())
+				.map(tc -> new TestCardTypeDTO(tc.getBrand(), tc.getNumber(), tc.getCvc(), tc.getExpMonth(),
+						tc.getExpYear(), tc.getDescription(), tc.getPaymentMethodId()))
+				.toList();
+		this.testCardsETag = "\"" + Integer.toHexString(testCards.hashCode()) + "\"";
 	}
 
-	// Se ejecuta después de construir la instancia
-	@PostConstruct
-	public void init() {
-		Stripe.apiKey = secretKey;
+	// Retorna la lista completa de tarjetas de prueba (inmutable)
+	public List<TestCardTypeDTO> getAllTestCards() {
+		return testCards;
 	}
 
-	// Retorna la lista completa de tarjetas de prueba
-	public List<TestCardTypeDTO> getAllTestCards() throws StripeException {
-		return Arrays
-				.stream(TestCardTypeEnum.values()).map(tc -> new TestCardTypeDTO(tc.getBrand(), tc.getNumber(),
-						tc.getCvc(), tc.getExpMonth(), tc.getExpYear(), tc.getDescription(), tc.getPaymentMethodId()))
-				.collect(Collectors.toList());
+	public String getTestCardsETag() {
+		return testCardsETag;
 	}
 
 
@@ -91,84 +89,47 @@ public class PaymentCardService {
 	}
 
 	private PaymentIntentDTO confirmPaymentIntentWithTestCard(String paymentIntentId, TestCardTypeEnum cardType) throws StripeException {
-		try {
-			PaymentIntentConfirmParams confirmParams = PaymentIntentConfirmParams.builder()
-					.setPaymentMethod(cardType.getPaymentMethodId())
-					.build();
-
-			PaymentIntent paymentIntent = PaymentIntent.retrieve(paymentIntentId);
-
-			String status = paymentIntent.getStatus();
-
-			if (!ConfirmablePaymentStatusEnum.isConfirmable(status)) {
-				throw new IllegalArgumentException("Cannot confirm payment with status: " + status);
-			}
-
-			paymentIntent = paymentIntent.confirm(confirmParams);
-
-			Payment payment = paymentRepository.findByPaymentIntentId(paymentIntentId).orElse(null);
-
-			if (payment == null) {
-				System.out.println("Payment not found with ID: " + paymentIntentId);
-				return new PaymentIntentDTO(paymentIntent.getId(), paymentIntent.getAmount(),
-						paymentIntent.getCurrency(), paymentIntent.getStatus(), paymentIntent.getClientSecret());
-			}
-
-			payment.setStatus(paymentIntent.getStatus());
-			payment.setUpdatedAt(LocalDateTime.now());
-			paymentRepository.save(payment);
-
-			return new PaymentIntentDTO(paymentIntent.getId(), paymentIntent.getAmount(), paymentIntent.getCurrency(),
-					paymentIntent.getStatus(), paymentIntent.getClientSecret());
-		} catch (StripeException e) {
-			throw e;
-		}
+		return confirmWithPaymentMethod(paymentIntentId, cardType.getPaymentMethodId(), RequestOptions.getDefault());
 	}
 
 	// Endpoint para confirmar un pago con tarjeta
 	public PaymentIntentDTO confirmPaymentIntentWithCardDetails(String paymentIntentId,
 			PaymentConfirmCardDetailsDTO paymentConfirmCardDetailsDTO) throws StripeException {
-		try {
-
-			PaymentIntent paymentIntent = PaymentIntent.retrieve(paymentIntentId);
-
-			if (paymentIntent == null || paymentIntent.getId() == null) {
-				throw new IllegalArgumentException("PaymentIntent not found with ID: " + paymentIntentId);
-			}
-
-			String status = paymentIntent.getStatus();
-
-			if (!ConfirmablePaymentStatusEnum.isConfirmable(status)) {
-				throw new IllegalArgumentException("Cannot confirm payment with status: " + status);
-			}
+		return confirmPaymentIntentWithCardDetails(paymentIntentId, paymentConfirmCardDetailsDTO, null);
+	}
 
-			String cardNumber = paymentConfirmCardDetailsDTO.getCardDetails().getCardNumber();
+	public PaymentIntentDTO confirmPaymentIntentWithCardDetails(String paymentIntentId,
+			PaymentConfirmCardDetailsDTO paymentConfirmCardDetailsDTO, String idempotencyKey) throws StripeException {
+		return idempotencyService.execute("confirm", idempotencyKey,
+				List.of(paymentIntentId, paymentConfirmCardDetailsDTO), PaymentIntentDTO.class,
+				() -> confirmWithCardDetails(paymentIntentId, paymentConfirmCardDetailsDTO,
+						IdempotencyService.requestOptions(idempotencyKey)));
+	}
 
-			Optional<TestCardTypeEnum> testCard = TestCardTypeEnum.fromCardNumber(cardNumber);
-			if (testCard.isEmpty()) {
-				throw new IllegalArgumentException("Unsupported test card number: " + cardNumber);
-			}
+	private PaymentIntentDTO confirmWithCardDetails(String paymentIntentId,
+			PaymentConfirmCardDetailsDTO paymentConfirmCardDetailsDTO, RequestOptions options) throws StripeException {
+		String cardNumber = paymentConfirmCardDetailsDTO.getCardDetails().getCardNumber();
+		TestCardTypeEnum testCard = CardNumberResolver.resolveTestCard(cardNumber);
 
-			// Usamos el paymentMethodId de prueba de Stripe
-			String testPaymentMethodId = testCard.get().getPaymentMethodId();
+		// Usamos el paymentMethodId de prueba de Stripe
+		return confirmWithPaymentMethod(paymentIntentId, testCard.getPaymentMethodId(), options);
+	}
 
+	// Confirma directamente y sincroniza con el PaymentIntent que devuelve Stripe,
+	// sin recuperarlo antes ni después
+	private PaymentIntentDTO confirmWithPaymentMethod(String paymentIntentId, String paymentMethodId,
+			RequestOptions options) throws StripeException {
+		try {
 			PaymentIntentConfirmParams confirmParams = PaymentIntentConfirmParams.builder()
-					.setPaymentMethod(testPaymentMethodId).build();
-
-			PaymentIntent updatedPaymentIntent = paymentIntent.confirm(confirmParams);
-
-			Payment payment = paymentRepository.findByPaymentIntentId(paymentIntentId).orElse(null);
+					.setPaymentMethod(paymentMethodId).build();
 
-			if (payment != null) {
-				payment.setStatus(updatedPaymentIntent.getStatus());
-				payment.setUpdatedAt(LocalDateTime.now());
-				paymentRepository.save(payment);
-			}
+			PaymentIntent confirmedIntent = paymentGateway.confirm(paymentIntentId, confirmParams, options);
+			paymentSyncService.syncPaymentStatus(confirmedIntent);
 
-			return new PaymentIntentDTO(updatedPaymentIntent.getId(), updatedPaymentIntent.getAmount(),
-					updatedPaymentIntent.getCurrency(), updatedPaymentIntent.getStatus(),
-					updatedPaymentIntent.getClientSecret());
+			return new PaymentIntentDTO(confirmedIntent.getId(), confirmedIntent.getAmount(),
+					confirmedIntent.getCurrency(), confirmedIntent.getStatus(), confirmedIntent.getClientSecret());
 		} catch (StripeException e) {
+			PaymentIntentStateErrors.rethrowIfUnexpectedState(e, "Cannot confirm payment with status: ");
 			throw e;
 		}
 	}
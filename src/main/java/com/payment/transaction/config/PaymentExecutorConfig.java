@@ -0,0 +1,50 @@
+package com.payment.transaction.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+
+import com.payment.transaction.service.TokenBucketRateLimiter;
+
+@Configuration
+public class PaymentExecutorConfig {
+
+	// Mismo interruptor que usa Spring Boot para Tomcat y @Scheduled (requiere Java 21)
+	@Value("${spring.threads.virtual.enabled:false}")
+	private boolean virtualThreads;
+
+	// Llamadas simultáneas a Stripe durante el refresco de pagos abiertos
+	@Value("${payment.sync.refresh-concurrency:8}")
+	private int refreshConcurrency;
+
+	// Cuota de lectura de Stripe reservada para el refresco (live: 100 req/s, test: 25 req/s)
+	@Value("${payment.sync.read-rate-per-second:50}")
+	private double readRatePerSecond;
+
+	@Value("${payment.sync.read-burst:10}")
+	private int readBurst;
+
+	@Bean
+	public TokenBucketRateLimiter stripeReadRateLimiter() {
+		return new TokenBucketRateLimiter(readRatePerSecond, readBurst);
+	}
+
+	// Descubrimientos pedidos por POST /sync: corren fuera del hilo del request
+	@Bean
+	public TaskExecutor paymentDiscoveryExecutor() {
+		SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("payment-discover-");
+		executor.setVirtualThreads(virtualThreads);
+		return executor;
+	}
+
+	@Bean
+	public TaskExecutor paymentRefreshExecutor() {
+		SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("payment-refresh-");
+		executor.setVirtualThreads(virtualThreads);
+		// Al llegar al límite, el envío de nuevas tareas espera a que termine alguna
+		executor.setConcurrencyLimit(refreshConcurrency);
+		return executor;
+	}
+}
@@ -0,0 +1,230 @@
+package com.payment.transaction.config;
+
+import java.net.PasswordAuthentication;
+import java.net.Proxy;
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import com.payment.transaction.gateway.AsyncPaymentGateway;
+import com.payment.transaction.gateway.JdkStripeHttpClient;
+import com.payment.transaction.gateway.MeteredAsyncPaymentGateway;
+import com.payment.transaction.gateway.MeteredPaymentGateway;
+import com.payment.transaction.gateway.PaymentGateway;
+import com.payment.transaction.gateway.ResilientAsyncPaymentGateway;
+import com.payment.transaction.gateway.ResilientPaymentGateway;
+import com.payment.transaction.gateway.SimulatedPaymentGateway;
+import com.payment.transaction.gateway.StripeAsyncPaymentGateway;
+import com.payment.transaction.gateway.StripePaymentGateway;
+import com.stripe.Stripe;
+import com.stripe.StripeClient;
+import com.stripe.net.LiveStripeResponseGetter;
+import com.stripe.net.StripeResponseGetterOptions;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.retry.Retry;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Configuration
+@Slf4j
+public class PaymentGatewayConfig {
+
+	@Value("${stripe.api.key}")
+	private String stripeApiKey;
+
+	// Base de la API; se cambia para apuntar a stripe-mock u otro doble local
+	@Value("${stripe.api.base:" + Stripe.LIVE_API_BASE + "}")
+	private String stripeApiBase;
+
+	@Value("${payment.stripe.http.connect-timeout-ms:5000}")
+	private int connectTimeoutMs;
+
+	@Value("${payment.stripe.http.read-timeout-ms:30000}")
+	private int readTimeoutMs;
+
+	@Value("${payment.stripe.http.max-connections:50}")
+	private int maxConnections;
+
+	// Reintentos del SDK ante errores de red, 409 y 5xx (siempre con Idempotency-Key); en las lecturas solo sin read-retry
+	@Value("${payment.stripe.http.max-network-retries:2}")
+	private int maxNetworkRetries;
+
+	// HTTP_2 (con vuelta a HTTP/1.1 si el servidor no lo negocia) o HTTP_1_1
+	@Value("${payment.stripe.http.version:HTTP_2}")
+	private HttpClient.Version httpVersion;
+
+	@Value("${payment.gateway.simulator.latency-ms:0}")
+	private long simulatorLatencyMs;
+
+	@Value("${payment.gateway.simulator.latency-jitter-ms:0}")
+	private long simulatorLatencyJitterMs;
+
+	@Value("${payment.gateway.simulator.error-rate:0}")
+	private double simulatorErrorRate;
+
+	@Value("${payment.gateway.simulator.rate-limit-rate:0}")
+	private double simulatorRateLimitRate;
+
+	// Conexiones persistentes y HTTP/2 contra Stripe; las comparten el SDK y el gateway asíncrono
+	@Bean
+	public JdkStripeHttpClient stripeHttpClient() {
+		HttpClient httpClient = HttpClient.newBuilder()
+				.version(httpVersion)
+				.connectTimeout(Duration.ofMillis(connectTimeoutMs))
+				.build();
+		return new JdkStripeHttpClient(httpClient, maxConnections);
+	}
+
+	/**
+	 * Único cliente de Stripe de la aplicación. La API key viaja en sus opciones
+	 * y no en el {@code Stripe.apiKey} global; las llamadas salen por el
+	 * {@link JdkStripeHttpClient} compartido.
+	 */
+	@Bean
+	public StripeClient stripeClient(JdkStripeHttpClient stripeHttpClient) {
+		StripeClientOptions options = new StripeClientOptions(stripeApiKey, stripeApiBase, connectTimeoutMs,
+				readTimeoutMs, maxNetworkRetries);
+		return new StripeClient(new LiveStripeResponseGetter(options, stripeHttpClient));
+	}
+
+	// payment.gateway.mode=simulator: Stripe simulado en memoria para pruebas de carga sin red
+	@Bean
+	@ConditionalOnProperty(name = "payment.gateway.mode", havingValue = "simulator")
+	public SimulatedPaymentGateway simulatedPaymentGateway() {
+		log.warn("Using the in-memory Stripe simulator: no real payments will be processed");
+		return new SimulatedPaymentGateway(simulatorLatencyMs, simulatorLatencyJitterMs, simulatorErrorRate,
+				simulatorRateLimitRate);
+	}
+
+	/**
+	 * Toda llamada que llega a Stripe (o al simulador) queda medida en
+	 * stripe.requests. Las lecturas tienen una sola capa de reintentos: si
+	 * {@code stripeReadRetry} reintenta, el SDK no lo hace.
+	 */
+	@Bean
+	public MeteredPaymentGateway meteredPaymentGateway(StripeClient stripeClient,
+			ObjectProvider<SimulatedPaymentGateway> simulator, MeterRegistry meterRegistry, Retry stripeReadRetry) {
+		SimulatedPaymentGateway simulated = simulator.getIfAvailable();
+		int readNetworkRetries = stripeReadRetry.getRetryConfig().getMaxAttempts() > 1 ? 0 : maxNetworkRetries;
+		PaymentGateway gateway = simulated != null ? simulated
+				: new StripePaymentGateway(stripeClient, readNetworkRetries);
+		return new MeteredPaymentGateway(gateway, meterRegistry);
+	}
+
+	/**
+	 * Gateway no bloqueante del pago automatizado reactivo. Mide y protege igual
+	 * que {@link #paymentGateway} (mismo circuit breaker), con un bulkhead sin
+	 * espera porque lo llama un event loop.
+	 */
+	@Bean
+	public AsyncPaymentGateway asyncPaymentGateway(JdkStripeHttpClient stripeHttpClient,
+			ObjectProvider<SimulatedPaymentGateway> simulator, MeterRegistry meterRegistry,
+			CircuitBreaker stripeCircuitBreaker, @Qualifier("stripeReactiveBulkhead") Bulkhead bulkhead) {
+		SimulatedPaymentGateway simulated = simulator.getIfAvailable();
+		AsyncPaymentGateway gateway = simulated != null ? simulated.async()
+				: new StripeAsyncPaymentGateway(stripeHttpClient, stripeApiKey, stripeApiBase, readTimeoutMs,
+						maxNetworkRetries);
+		return new ResilientAsyncPaymentGateway(new MeteredAsyncPaymentGateway(gateway, meterRegistry),
+				stripeCircuitBreaker, bulkhead);
+	}
+
+	/**
+	 * Gateway de los requests de la API. Comparte el circuit breaker con
+	 * {@link #backgroundPaymentGateway}, pero no su bulkhead: un job de
+	 * sincronización lento no deja sin lugar a los requests interactivos.
+	 */
+	@Bean
+	@Primary
+	public PaymentGateway paymentGateway(MeteredPaymentGateway meteredPaymentGateway,
+			CircuitBreaker stripeCircuitBreaker, @Qualifier("stripeInteractiveBulkhead") Bulkhead bulkhead,
+			Retry stripeReadRetry) {
+		return new ResilientPaymentGateway(meteredPaymentGateway, stripeCircuitBreaker, bulkhead, stripeReadRetry);
+	}
+
+	// Gateway del job de sincronización (descubrimiento y refresco de pagos abiertos)
+	@Bean
+	public PaymentGateway backgroundPaymentGateway(MeteredPaymentGateway meteredPaymentGateway,
+			CircuitBreaker stripeCircuitBreaker, @Qualifier("stripeBackgroundBulkhead") Bulkhead bulkhead,
+			Retry stripeReadRetry) {
+		return new ResilientPaymentGateway(meteredPaymentGateway, stripeCircuitBreaker, bulkhead, stripeReadRetry);
+	}
+
+	// StripeClient.builder() no permite elegir el HttpClient; estas opciones reemplazan las que arma el builder
+	private static final class StripeClientOptions extends StripeResponseGetterOptions {
+
+		private final String apiKey;
+		private final String apiBase;
+		private final int connectTimeout;
+		private final int readTimeout;
+		private final int maxNetworkRetries;
+
+		StripeClientOptions(String apiKey, String apiBase, int connectTimeout, int readTimeout,
+				int maxNetworkRetries) {
+			this.apiKey = apiKey;
+			this.apiBase = apiBase;
+			this.connectTimeout = connectTimeout;
+			this.readTimeout = readTimeout;
+			this.maxNetworkRetries = maxNetworkRetries;
+		}
+
+		@Override
+		public String getApiKey() {
+			return apiKey;
+		}
+
+		@Override
+		public String getClientId() {
+			return null;
+		}
+
+		@Override
+		public int getConnectTimeout() {
+			return connectTimeout;
+		}
+
+		@Override
+		public Proxy getConnectionProxy() {
+			return null;
+		}
+
+		@Override
+		public int getMaxNetworkRetries() {
+			return maxNetworkRetries;
+		}
+
+		@Override
+		public PasswordAuthentication getProxyCredential() {
+			return null;
+		}
+
+		@Override
+		public String getApiBase() {
+			return apiBase;
+		}
+
+		@Override
+		public String getFilesBase() {
+			return Stripe.UPLOAD_API_BASE;
+		}
+
+		@Override
+		public String getConnectBase() {
+			return Stripe.CONNECT_API_BASE;
+		}
+
+		@Override
+		public int getReadTimeout() {
+			return readTimeout;
+		}
+	}
+}
@@ -0,0 +1,157 @@
+package com.payment.transaction.config;
+
+import java.time.Duration;
+import java.util.function.Predicate;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.ApiException;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.core.IntervalFunction;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedRetryMetrics;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Circuit breaker, bulkheads y reintento de lecturas que usa
+ * {@link com.payment.transaction.gateway.ResilientPaymentGateway}. Su estado
+ * se publica en las métricas {@code resilience4j.*}.
+ */
+@Configuration
+public class PaymentResilienceConfig {
+
+	private static final String INTERACTIVE_BULKHEAD = "stripe-interactive";
+	private static final String BACKGROUND_BULKHEAD = "stripe-background";
+	private static final String REACTIVE_BULKHEAD = "stripe-reactive";
+
+	/**
+	 * Fallas del proveedor: errores de red y 5xx. Tarjetas rechazadas, requests
+	 * inválidos o 429 son respuestas normales de un Stripe sano y no abren el
+	 * breaker ni se reintentan.
+	 */
+	private static final Predicate<Throwable> PROVIDER_FAILURE = e -> e instanceof ApiConnectionException
+			|| e instanceof ApiException;
+
+	@Value("${payment.resilience.circuit-breaker.failure-rate-threshold:50}")
+	private float failureRateThreshold;
+
+	// Una llamada más lenta que esto cuenta como lenta; con slow-call-rate-threshold % de lentas se abre
+	@Value("${payment.resilience.circuit-breaker.slow-call-duration-ms:5000}")
+	private long slowCallDurationMs;
+
+	@Value("${payment.resilience.circuit-breaker.slow-call-rate-threshold:80}")
+	private float slowCallRateThreshold;
+
+	@Value("${payment.resilience.circuit-breaker.sliding-window-size:50}")
+	private int slidingWindowSize;
+
+	@Value("${payment.resilience.circuit-breaker.minimum-calls:20}")
+	private int minimumCalls;
+
+	@Value("${payment.resilience.circuit-breaker.open-duration-ms:30000}")
+	private long openDurationMs;
+
+	@Value("${payment.resilience.circuit-breaker.half-open-calls:5}")
+	private int halfOpenCalls;
+
+	@Value("${payment.resilience.bulkhead.interactive.max-concurrent:40}")
+	private int interactiveMaxConcurrent;
+
+	@Value("${payment.resilience.bulkhead.interactive.max-wait-ms:100}")
+	private long interactiveMaxWaitMs;
+
+	@Value("${payment.resilience.bulkhead.background.max-concurrent:10}")
+	private int backgroundMaxConcurrent;
+
+	@Value("${payment.resilience.bulkhead.background.max-wait-ms:1000}")
+	private long backgroundMaxWaitMs;
+
+	@Value("${payment.resilience.bulkhead.reactive.max-concurrent:40}")
+	private int reactiveMaxConcurrent;
+
+	@Value("${payment.resilience.read-retry.max-attempts:3}")
+	private int readRetryMaxAttempts;
+
+	@Value("${payment.resilience.read-retry.initial-backoff-ms:200}")
+	private long readRetryInitialBackoffMs;
+
+	@Bean
+	public CircuitBreaker stripeCircuitBreaker(MeterRegistry meterRegistry) {
+		CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+				.slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+				.slidingWindowSize(slidingWindowSize)
+				.minimumNumberOfCalls(minimumCalls)
+				.failureRateThreshold(failureRateThreshold)
+				.slowCallDurationThreshold(Duration.ofMillis(slowCallDurationMs))
+				.slowCallRateThreshold(slowCallRateThreshold)
+				.waitDurationInOpenState(Duration.ofMillis(openDurationMs))
+				.permittedNumberOfCallsInHalfOpenState(halfOpenCalls)
+				.recordException(PROVIDER_FAILURE)
+				// Un bulkhead lleno dice poco de la salud de Stripe
+				.ignoreExceptions(BulkheadFullException.class)
+				.build();
+		CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(config);
+		TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+		return registry.circuitBreaker("stripe");
+	}
+
+	// Requests de la API: esperan poco por un lugar y, si no lo hay, responden 503
+	@Bean
+	public Bulkhead stripeInteractiveBulkhead(BulkheadRegistry stripeBulkheadRegistry) {
+		return stripeBulkheadRegistry.bulkhead(INTERACTIVE_BULKHEAD, BulkheadConfig.custom()
+				.maxConcurrentCalls(interactiveMaxConcurrent)
+				.maxWaitDuration(Duration.ofMillis(interactiveMaxWaitMs))
+				.build());
+	}
+
+	// Job de sincronización: nunca ocupa los lugares de los requests interactivos
+	@Bean
+	public Bulkhead stripeBackgroundBulkhead(BulkheadRegistry stripeBulkheadRegistry) {
+		return stripeBulkheadRegistry.bulkhead(BACKGROUND_BULKHEAD, BulkheadConfig.custom()
+				.maxConcurrentCalls(backgroundMaxConcurrent)
+				.maxWaitDuration(Duration.ofMillis(backgroundMaxWaitMs))
+				.build());
+	}
+
+	// Gateway asíncrono (perfil reactive): lo llama un event loop, así que sin lugar responde 503 sin esperar
+	@Bean
+	public Bulkhead stripeReactiveBulkhead(BulkheadRegistry stripeBulkheadRegistry) {
+		return stripeBulkheadRegistry.bulkhead(REACTIVE_BULKHEAD, BulkheadConfig.custom()
+				.maxConcurrentCalls(reactiveMaxConcurrent)
+				.maxWaitDuration(Duration.ZERO)
+				.build());
+	}
+
+	@Bean
+	public BulkheadRegistry stripeBulkheadRegistry(MeterRegistry meterRegistry) {
+		BulkheadRegistry registry = BulkheadRegistry.ofDefaults();
+		TaggedBulkheadMetrics.ofBulkheadRegistry(registry).bindTo(meterRegistry);
+		return registry;
+	}
+
+	@Bean
+	public Retry stripeReadRetry(MeterRegistry meterRegistry) {
+		RetryConfig config = RetryConfig.custom()
+				.maxAttempts(readRetryMaxAttempts)
+				.intervalFunction(IntervalFunction.ofExponentialRandomBackoff(readRetryInitialBackoffMs, 2.0, 0.5))
+				.retryOnException(PROVIDER_FAILURE)
+				.build();
+		RetryRegistry registry = RetryRegistry.of(config);
+		TaggedRetryMetrics.ofRetryRegistry(registry).bindTo(meterRegistry);
+		return registry.retry("stripe-read");
+	}
+}
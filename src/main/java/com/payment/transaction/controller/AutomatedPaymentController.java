@@ -1,9 +1,11 @@
 package com.payment.transaction.controller;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -19,6 +21,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/v1/payments/automated")
 @Tag(name = "Automated Payment Controller", description = "Endpoints for automated payment processing")
 @RequiredArgsConstructor
@@ -30,9 +33,10 @@ public class AutomatedPaymentController extends GlobalExceptionHandler {
     @Operation(summary = "Process a payment automatically", 
               description = "Creates a payment intent, confirms it with card details, and optionally captures it in a single step")
     public ResponseEntity<PaymentIntentDTO> processPayment(
-            @Validated @RequestBody AutomatedPaymentRequestDTO request) throws StripeException {
+            @Validated @RequestBody AutomatedPaymentRequestDTO request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) throws StripeException {
         try {
-            PaymentIntentDTO result = automatedPaymentService.processPayment(request);
+            PaymentIntentDTO result = automatedPaymentService.processPayment(request, idempotencyKey);
             return ResponseEntity.ok(result);
         } catch (PaymentProcessingException e) {
             // En caso de 3D Secure, devolvemos el PaymentIntent para manejo manual
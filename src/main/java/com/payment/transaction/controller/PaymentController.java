@@ -1,9 +1,12 @@
 package com.payment.transaction.controller;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
-import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -11,42 +14,61 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.payment.transaction.dto.DiscoveryProgressDTO;
+import com.payment.transaction.dto.PaymentCacheStatsDTO;
 import com.payment.transaction.dto.PaymentIntentDTO;
 import com.payment.transaction.dto.PaymentRequestDTO;
+import com.payment.transaction.dto.PaymentViewFilterDTO;
+import com.payment.transaction.dto.PaymentViewPageDTO;
+import com.payment.transaction.dto.RefreshProgressDTO;
 import com.payment.transaction.exception.GlobalExceptionHandler;
-import com.payment.transaction.model.Payment;
+import com.payment.transaction.service.PaymentReconciliationService;
 import com.payment.transaction.service.PaymentService;
-import com.payment.transaction.service.StripeService;
+import com.payment.transaction.service.PaymentStatusRefresher;
 import com.stripe.exception.StripeException;
-import com.stripe.model.PaymentIntent;
-import com.stripe.model.PaymentIntentCollection;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/v1/payments")
 @Tag(name = "Payment Controller", description = "Endpoints for payment management")
 public class PaymentController extends GlobalExceptionHandler {
 
+	private static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+	private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
 	private final PaymentService paymentService;
-	private final StripeService stripeService;
+	private final PaymentReconciliationService reconciliationService;
+	private final PaymentStatusRefresher paymentStatusRefresher;
+	private final ObjectMapper objectMapper;
 
 	@Autowired
-	public PaymentController(PaymentService paymentService, StripeService stripeService) {
+	public PaymentController(PaymentService paymentService, PaymentReconciliationService reconciliationService,
+			PaymentStatusRefresher paymentStatusRefresher, ObjectMapper objectMapper) {
 		this.paymentService = paymentService;
-		this.stripeService = stripeService;
+		this.reconciliationService = reconciliationService;
+		this.paymentStatusRefresher = paymentStatusRefresher;
+		// El stream de salida lo cierra Spring, no el serializador
+		this.objectMapper = objectMapper.copy().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
 	}
 
 	// Endpoint para crear un PaymentIntent (simular un pago)
 	@PostMapping("/create")
 	@Operation(summary = "Create a new payment", description = "Creates a new payment in both Stripe and local database")
-	public ResponseEntity<PaymentIntentDTO> createPayment(@RequestBody PaymentRequestDTO request) throws StripeException {
-		PaymentIntentDTO createdPayment = paymentService.createPaymentIntent(request);
+	public ResponseEntity<PaymentIntentDTO> createPayment(@RequestBody PaymentRequestDTO request,
+			@RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey)
+			throws StripeException {
+		PaymentIntentDTO createdPayment = paymentService.createPaymentIntent(request, idempotencyKey);
 		return ResponseEntity.ok(createdPayment);
 	}
 
@@ -62,9 +84,10 @@ public class PaymentController extends GlobalExceptionHandler {
 
 	@PatchMapping("/capture/{paymentIntentId}")
 	@Operation(summary = "Capture a PaymentIntent", description = "Captures a previously authorized PaymentIntent.")
-	public ResponseEntity<PaymentIntentDTO> capturePayment(@PathVariable String paymentIntentId)
+	public ResponseEntity<PaymentIntentDTO> capturePayment(@PathVariable String paymentIntentId,
+			@RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey)
 			throws StripeException {
-		PaymentIntentDTO paymentIntentDTO = paymentService.capturePaymentIntent(paymentIntentId);
+		PaymentIntentDTO paymentIntentDTO = paymentService.capturePaymentIntent(paymentIntentId, idempotencyKey);
 		return ResponseEntity.ok(paymentIntentDTO);
 	}
 
@@ -86,13 +109,39 @@ public class PaymentController extends GlobalExceptionHandler {
 	}
 
 	
-	@GetMapping("/database/list")
-	@Operation(summary = "List all payments from database", description = "Retrieves all payments stored in the local database")
-	public ResponseEntity<List<Payment>> getAllPaymentsFromDb() {
-		List<Payment> payments = paymentService.getAllPaymentsFromDb();
-		return ResponseEntity.ok(payments);
+	@GetMapping(value = "/database/list", produces = MediaType.APPLICATION_JSON_VALUE)
+	@Operation(summary = "List payments from database", description = "Retrieves a keyset-paginated page of payments stored in the local database. Use nextCursor as afterId to fetch the next page")
+	public ResponseEntity<PaymentViewPageDTO> getPaymentsFromDb(PaymentViewFilterDTO filter,
+			@RequestParam(defaultValue = "0") long afterId, @RequestParam(defaultValue = "100") int limit) {
+		PaymentViewPageDTO page = paymentService.getPaymentViews(filter, afterId, limit);
+		return ResponseEntity.ok(page);
+	}
+
+	@GetMapping(value = "/database/list", produces = NDJSON_MEDIA_TYPE)
+	@Operation(summary = "Export payments from database as NDJSON", description = "Streams every payment matching the filters, one JSON object per line, in constant memory")
+	public ResponseEntity<StreamingResponseBody> streamPaymentsFromDb(PaymentViewFilterDTO filter,
+			@RequestParam(defaultValue = "0") long afterId) {
+		StreamingResponseBody body = outputStream -> {
+			// El cursor de la base se abre dentro del hilo que escribe la respuesta
+			paymentService.exportPaymentViews(filter, afterId, view -> {
+				try {
+					objectMapper.writeValue(outputStream, view);
+					outputStream.write('\n');
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+			outputStream.flush();
+		};
+		return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON_MEDIA_TYPE)).body(body);
 	}
 	
+	@GetMapping("/cache/stats")
+	@Operation(summary = "Get payment read cache statistics", description = "Returns size, hits, misses and evictions of the payment read-through cache")
+	public ResponseEntity<PaymentCacheStatsDTO> getCacheStats() {
+		return ResponseEntity.ok(paymentService.getCacheStats());
+	}
+
 	// Endpoint para obtener un PaymentIntent
 	@GetMapping("/{paymentIntentId}")
 	@Operation(summary = "Get payment by ID", description = "Retrieves a payment by its ID from both Stripe and local database")
@@ -106,37 +155,23 @@ public class PaymentController extends GlobalExceptionHandler {
 
 
 
+	// Responde enseguida; el avance se consulta en /sync/discover/progress
 	@PostMapping("/sync")
-	@Operation(summary = "Sync payments from Stripe to database", description = "Finds payments in Stripe that are not in our database and adds them")
-	public ResponseEntity<String> syncPayments() throws StripeException {
-		// Get all payments from Stripe
-		PaymentIntentCollection paymentIntents = PaymentIntent.list(Map.of("limit", 100));
-		List<PaymentIntentDTO> stripePayments = paymentIntents.getData().stream()
-			.map(stripeService::convertToDTO)
-			.toList();
-
-		// Get all payments from database
-		List<Payment> dbPayments = paymentService.getAllPaymentsFromDb();
-		List<String> dbPaymentIds = dbPayments.stream()
-			.map(Payment::getPaymentIntentId)
-			.toList();
-
-		// Find payments that exist in Stripe but not in our DB
-		List<PaymentIntentDTO> missingPayments = stripePayments.stream()
-			.filter(payment -> !dbPaymentIds.contains(payment.getId()))
-			.toList();
-
-		// Save missing payments to database
-		for (PaymentIntentDTO payment : missingPayments) {
-			Payment newPayment = new Payment();
-			newPayment.setPaymentIntentId(payment.getId());
-			newPayment.setAmount((long) payment.getAmount());
-			newPayment.setCurrency(payment.getCurrency());
-			newPayment.setStatus(payment.getStatus());
-			paymentService.savePayment(newPayment);
-		}
-
-		return ResponseEntity.ok("Synced " + missingPayments.size() + " payments from Stripe to database");
+	@Operation(summary = "Sync payments from Stripe to database", description = "Starts finding payments in Stripe created since the last sync cursor that are not in our database and adds them. Returns 202 with the progress of the running discovery")
+	public ResponseEntity<DiscoveryProgressDTO> syncPayments() {
+		return ResponseEntity.accepted().body(reconciliationService.startDiscovery());
+	}
+
+	@GetMapping("/sync/discover/progress")
+	@Operation(summary = "Get payment discovery progress", description = "Returns the progress of the running discovery, or the result of the last one")
+	public ResponseEntity<DiscoveryProgressDTO> getDiscoveryProgress() {
+		return ResponseEntity.ok(reconciliationService.getDiscoveryProgress());
+	}
+
+	@GetMapping("/sync/progress")
+	@Operation(summary = "Get open payments refresh progress", description = "Returns the progress of the running refresh tick, or the result of the last one")
+	public ResponseEntity<RefreshProgressDTO> getSyncProgress() {
+		return ResponseEntity.ok(paymentStatusRefresher.getProgress());
 	}
 
 }
\ No newline at end of file
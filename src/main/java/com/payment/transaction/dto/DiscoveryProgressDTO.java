@@ -0,0 +1,24 @@
+package com.payment.transaction.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DiscoveryProgressDTO {
+	private boolean running;
+	private LocalDateTime startedAt;
+	private LocalDateTime finishedAt;
+	// Páginas de PaymentIntents leídas de Stripe
+	private int pages;
+	private int scanned;
+	// Pagos que no estaban en la base y se guardaron
+	private int saved;
+	// Otro nodo tenía el lock de descubrimiento y este no hizo nada
+	private boolean skipped;
+	private String error;
+}
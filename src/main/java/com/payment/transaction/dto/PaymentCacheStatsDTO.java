@@ -0,0 +1,21 @@
+package com.payment.transaction.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentCacheStatsDTO {
+	// Entradas actuales (aproximado)
+	private long size;
+	private long hitCount;
+	private long missCount;
+	private double hitRate;
+	// Entradas descartadas por tamaño o vencidas (no incluye invalidaciones)
+	private long evictionCount;
+	private long loadFailureCount;
+	// Tiempo medio de una lectura a Stripe al no encontrar la entrada
+	private long averageLoadMillis;
+}
@@ -0,0 +1,27 @@
+package com.payment.transaction.dto;
+
+import java.time.LocalDateTime;
+
+import com.payment.transaction.enums.PaymentIntentStatusEnum;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Proyección de solo lectura de {@code Payment}. Se construye directamente
+ * desde JPQL, sin entidades administradas por el contexto de persistencia.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentView {
+	private Long id;
+	private String paymentIntentId;
+	// Se serializa con el texto de Stripe ("succeeded"), igual que antes
+	private PaymentIntentStatusEnum status;
+	private Long amount;
+	private String currency;
+	private LocalDateTime createdAt;
+	private LocalDateTime updatedAt;
+}
@@ -0,0 +1,26 @@
+package com.payment.transaction.dto;
+
+import java.time.LocalDateTime;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+@Data
+public class PaymentViewFilterDTO {
+
+	@Schema(description = "Only payments with this status", example = "succeeded")
+	private String status;
+
+	@Schema(description = "Only payments in this currency", example = "usd")
+	private String currency;
+
+	@DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+	@Schema(description = "Created at or after this instant (inclusive)", example = "2025-01-01T00:00:00")
+	private LocalDateTime createdFrom;
+
+	@DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+	@Schema(description = "Created before this instant (exclusive)", example = "2025-02-01T00:00:00")
+	private LocalDateTime createdTo;
+}
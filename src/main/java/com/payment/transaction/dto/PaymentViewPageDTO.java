@@ -0,0 +1,19 @@
+package com.payment.transaction.dto;
+
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentViewPageDTO {
+
+	private List<PaymentView> items;
+
+	@Schema(description = "Value to send as afterId to fetch the next page, null when there are no more rows")
+	private Long nextCursor;
+}
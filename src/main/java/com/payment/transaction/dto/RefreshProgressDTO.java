@@ -0,0 +1,26 @@
+package com.payment.transaction.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefreshProgressDTO {
+	private LocalDateTime startedAt;
+	private LocalDateTime finishedAt;
+	// Pagos abiertos al comenzar el tick
+	private int total;
+	private int completed;
+	// Pagos cuyo estado en Stripe difería del local
+	private int changed;
+	private int failed;
+	// Respuestas 429 de Stripe recibidas durante el tick
+	private int rateLimited;
+	// Pagos que no entraron en el presupuesto de tiempo y quedan para el próximo tick
+	private int deferred;
+	private int maxInFlight;
+}
@@ -1,29 +1,160 @@
 package com.payment.transaction.enums;
 
-import java.util.List;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * Estados de un PaymentIntent y sus transiciones. El texto de Stripe se
+ * convierte una sola vez ({@link #fromStatus}); las preguntas de estado
+ * (cancelable, final, transición válida) se responden con tablas
+ * {@link EnumSet} precalculadas, sin recorrer listas ni comparar strings.
+ * <p>
+ * {@code code} es el valor que se persiste (columna TINYINT): es estable y no
+ * depende del orden de declaración, así que no se debe reutilizar ni cambiar.
+ */
 public enum PaymentIntentStatusEnum {
-	REQUIRES_PAYMENT_METHOD("requires_payment_method"), REQUIRES_CONFIRMATION("requires_confirmation"),
-	REQUIRES_ACTION("requires_action"), PROCESSING("processing"), SUCCEEDED("succeeded"), CANCELED("canceled"),
-	REQUIRES_CAPTURE("requires_capture"), FAILED("failed");
+	REQUIRES_PAYMENT_METHOD("requires_payment_method", 1), REQUIRES_CONFIRMATION("requires_confirmation", 2),
+	REQUIRES_ACTION("requires_action", 3), PROCESSING("processing", 4), REQUIRES_CAPTURE("requires_capture", 5),
+	SUCCEEDED("succeeded", 6), CANCELED("canceled", 7), FAILED("failed", 8);
+
+	private static final Map<String, PaymentIntentStatusEnum> BY_STATUS = new HashMap<>();
+	private static final PaymentIntentStatusEnum[] BY_CODE = new PaymentIntentStatusEnum[9];
+
+	private static final Set<PaymentIntentStatusEnum> CANCELLABLE = EnumSet.of(REQUIRES_PAYMENT_METHOD,
+			REQUIRES_CONFIRMATION, REQUIRES_ACTION);
+	private static final Set<PaymentIntentStatusEnum> UPDATABLE = EnumSet.of(REQUIRES_PAYMENT_METHOD,
+			REQUIRES_CONFIRMATION);
+	private static final Set<PaymentIntentStatusEnum> CONFIRMABLE = EnumSet.of(REQUIRES_PAYMENT_METHOD,
+			REQUIRES_CONFIRMATION);
+	private static final Set<PaymentIntentStatusEnum> TERMINAL = EnumSet.of(SUCCEEDED, CANCELED, FAILED);
+	private static final Set<PaymentIntentStatusEnum> OPEN = Collections
+			.unmodifiableSet(EnumSet.complementOf(EnumSet.copyOf(TERMINAL)));
+
+	// Estados a los que se puede pasar desde cada uno; los finales no tienen salida
+	private static final Map<PaymentIntentStatusEnum, Set<PaymentIntentStatusEnum>> NEXT = new EnumMap<>(
+			PaymentIntentStatusEnum.class);
+
+	static {
+		for (PaymentIntentStatusEnum value : values()) {
+			BY_STATUS.put(value.status, value);
+			BY_CODE[value.code] = value;
+			NEXT.put(value, EnumSet.noneOf(PaymentIntentStatusEnum.class));
+		}
+		NEXT.put(REQUIRES_PAYMENT_METHOD, EnumSet.complementOf(EnumSet.of(REQUIRES_PAYMENT_METHOD)));
+		NEXT.put(REQUIRES_CONFIRMATION, EnumSet.complementOf(EnumSet.of(REQUIRES_CONFIRMATION)));
+		// Una autenticación o un cobro asíncrono rechazados vuelven a pedir medio de pago
+		NEXT.put(REQUIRES_ACTION, EnumSet.of(REQUIRES_PAYMENT_METHOD, REQUIRES_CONFIRMATION, PROCESSING,
+				REQUIRES_CAPTURE, SUCCEEDED, CANCELED, FAILED));
+		// Algunos medios de pago piden una acción más (p. ej. autenticación) después de procesar
+		NEXT.put(PROCESSING, EnumSet.of(REQUIRES_PAYMENT_METHOD, REQUIRES_ACTION, REQUIRES_CAPTURE, SUCCEEDED,
+				CANCELED, FAILED));
+		NEXT.put(REQUIRES_CAPTURE, EnumSet.of(PROCESSING, SUCCEEDED, CANCELED, FAILED));
+	}
 
 	private final String status;
+	private final byte code;
 
-	PaymentIntentStatusEnum(String status) {
+	PaymentIntentStatusEnum(String status, int code) {
 		this.status = status;
+		this.code = (byte) code;
 	}
 
+	@JsonValue
 	public String getStatus() {
 		return status;
 	}
 
+	public byte getCode() {
+		return code;
+	}
+
+	// Estado de Stripe a enum; un estado desconocido es un error, no un valor a persistir
+	@JsonCreator
+	public static PaymentIntentStatusEnum fromStatus(String status) {
+		if (status == null) {
+			return null;
+		}
+		PaymentIntentStatusEnum value = BY_STATUS.get(status);
+		if (value == null) {
+			throw new IllegalArgumentException("Unknown PaymentIntent status: " + status);
+		}
+		return value;
+	}
+
+	public static PaymentIntentStatusEnum fromCode(byte code) {
+		PaymentIntentStatusEnum value = code > 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+		if (value == null) {
+			throw new IllegalArgumentException("Unknown PaymentIntent status code: " + code);
+		}
+		return value;
+	}
+
+	public boolean isCancellable() {
+		return CANCELLABLE.contains(this);
+	}
+
+	public boolean isUpdatable() {
+		return UPDATABLE.contains(this);
+	}
+
+	public boolean isConfirmable() {
+		return CONFIRMABLE.contains(this);
+	}
+
+	public boolean isCapturable() {
+		return this == REQUIRES_CAPTURE;
+	}
+
+	// Estados finales: el PaymentIntent ya no cambia en Stripe
+	public boolean isTerminal() {
+		return TERMINAL.contains(this);
+	}
+
+	/**
+	 * Si un pago en este estado puede pasar a {@code next}. Quedarse en el
+	 * mismo estado siempre es válido; volver de un estado final o de
+	 * {@code requires_capture} a uno anterior no, e indica una lectura vieja
+	 * (un poll o un webhook que llegó tarde).
+	 */
+	public boolean canTransitionTo(PaymentIntentStatusEnum next) {
+		return this == next || NEXT.get(this).contains(next);
+	}
+
+	// Variantes sobre el texto de Stripe, para los PaymentIntent que todavía no se convirtieron
 	public static boolean isCancellable(String status) {
-		return List.of(REQUIRES_PAYMENT_METHOD.status, REQUIRES_CONFIRMATION.status, REQUIRES_ACTION.status)
-				.contains(status);
+		PaymentIntentStatusEnum value = BY_STATUS.get(status);
+		return value != null && value.isCancellable();
 	}
 
 	public static boolean isUpdatable(String status) {
-		return List.of(REQUIRES_PAYMENT_METHOD.status, REQUIRES_CONFIRMATION.status).contains(status);
+		PaymentIntentStatusEnum value = BY_STATUS.get(status);
+		return value != null && value.isUpdatable();
+	}
+
+	public static boolean isConfirmable(String status) {
+		PaymentIntentStatusEnum value = BY_STATUS.get(status);
+		return value != null && value.isConfirmable();
+	}
+
+	public static boolean isCapturable(String status) {
+		return REQUIRES_CAPTURE.status.equals(status);
+	}
+
+	public static boolean isTerminal(String status) {
+		PaymentIntentStatusEnum value = BY_STATUS.get(status);
+		return value != null && value.isTerminal();
+	}
+
+	// Estados que todavía pueden cambiar y deben refrescarse contra Stripe
+	public static Set<PaymentIntentStatusEnum> openStatuses() {
+		return OPEN;
 	}
 
 }
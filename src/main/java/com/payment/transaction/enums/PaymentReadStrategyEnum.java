@@ -0,0 +1,11 @@
+package com.payment.transaction.enums;
+
+// Origen de las lecturas de pagos (payment.read.strategy)
+public enum PaymentReadStrategyEnum {
+	// Base local si la fila está al día; Stripe solo si falta o está desactualizada
+	LOCAL_FIRST,
+	// Siempre Stripe (a través de la caché de lectura)
+	STRIPE_ONLY,
+	// Solo la base local, sin llamadas a Stripe
+	LOCAL_ONLY
+}
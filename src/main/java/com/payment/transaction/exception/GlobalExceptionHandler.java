@@ -1,12 +1,16 @@
 package com.payment.transaction.exception;
 
+import com.stripe.exception.SignatureVerificationException;
 import com.stripe.exception.StripeException;
 import jakarta.validation.ConstraintViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ServerWebInputException;
 
 public abstract class GlobalExceptionHandler {
 
@@ -21,6 +25,20 @@ public abstract class GlobalExceptionHandler {
 		return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Stripe error: " + ex.getMessage());
 	}
 
+	// Stripe no disponible (circuit breaker abierto o bulkhead lleno): falla rápido con 503
+	@ExceptionHandler(PaymentProviderUnavailableException.class)
+	public ResponseEntity<String> handleProviderUnavailable(PaymentProviderUnavailableException ex) {
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+				.header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+				.body("Payment provider unavailable: " + ex.getMessage());
+	}
+
+	// Manejar firmas de webhook inválidas
+	@ExceptionHandler(SignatureVerificationException.class)
+	public ResponseEntity<String> handleSignatureVerification(SignatureVerificationException ex) {
+		return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid Stripe signature.");
+	}
+
 	// Manejar excepciones de argumentos inválidos
 	@ExceptionHandler(IllegalArgumentException.class)
 	public ResponseEntity<String> handleIllegalArgument(IllegalArgumentException ex) {
@@ -48,6 +66,20 @@ public abstract class GlobalExceptionHandler {
 		return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Malformed request body or missing required fields.");
 	}
 
+	// Equivalentes en WebFlux (perfil reactive) de los dos handlers anteriores
+	@ExceptionHandler(WebExchangeBindException.class)
+	public ResponseEntity<String> handleWebExchangeBind(WebExchangeBindException ex) {
+		String errorMessage = ex.getBindingResult().getFieldErrors().stream()
+				.map(field -> field.getField() + ": " + field.getDefaultMessage()).findFirst()
+				.orElse("Validation failed");
+		return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Validation error: " + errorMessage);
+	}
+
+	@ExceptionHandler(ServerWebInputException.class)
+	public ResponseEntity<String> handleServerWebInput(ServerWebInputException ex) {
+		return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Malformed request body or missing required fields.");
+	}
+
 	// Manejar cualquier otra excepción inesperada
 	@ExceptionHandler(Exception.class)
 	public ResponseEntity<String> handleGeneric(Exception ex) {
@@ -0,0 +1,39 @@
+package com.payment.transaction.exception;
+
+import com.stripe.exception.StripeException;
+import com.stripe.model.StripeError;
+
+/**
+ * Traduce los errores de estado que devuelve Stripe al mutar un PaymentIntent.
+ * Los servicios mutan directamente (sin recuperar el intent antes) y dejan que
+ * Stripe valide la transición; este helper mantiene la respuesta 400 que antes
+ * producía la validación local.
+ */
+public final class PaymentIntentStateErrors {
+
+	public static final String UNEXPECTED_STATE = "payment_intent_unexpected_state";
+
+	private PaymentIntentStateErrors() {
+	}
+
+	public static boolean isUnexpectedState(StripeException e) {
+		return UNEXPECTED_STATE.equals(e.getCode());
+	}
+
+	// Lanza IllegalArgumentException si el error es de estado; si no, no hace nada
+	public static void rethrowIfUnexpectedState(StripeException e, String message) {
+		if (isUnexpectedState(e)) {
+			throw new IllegalArgumentException(message + currentStatus(e), e);
+		}
+	}
+
+	// Stripe adjunta el PaymentIntent con su estado actual en el cuerpo del error
+	public static String currentStatus(StripeException e) {
+		StripeError error = e.getStripeError();
+		if (error != null && error.getPaymentIntent() != null) {
+			return error.getPaymentIntent().getStatus();
+		}
+		return "unknown";
+	}
+
+}
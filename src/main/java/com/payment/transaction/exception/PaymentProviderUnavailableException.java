@@ -0,0 +1,20 @@
+package com.payment.transaction.exception;
+
+import lombok.Getter;
+
+/**
+ * Stripe no se llamó porque el circuit breaker está abierto o porque el
+ * bulkhead de la operación está lleno. Se responde 503 con
+ * {@code Retry-After} en lugar de dejar el hilo esperando al proveedor.
+ */
+@Getter
+public class PaymentProviderUnavailableException extends RuntimeException {
+
+	// Segundos sugeridos antes de reintentar
+	private final long retryAfterSeconds;
+
+	public PaymentProviderUnavailableException(String message, long retryAfterSeconds, Throwable cause) {
+		super(message, cause);
+		this.retryAfterSeconds = retryAfterSeconds;
+	}
+}
@@ -0,0 +1,25 @@
+package com.payment.transaction.gateway;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.stripe.model.PaymentIntent;
+import com.stripe.net.RequestOptions;
+import com.stripe.param.PaymentIntentConfirmParams;
+import com.stripe.param.PaymentIntentCreateParams;
+
+/**
+ * Mutaciones de {@link PaymentGateway} que usa el pago automatizado, sin
+ * bloquear el hilo que llama: cada una devuelve un future que se completa
+ * con el PaymentIntent o, ante un error, con la misma {@code StripeException}
+ * que lanzaría la versión bloqueante.
+ */
+public interface AsyncPaymentGateway {
+
+	CompletableFuture<PaymentIntent> create(PaymentIntentCreateParams params, RequestOptions options);
+
+	CompletableFuture<PaymentIntent> confirm(String paymentIntentId, PaymentIntentConfirmParams params,
+			RequestOptions options);
+
+	CompletableFuture<PaymentIntent> capture(String paymentIntentId, RequestOptions options);
+
+}
@@ -0,0 +1,172 @@
+package com.payment.transaction.gateway;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.URISyntaxException;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.StripeException;
+import com.stripe.net.HttpClient;
+import com.stripe.net.HttpContent;
+import com.stripe.net.HttpHeaders;
+import com.stripe.net.StripeRequest;
+import com.stripe.net.StripeResponse;
+
+/**
+ * Transporte del SDK de Stripe sobre {@link java.net.http.HttpClient}.
+ * <p>
+ * El cliente del SDK por defecto usa {@code HttpURLConnection}; este comparte
+ * un único {@code java.net.http.HttpClient}, que mantiene las conexiones
+ * abiertas (keep-alive) y negocia HTTP/2 por ALPN, así que solo la primera
+ * llamada paga el handshake TLS. Con HTTP/2 las llamadas simultáneas se
+ * multiplexan sobre la misma conexión.
+ * <p>
+ * {@code maxConnections} limita las llamadas en curso: con HTTP/1.1 es el
+ * máximo de conexiones abiertas contra Stripe. Una llamada que no obtiene
+ * lugar dentro de su read timeout falla con {@link ApiConnectionException}.
+ * Los reintentos y la telemetría los sigue haciendo el SDK.
+ * <p>
+ * {@link #requestAsync} es la variante no bloqueante ({@code sendAsync}) que
+ * usa {@link StripeAsyncPaymentGateway}: comparte conexiones y límite con las
+ * llamadas del SDK, pero no espera un lugar libre.
+ */
+public class JdkStripeHttpClient extends HttpClient {
+
+	// Cabeceras que java.net.http calcula por su cuenta y no acepta en el request
+	private static final List<String> RESTRICTED_HEADERS = List.of("connection", "content-length", "host", "expect",
+			"upgrade");
+
+	private final java.net.http.HttpClient client;
+	private final Semaphore connections;
+
+	public JdkStripeHttpClient(java.net.http.HttpClient client, int maxConnections) {
+		this.client = client;
+		this.connections = new Semaphore(maxConnections, true);
+	}
+
+	@Override
+	public StripeResponse request(StripeRequest request) throws StripeException {
+		HttpRequest httpRequest = buildRequest(request);
+		Duration timeout = readTimeout(request);
+		try {
+			if (!connections.tryAcquire(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+				throw new ApiConnectionException(
+						"No Stripe connection available within " + timeout.toMillis() + " ms", null);
+			}
+			try {
+				HttpResponse<String> response = client.send(httpRequest,
+						HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+				return new StripeResponse(response.statusCode(), HttpHeaders.of(response.headers().map()),
+						response.body());
+			} finally {
+				connections.release();
+			}
+		} catch (IOException e) {
+			throw new ApiConnectionException(String.format("IOException during API request to Stripe (%s): %s",
+					request.url().getHost(), e), retryableCause(e));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ApiConnectionException("Interrupted during API request to Stripe", e);
+		}
+	}
+
+	/**
+	 * Envía el request sin bloquear el hilo que llama; la respuesta se completa
+	 * en los hilos del {@code java.net.http.HttpClient}. Sin un lugar libre
+	 * falla enseguida (esperarlo bloquearía el event loop). Los errores de red
+	 * completan el future con {@link ApiConnectionException}, igual que
+	 * {@link #request}.
+	 */
+	public CompletableFuture<StripeResponse> requestAsync(StripeRequest request) {
+		HttpRequest httpRequest;
+		try {
+			httpRequest = buildRequest(request);
+		} catch (ApiConnectionException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+		if (!connections.tryAcquire()) {
+			return CompletableFuture.failedFuture(new ApiConnectionException("No Stripe connection available", null));
+		}
+		CompletableFuture<StripeResponse> response = client
+				.sendAsync(httpRequest, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8))
+				.handle((httpResponse, error) -> {
+					if (error != null) {
+						Throwable cause = error instanceof CompletionException && error.getCause() != null
+								? error.getCause() : error;
+						IOException io = cause instanceof IOException e ? e : new IOException(cause);
+						throw new CompletionException(new ApiConnectionException(String.format(
+								"IOException during API request to Stripe (%s): %s", request.url().getHost(), io),
+								retryableCause(io)));
+					}
+					return new StripeResponse(httpResponse.statusCode(), HttpHeaders.of(httpResponse.headers().map()),
+							httpResponse.body());
+				});
+		response.whenComplete((result, error) -> connections.release());
+		return response;
+	}
+
+	private HttpRequest buildRequest(StripeRequest request) throws ApiConnectionException {
+		HttpRequest.Builder builder;
+		try {
+			builder = HttpRequest.newBuilder(request.url().toURI());
+		} catch (URISyntaxException e) {
+			throw new ApiConnectionException("Invalid Stripe URL " + request.url(), e);
+		}
+		builder.timeout(readTimeout(request));
+
+		HttpHeaders headers = request.headers()
+				.withAdditionalHeader("User-Agent", buildUserAgentString())
+				.withAdditionalHeader("X-Stripe-Client-User-Agent", buildXStripeClientUserAgentString());
+		for (Map.Entry<String, List<String>> header : headers.map().entrySet()) {
+			if (!RESTRICTED_HEADERS.contains(header.getKey().toLowerCase())) {
+				builder.header(header.getKey(), String.join(",", header.getValue()));
+			}
+		}
+
+		HttpContent content = request.content();
+		if (content == null) {
+			builder.method(request.method().name(), HttpRequest.BodyPublishers.noBody());
+		} else {
+			builder.setHeader("Content-Type", content.contentType());
+			builder.method(request.method().name(), HttpRequest.BodyPublishers.ofByteArray(content.byteArrayContent()));
+		}
+		return builder.build();
+	}
+
+	/**
+	 * El SDK solo reintenta errores de red cuya causa es
+	 * {@link ConnectException} o {@link SocketTimeoutException}, las que lanza
+	 * {@code HttpURLConnection}; los timeouts de java.net.http se traducen a
+	 * ellas para conservar esos reintentos.
+	 */
+	private static IOException retryableCause(IOException e) {
+		IOException cause = e;
+		if (e instanceof HttpConnectTimeoutException) {
+			cause = new ConnectException(e.getMessage());
+		} else if (e instanceof HttpTimeoutException) {
+			cause = new SocketTimeoutException(e.getMessage());
+		}
+		if (cause != e) {
+			cause.initCause(e);
+		}
+		return cause;
+	}
+
+	// El connect timeout es del cliente; el de lectura llega por request (RequestOptions o default del StripeClient)
+	private static Duration readTimeout(StripeRequest request) {
+		return Duration.ofMillis(request.options().getReadTimeout());
+	}
+}
@@ -0,0 +1,54 @@
+package com.payment.transaction.gateway;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+import com.stripe.model.PaymentIntent;
+import com.stripe.net.RequestOptions;
+import com.stripe.param.PaymentIntentConfirmParams;
+import com.stripe.param.PaymentIntentCreateParams;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Versión asíncrona de {@link MeteredPaymentGateway}: mismo timer
+ * {@code stripe.requests} y mismas etiquetas, detenido cuando se completa el
+ * future.
+ */
+public class MeteredAsyncPaymentGateway implements AsyncPaymentGateway {
+
+	private final AsyncPaymentGateway delegate;
+	private final MeterRegistry registry;
+
+	public MeteredAsyncPaymentGateway(AsyncPaymentGateway delegate, MeterRegistry registry) {
+		this.delegate = delegate;
+		this.registry = registry;
+	}
+
+	@Override
+	public CompletableFuture<PaymentIntent> create(PaymentIntentCreateParams params, RequestOptions options) {
+		return record("create", () -> delegate.create(params, options));
+	}
+
+	@Override
+	public CompletableFuture<PaymentIntent> confirm(String paymentIntentId, PaymentIntentConfirmParams params,
+			RequestOptions options) {
+		return record("confirm", () -> delegate.confirm(paymentIntentId, params, options));
+	}
+
+	@Override
+	public CompletableFuture<PaymentIntent> capture(String paymentIntentId, RequestOptions options) {
+		return record("capture", () -> delegate.capture(paymentIntentId, options));
+	}
+
+	private <T> CompletableFuture<T> record(String operation, Supplier<CompletableFuture<T>> call) {
+		Timer.Sample sample = Timer.start(registry);
+		return call.get().whenComplete((result, error) -> {
+			Throwable failure = error instanceof CompletionException && error.getCause() != null ? error.getCause()
+					: error;
+			MeteredPaymentGateway.stop(registry, sample, operation, error == null, failure);
+		});
+	}
+}
@@ -0,0 +1,113 @@
+package com.payment.transaction.gateway;
+
+import com.stripe.exception.StripeException;
+import com.stripe.model.PaymentIntent;
+import com.stripe.model.StripeCollection;
+import com.stripe.net.RequestOptions;
+import com.stripe.param.PaymentIntentConfirmParams;
+import com.stripe.param.PaymentIntentCreateParams;
+import com.stripe.param.PaymentIntentListParams;
+import com.stripe.param.PaymentIntentUpdateParams;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Decorador que mide cada llamada al gateway con el timer
+ * {@code stripe.requests}, etiquetado por {@code operation}, {@code outcome}
+ * ({@code success} o {@code error}), {@code exception} (clase de la
+ * StripeException) y {@code error_code} (código de error de Stripe, p. ej.
+ * {@code card_declined}). Solo mide el tiempo de Stripe: la diferencia con
+ * {@code http.server.requests} es el costo propio de la aplicación.
+ */
+public class MeteredPaymentGateway implements PaymentGateway {
+
+	static final String METRIC_NAME = "stripe.requests";
+
+	private static final String NONE = "none";
+
+	@FunctionalInterface
+	private interface GatewayCall<T> {
+		T call() throws StripeException;
+	}
+
+	private final PaymentGateway delegate;
+	private final MeterRegistry registry;
+
+	public MeteredPaymentGateway(PaymentGateway delegate, MeterRegistry registry) {
+		this.delegate = delegate;
+		this.registry = registry;
+	}
+
+	@Override
+	public PaymentIntent create(PaymentIntentCreateParams params, RequestOptions options) throws StripeException {
+		return record("create", () -> delegate.create(params, options));
+	}
+
+	@Override
+	public PaymentIntent retrieve(String paymentIntentId) throws StripeException {
+		return record("retrieve", () -> delegate.retrieve(paymentIntentId));
+	}
+
+	@Override
+	public PaymentIntent update(String paymentIntentId, PaymentIntentUpdateParams params) throws StripeException {
+		return record("update", () -> delegate.update(paymentIntentId, params));
+	}
+
+	@Override
+	public PaymentIntent confirm(String paymentIntentId, PaymentIntentConfirmParams params, RequestOptions options)
+			throws StripeException {
+		return record("confirm", () -> delegate.confirm(paymentIntentId, params, options));
+	}
+
+	@Override
+	public PaymentIntent capture(String paymentIntentId, RequestOptions options) throws StripeException {
+		return record("capture", () -> delegate.capture(paymentIntentId, options));
+	}
+
+	@Override
+	public PaymentIntent cancel(String paymentIntentId) throws StripeException {
+		return record("cancel", () -> delegate.cancel(paymentIntentId));
+	}
+
+	@Override
+	public StripeCollection<PaymentIntent> list(PaymentIntentListParams params) throws StripeException {
+		return record("list", () -> delegate.list(params));
+	}
+
+	private <T> T record(String operation, GatewayCall<T> call) throws StripeException {
+		Timer.Sample sample = Timer.start(registry);
+		boolean success = false;
+		Throwable failure = null;
+		try {
+			T result = call.call();
+			success = true;
+			return result;
+		} catch (StripeException | RuntimeException e) {
+			failure = e;
+			throw e;
+		} finally {
+			stop(registry, sample, operation, success, failure);
+		}
+	}
+
+	// También lo usa MeteredAsyncPaymentGateway, que detiene el timer cuando se completa el future
+	static void stop(MeterRegistry registry, Timer.Sample sample, String operation, boolean success,
+			Throwable failure) {
+		String exception = NONE;
+		String errorCode = NONE;
+		if (failure != null) {
+			exception = failure.getClass().getSimpleName();
+			if (failure instanceof StripeException e && e.getCode() != null) {
+				errorCode = e.getCode();
+			}
+		}
+		sample.stop(Timer.builder(METRIC_NAME)
+				.description("Llamadas a la API de PaymentIntents de Stripe")
+				.tag("operation", operation)
+				.tag("outcome", success ? "success" : "error")
+				.tag("exception", exception)
+				.tag("error_code", errorCode)
+				.register(registry));
+	}
+}
@@ -0,0 +1,50 @@
+package com.payment.transaction.gateway;
+
+import com.stripe.exception.StripeException;
+import com.stripe.model.PaymentIntent;
+import com.stripe.model.StripeCollection;
+import com.stripe.net.RequestOptions;
+import com.stripe.param.PaymentIntentConfirmParams;
+import com.stripe.param.PaymentIntentCreateParams;
+import com.stripe.param.PaymentIntentListParams;
+import com.stripe.param.PaymentIntentUpdateParams;
+
+/**
+ * Operaciones sobre PaymentIntents que el resto de la aplicación necesita de
+ * Stripe. Los servicios dependen de esta interfaz y no de los métodos
+ * estáticos del SDK, lo que permite reemplazar Stripe por el simulador local
+ * ({@code payment.gateway.mode=simulator}) en pruebas de carga y benchmarks.
+ * <p>
+ * Las mutaciones que se reintentan aceptan {@link RequestOptions} para enviar
+ * la Idempotency-Key a Stripe.
+ */
+public interface PaymentGateway {
+
+	default PaymentIntent create(PaymentIntentCreateParams params) throws StripeException {
+		return create(params, RequestOptions.getDefault());
+	}
+
+	PaymentIntent create(PaymentIntentCreateParams params, RequestOptions options) throws StripeException;
+
+	PaymentIntent retrieve(String paymentIntentId) throws StripeException;
+
+	PaymentIntent update(String paymentIntentId, PaymentIntentUpdateParams params) throws StripeException;
+
+	default PaymentIntent confirm(String paymentIntentId, PaymentIntentConfirmParams params) throws StripeException {
+		return confirm(paymentIntentId, params, RequestOptions.getDefault());
+	}
+
+	PaymentIntent confirm(String paymentIntentId, PaymentIntentConfirmParams params, RequestOptions options)
+			throws StripeException;
+
+	default PaymentIntent capture(String paymentIntentId) throws StripeException {
+		return capture(paymentIntentId, RequestOptions.getDefault());
+	}
+
+	PaymentIntent capture(String paymentIntentId, RequestOptions options) throws StripeException;
+
+	PaymentIntent cancel(String paymentIntentId) throws StripeException;
+
+	StripeCollection<PaymentIntent> list(PaymentIntentListParams params) throws StripeException;
+
+}
@@ -0,0 +1,80 @@
+package com.payment.transaction.gateway;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import com.payment.transaction.exception.PaymentProviderUnavailableException;
+import com.stripe.model.PaymentIntent;
+import com.stripe.net.RequestOptions;
+import com.stripe.param.PaymentIntentConfirmParams;
+import com.stripe.param.PaymentIntentCreateParams;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+
+/**
+ * Versión asíncrona de {@link ResilientPaymentGateway}: cada llamada pasa por
+ * un {@link Bulkhead} propio y por el {@link CircuitBreaker} compartido, y los
+ * rechazos se traducen a {@link PaymentProviderUnavailableException}. El
+ * bulkhead debe tener espera máxima cero: quien llama es un event loop y
+ * esperar un lugar lo bloquearía. Como en la versión bloqueante, las
+ * mutaciones no se reintentan acá (lo hace {@link StripeAsyncPaymentGateway}
+ * con la Idempotency-Key).
+ */
+public class ResilientAsyncPaymentGateway implements AsyncPaymentGateway {
+
+	private final AsyncPaymentGateway delegate;
+	private final CircuitBreaker circuitBreaker;
+	private final Bulkhead bulkhead;
+	private final long openRetryAfterSeconds;
+
+	public ResilientAsyncPaymentGateway(AsyncPaymentGateway delegate, CircuitBreaker circuitBreaker,
+			Bulkhead bulkhead) {
+		this.delegate = delegate;
+		this.circuitBreaker = circuitBreaker;
+		this.bulkhead = bulkhead;
+		long openMillis = circuitBreaker.getCircuitBreakerConfig().getWaitIntervalFunctionInOpenState().apply(1);
+		this.openRetryAfterSeconds = Math.max(1, TimeUnit.MILLISECONDS.toSeconds(openMillis));
+	}
+
+	@Override
+	public CompletableFuture<PaymentIntent> create(PaymentIntentCreateParams params, RequestOptions options) {
+		return call(() -> delegate.create(params, options));
+	}
+
+	@Override
+	public CompletableFuture<PaymentIntent> confirm(String paymentIntentId, PaymentIntentConfirmParams params,
+			RequestOptions options) {
+		return call(() -> delegate.confirm(paymentIntentId, params, options));
+	}
+
+	@Override
+	public CompletableFuture<PaymentIntent> capture(String paymentIntentId, RequestOptions options) {
+		return call(() -> delegate.capture(paymentIntentId, options));
+	}
+
+	private <T> CompletableFuture<T> call(Supplier<CompletableFuture<T>> supplier) {
+		return Bulkhead.decorateCompletionStage(bulkhead,
+				CircuitBreaker.decorateCompletionStage(circuitBreaker, supplier::get))
+				.get()
+				.toCompletableFuture()
+				.exceptionallyCompose(error -> CompletableFuture.failedFuture(translate(error)));
+	}
+
+	private Throwable translate(Throwable error) {
+		Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+		if (cause instanceof CallNotPermittedException) {
+			return new PaymentProviderUnavailableException("Stripe circuit breaker is open", openRetryAfterSeconds,
+					cause);
+		}
+		if (cause instanceof BulkheadFullException) {
+			return new PaymentProviderUnavailableException("Too many concurrent Stripe calls (" + bulkhead.getName()
+					+ ")", 1, cause);
+		}
+		return cause;
+	}
+}
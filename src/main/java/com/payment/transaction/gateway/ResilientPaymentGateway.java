@@ -0,0 +1,118 @@
+package com.payment.transaction.gateway;
+
+import java.util.concurrent.TimeUnit;
+
+import com.payment.transaction.exception.PaymentProviderUnavailableException;
+import com.stripe.exception.StripeException;
+import com.stripe.model.PaymentIntent;
+import com.stripe.model.StripeCollection;
+import com.stripe.net.RequestOptions;
+import com.stripe.param.PaymentIntentConfirmParams;
+import com.stripe.param.PaymentIntentCreateParams;
+import com.stripe.param.PaymentIntentListParams;
+import com.stripe.param.PaymentIntentUpdateParams;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.core.functions.CheckedSupplier;
+import io.github.resilience4j.retry.Retry;
+
+/**
+ * Decorador que protege los hilos de la aplicación cuando Stripe se degrada.
+ * <p>
+ * Cada llamada pasa por un {@link Bulkhead} (máximo de llamadas simultáneas
+ * de este grupo: interactivas o de fondo, cada una con el suyo) y por el
+ * {@link CircuitBreaker} compartido, que se abre ante errores de conexión,
+ * 5xx o llamadas lentas. Las lecturas ({@code retrieve} y {@code list}) son
+ * idempotentes y además se reintentan con backoff exponencial con jitter; en
+ * ese caso el SDK no las reintenta ({@link StripePaymentGateway}), así que una
+ * lectura hace como máximo {@code read-retry.max-attempts} requests. Las
+ * mutaciones no, porque ya las reintenta el SDK con su Idempotency-Key.
+ * <p>
+ * Con el breaker abierto o el bulkhead lleno no se llama a Stripe y se lanza
+ * {@link PaymentProviderUnavailableException}.
+ */
+public class ResilientPaymentGateway implements PaymentGateway {
+
+	private final PaymentGateway delegate;
+	private final CircuitBreaker circuitBreaker;
+	private final Bulkhead bulkhead;
+	private final Retry readRetry;
+	private final long openRetryAfterSeconds;
+
+	public ResilientPaymentGateway(PaymentGateway delegate, CircuitBreaker circuitBreaker, Bulkhead bulkhead,
+			Retry readRetry) {
+		this.delegate = delegate;
+		this.circuitBreaker = circuitBreaker;
+		this.bulkhead = bulkhead;
+		this.readRetry = readRetry;
+		long openMillis = circuitBreaker.getCircuitBreakerConfig().getWaitIntervalFunctionInOpenState().apply(1);
+		this.openRetryAfterSeconds = Math.max(1, TimeUnit.MILLISECONDS.toSeconds(openMillis));
+	}
+
+	@Override
+	public PaymentIntent create(PaymentIntentCreateParams params, RequestOptions options) throws StripeException {
+		return call(() -> delegate.create(params, options));
+	}
+
+	@Override
+	public PaymentIntent retrieve(String paymentIntentId) throws StripeException {
+		return read(() -> delegate.retrieve(paymentIntentId));
+	}
+
+	@Override
+	public PaymentIntent update(String paymentIntentId, PaymentIntentUpdateParams params) throws StripeException {
+		return call(() -> delegate.update(paymentIntentId, params));
+	}
+
+	@Override
+	public PaymentIntent confirm(String paymentIntentId, PaymentIntentConfirmParams params, RequestOptions options)
+			throws StripeException {
+		return call(() -> delegate.confirm(paymentIntentId, params, options));
+	}
+
+	@Override
+	public PaymentIntent capture(String paymentIntentId, RequestOptions options) throws StripeException {
+		return call(() -> delegate.capture(paymentIntentId, options));
+	}
+
+	@Override
+	public PaymentIntent cancel(String paymentIntentId) throws StripeException {
+		return call(() -> delegate.cancel(paymentIntentId));
+	}
+
+	@Override
+	public StripeCollection<PaymentIntent> list(PaymentIntentListParams params) throws StripeException {
+		return read(() -> delegate.list(params));
+	}
+
+	private <T> T call(CheckedSupplier<T> supplier) throws StripeException {
+		return execute(Bulkhead.decorateCheckedSupplier(bulkhead,
+				CircuitBreaker.decorateCheckedSupplier(circuitBreaker, supplier)));
+	}
+
+	// El reintento envuelve al breaker: cada intento cuenta y, si el breaker se abre, se deja de reintentar
+	private <T> T read(CheckedSupplier<T> supplier) throws StripeException {
+		return execute(Retry.decorateCheckedSupplier(readRetry, Bulkhead.decorateCheckedSupplier(bulkhead,
+				CircuitBreaker.decorateCheckedSupplier(circuitBreaker, supplier))));
+	}
+
+	private <T> T execute(CheckedSupplier<T> decorated) throws StripeException {
+		try {
+			return decorated.get();
+		} catch (CallNotPermittedException e) {
+			throw new PaymentProviderUnavailableException("Stripe circuit breaker is open", openRetryAfterSeconds,
+					e);
+		} catch (BulkheadFullException e) {
+			throw new PaymentProviderUnavailableException("Too many concurrent Stripe calls (" + bulkhead.getName()
+					+ ")", 1, e);
+		} catch (StripeException | RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			// Los métodos del gateway solo lanzan StripeException o excepciones no chequeadas
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,424 @@
+package com.payment.transaction.gateway;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.payment.card.enums.TestCardTypeEnum;
+import com.payment.transaction.enums.PaymentIntentStatusEnum;
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.ApiException;
+import com.stripe.exception.CardException;
+import com.stripe.exception.InvalidRequestException;
+import com.stripe.exception.RateLimitException;
+import com.stripe.exception.StripeException;
+import com.stripe.model.PaymentIntent;
+import com.stripe.model.PaymentIntentCollection;
+import com.stripe.model.StripeCollection;
+import com.stripe.model.StripeError;
+import com.stripe.net.RequestOptions;
+import com.stripe.param.PaymentIntentConfirmParams;
+import com.stripe.param.PaymentIntentCreateParams;
+import com.stripe.param.PaymentIntentListParams;
+import com.stripe.param.PaymentIntentUpdateParams;
+
+/**
+ * Simulador de Stripe en memoria para pruebas de carga y benchmarks.
+ * <p>
+ * Implementa la máquina de estados de los PaymentIntents
+ * ({@link PaymentIntentStatusEnum}) y el comportamiento de las tarjetas de
+ * prueba de {@link TestCardTypeEnum}: todas se aprueban, salvo
+ * {@value #DECLINED_PAYMENT_METHOD} (rechazada) y
+ * {@value #AUTHENTICATION_REQUIRED_PAYMENT_METHOD} (queda en
+ * {@code requires_action}). La latencia y las tasas de error son
+ * configurables para medir el comportamiento de la aplicación sin red.
+ * Como Stripe, una mutación repetida con la misma Idempotency-Key devuelve
+ * la respuesta original sin volver a ejecutarse.
+ */
+public class SimulatedPaymentGateway implements PaymentGateway {
+
+	static final String DECLINED_PAYMENT_METHOD = "pm_card_chargeDeclined";
+	static final String AUTHENTICATION_REQUIRED_PAYMENT_METHOD = "pm_card_authenticationRequired";
+
+	private static final int MAX_IDEMPOTENT_RESPONSES = 100_000;
+
+	private final long latencyMs;
+	private final long latencyJitterMs;
+	private final double errorRate;
+	private final double rateLimitRate;
+
+	// Orden descendente por secuencia de creación, como lista Stripe
+	private final ConcurrentSkipListMap<Long, PaymentIntent> intentsBySequence = new ConcurrentSkipListMap<>();
+	private final Map<String, Long> sequenceById = new ConcurrentHashMap<>();
+	private final AtomicLong sequence = new AtomicLong();
+
+	// Respuestas por Idempotency-Key; se conservan solo las más recientes
+	private final Map<String, PaymentIntent> idempotentResponses = Collections
+			.synchronizedMap(new LinkedHashMap<>(16, 0.75f, false) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, PaymentIntent> eldest) {
+					return size() > MAX_IDEMPOTENT_RESPONSES;
+				}
+			});
+
+	public SimulatedPaymentGateway(long latencyMs, long latencyJitterMs, double errorRate, double rateLimitRate) {
+		this.latencyMs = latencyMs;
+		this.latencyJitterMs = latencyJitterMs;
+		this.errorRate = errorRate;
+		this.rateLimitRate = rateLimitRate;
+	}
+
+	@Override
+	public PaymentIntent create(PaymentIntentCreateParams params, RequestOptions options) throws StripeException {
+		simulateNetwork();
+		return doCreate(params, options);
+	}
+
+	private PaymentIntent doCreate(PaymentIntentCreateParams params, RequestOptions options)
+			throws StripeException {
+		PaymentIntent replayed = replay(options);
+		if (replayed != null) {
+			return replayed;
+		}
+
+		String id = "pi_sim_" + UUID.randomUUID().toString().replace("-", "").substring(0, 24);
+		PaymentIntent intent = new PaymentIntent();
+		intent.setId(id);
+		intent.setObject("payment_intent");
+		intent.setAmount(params.getAmount());
+		intent.setAmountReceived(0L);
+		intent.setCurrency(params.getCurrency() != null ? params.getCurrency().toLowerCase() : null);
+		intent.setCreated(Instant.now().getEpochSecond());
+		intent.setClientSecret(id + "_secret_" + UUID.randomUUID().toString().replace("-", ""));
+		intent.setCaptureMethod(params.getCaptureMethod() != null ? params.getCaptureMethod().getValue() : "automatic");
+		intent.setLivemode(false);
+		intent.setPaymentMethod(params.getPaymentMethod());
+		intent.setStatus(params.getPaymentMethod() != null ? PaymentIntentStatusEnum.REQUIRES_CONFIRMATION.getStatus()
+				: PaymentIntentStatusEnum.REQUIRES_PAYMENT_METHOD.getStatus());
+
+		long seq = sequence.incrementAndGet();
+		sequenceById.put(id, seq);
+		intentsBySequence.put(-seq, intent);
+
+		synchronized (intent) {
+			if (Boolean.TRUE.equals(params.getConfirm())) {
+				applyConfirm(intent, params.getPaymentMethod());
+			}
+			return remember(options, copyOf(intent));
+		}
+	}
+
+	@Override
+	public PaymentIntent retrieve(String paymentIntentId) throws StripeException {
+		simulateNetwork();
+		PaymentIntent intent = find(paymentIntentId);
+		synchronized (intent) {
+			return copyOf(intent);
+		}
+	}
+
+	@Override
+	public PaymentIntent update(String paymentIntentId, PaymentIntentUpdateParams params) throws StripeException {
+		simulateNetwork();
+		PaymentIntent intent = find(paymentIntentId);
+		synchronized (intent) {
+			if (!PaymentIntentStatusEnum.isUpdatable(intent.getStatus())) {
+				throw unexpectedState(intent, "update");
+			}
+			if (params.getAmount() != null) {
+				intent.setAmount(params.getAmount());
+			}
+			return copyOf(intent);
+		}
+	}
+
+	@Override
+	public PaymentIntent confirm(String paymentIntentId, PaymentIntentConfirmParams params, RequestOptions options)
+			throws StripeException {
+		simulateNetwork();
+		return doConfirm(paymentIntentId, params, options);
+	}
+
+	private PaymentIntent doConfirm(String paymentIntentId, PaymentIntentConfirmParams params,
+			RequestOptions options) throws StripeException {
+		PaymentIntent replayed = replay(options);
+		if (replayed != null) {
+			return replayed;
+		}
+		PaymentIntent intent = find(paymentIntentId);
+		synchronized (intent) {
+			if (!PaymentIntentStatusEnum.isConfirmable(intent.getStatus())) {
+				throw unexpectedState(intent, "confirm");
+			}
+			if (params.getCaptureMethod() != null) {
+				intent.setCaptureMethod(params.getCaptureMethod().getValue());
+			}
+			String paymentMethod = params.getPaymentMethod() != null ? params.getPaymentMethod()
+					: intent.getPaymentMethod();
+			applyConfirm(intent, paymentMethod);
+			return remember(options, copyOf(intent));
+		}
+	}
+
+	@Override
+	public PaymentIntent capture(String paymentIntentId, RequestOptions options) throws StripeException {
+		simulateNetwork();
+		return doCapture(paymentIntentId, options);
+	}
+
+	private PaymentIntent doCapture(String paymentIntentId, RequestOptions options) throws StripeException {
+		PaymentIntent replayed = replay(options);
+		if (replayed != null) {
+			return replayed;
+		}
+		PaymentIntent intent = find(paymentIntentId);
+		synchronized (intent) {
+			if (!PaymentIntentStatusEnum.REQUIRES_CAPTURE.getStatus().equals(intent.getStatus())) {
+				throw unexpectedState(intent, "capture");
+			}
+			intent.setStatus(PaymentIntentStatusEnum.SUCCEEDED.getStatus());
+			intent.setAmountReceived(intent.getAmount());
+			return remember(options, copyOf(intent));
+		}
+	}
+
+	@Override
+	public PaymentIntent cancel(String paymentIntentId) throws StripeException {
+		simulateNetwork();
+		PaymentIntent intent = find(paymentIntentId);
+		synchronized (intent) {
+			// Stripe permite cancelar en cualquier estado que no sea final
+			if (PaymentIntentStatusEnum.isTerminal(intent.getStatus())) {
+				throw unexpectedState(intent, "cancel");
+			}
+			intent.setStatus(PaymentIntentStatusEnum.CANCELED.getStatus());
+			intent.setCanceledAt(Instant.now().getEpochSecond());
+			return copyOf(intent);
+		}
+	}
+
+	@Override
+	public StripeCollection<PaymentIntent> list(PaymentIntentListParams params) throws StripeException {
+		simulateNetwork();
+
+		long limit = params.getLimit() != null ? params.getLimit() : 10L;
+		Map<Long, PaymentIntent> candidates = intentsBySequence;
+		if (params.getStartingAfter() != null) {
+			Long seq = sequenceById.get(params.getStartingAfter());
+			if (seq == null) {
+				throw notFound(params.getStartingAfter());
+			}
+			candidates = intentsBySequence.tailMap(-seq, false);
+		}
+
+		List<PaymentIntent> data = new ArrayList<>();
+		boolean hasMore = false;
+		for (PaymentIntent intent : candidates.values()) {
+			if (!matchesCreated(intent.getCreated(), params.getCreated())) {
+				continue;
+			}
+			if (data.size() == limit) {
+				hasMore = true;
+				break;
+			}
+			synchronized (intent) {
+				data.add(copyOf(intent));
+			}
+		}
+
+		PaymentIntentCollection collection = new PaymentIntentCollection();
+		collection.setObject("list");
+		collection.setUrl("/v1/payment_intents");
+		collection.setData(data);
+		collection.setHasMore(hasMore);
+		return collection;
+	}
+
+	private void applyConfirm(PaymentIntent intent, String paymentMethod) throws StripeException {
+		if (paymentMethod == null) {
+			throw new InvalidRequestException("You cannot confirm this PaymentIntent because it's missing a payment method.",
+					"payment_method", null, "payment_intent_unexpected_state", 400, null);
+		}
+		intent.setPaymentMethod(paymentMethod);
+
+		if (DECLINED_PAYMENT_METHOD.equals(paymentMethod)) {
+			intent.setStatus(PaymentIntentStatusEnum.REQUIRES_PAYMENT_METHOD.getStatus());
+			String message = "Your card was declined.";
+			throw withIntent(new CardException(message, null, "card_declined", null, "generic_decline", null, 402,
+					null), "card_error", message, intent);
+		}
+		if (AUTHENTICATION_REQUIRED_PAYMENT_METHOD.equals(paymentMethod)) {
+			intent.setStatus(PaymentIntentStatusEnum.REQUIRES_ACTION.getStatus());
+			return;
+		}
+		if (!TestCardTypeEnum.isTestPaymentMethod(paymentMethod)) {
+			throw new InvalidRequestException("No such PaymentMethod: '" + paymentMethod + "'", "payment_method", null,
+					"resource_missing", 400, null);
+		}
+
+		if ("manual".equals(intent.getCaptureMethod())) {
+			intent.setStatus(PaymentIntentStatusEnum.REQUIRES_CAPTURE.getStatus());
+		} else {
+			intent.setStatus(PaymentIntentStatusEnum.SUCCEEDED.getStatus());
+			intent.setAmountReceived(intent.getAmount());
+		}
+	}
+
+	private PaymentIntent replay(RequestOptions options) {
+		if (options == null || options.getIdempotencyKey() == null) {
+			return null;
+		}
+		PaymentIntent response = idempotentResponses.get(options.getIdempotencyKey());
+		return response != null ? copyOf(response) : null;
+	}
+
+	private PaymentIntent remember(RequestOptions options, PaymentIntent response) {
+		if (options != null && options.getIdempotencyKey() != null) {
+			idempotentResponses.put(options.getIdempotencyKey(), copyOf(response));
+		}
+		return response;
+	}
+
+	private PaymentIntent find(String paymentIntentId) throws StripeException {
+		Long seq = sequenceById.get(paymentIntentId);
+		if (seq == null) {
+			throw notFound(paymentIntentId);
+		}
+		return intentsBySequence.get(-seq);
+	}
+
+	private static boolean matchesCreated(Long created, Object filter) {
+		if (filter instanceof Long exact) {
+			return exact.equals(created);
+		}
+		if (filter instanceof PaymentIntentListParams.Created range) {
+			return (range.getGt() == null || created > range.getGt())
+					&& (range.getGte() == null || created >= range.getGte())
+					&& (range.getLt() == null || created < range.getLt())
+					&& (range.getLte() == null || created <= range.getLte());
+		}
+		return true;
+	}
+
+	/**
+	 * Vista no bloqueante del mismo simulador (mismo estado) para
+	 * {@link AsyncPaymentGateway}: la latencia se espera con un timer en lugar
+	 * de dormir el hilo que llama.
+	 */
+	public AsyncPaymentGateway async() {
+		return new AsyncPaymentGateway() {
+			@Override
+			public CompletableFuture<PaymentIntent> create(PaymentIntentCreateParams params, RequestOptions options) {
+				return afterLatency(() -> doCreate(params, options));
+			}
+
+			@Override
+			public CompletableFuture<PaymentIntent> confirm(String paymentIntentId, PaymentIntentConfirmParams params,
+					RequestOptions options) {
+				return afterLatency(() -> doConfirm(paymentIntentId, params, options));
+			}
+
+			@Override
+			public CompletableFuture<PaymentIntent> capture(String paymentIntentId, RequestOptions options) {
+				return afterLatency(() -> doCapture(paymentIntentId, options));
+			}
+		};
+	}
+
+	@FunctionalInterface
+	private interface SimulatedCall {
+		PaymentIntent call() throws StripeException;
+	}
+
+	private CompletableFuture<PaymentIntent> afterLatency(SimulatedCall call) {
+		Executor executor = CompletableFuture.delayedExecutor(nextLatencyMs(), TimeUnit.MILLISECONDS);
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				simulateErrors();
+				return call.call();
+			} catch (StripeException e) {
+				throw new CompletionException(e);
+			}
+		}, executor);
+	}
+
+	private long nextLatencyMs() {
+		return latencyMs + (latencyJitterMs > 0 ? ThreadLocalRandom.current().nextLong(latencyJitterMs + 1) : 0);
+	}
+
+	private void simulateNetwork() throws StripeException {
+		long delay = nextLatencyMs();
+		if (delay > 0) {
+			try {
+				TimeUnit.MILLISECONDS.sleep(delay);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new ApiConnectionException("Simulated request interrupted", e);
+			}
+		}
+		simulateErrors();
+	}
+
+	private void simulateErrors() throws StripeException {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		if (rateLimitRate > 0 && random.nextDouble() < rateLimitRate) {
+			throw new RateLimitException("Simulated rate limit", null, null, "rate_limit", 429, null);
+		}
+		if (errorRate > 0 && random.nextDouble() < errorRate) {
+			throw new ApiException("Simulated Stripe API error", null, "api_error", 500, null);
+		}
+	}
+
+	private static InvalidRequestException notFound(String paymentIntentId) {
+		return new InvalidRequestException("No such payment_intent: '" + paymentIntentId + "'", "intent", null,
+				"resource_missing", 404, null);
+	}
+
+	private static InvalidRequestException unexpectedState(PaymentIntent intent, String action) {
+		String message = "You cannot " + action + " this PaymentIntent because it has a status of "
+				+ intent.getStatus() + ".";
+		return withIntent(new InvalidRequestException(message, null, null, "payment_intent_unexpected_state", 400,
+				null), "invalid_request_error", message, intent);
+	}
+
+	// Igual que Stripe, el error incluye el PaymentIntent con su estado actual
+	private static <E extends StripeException> E withIntent(E exception, String type, String message,
+			PaymentIntent intent) {
+		StripeError error = new StripeError();
+		error.setType(type);
+		error.setCode(exception.getCode());
+		error.setMessage(message);
+		error.setPaymentIntent(copyOf(intent));
+		exception.setStripeError(error);
+		return exception;
+	}
+
+	private static PaymentIntent copyOf(PaymentIntent source) {
+		PaymentIntent copy = new PaymentIntent();
+		copy.setId(source.getId());
+		copy.setObject(source.getObject());
+		copy.setAmount(source.getAmount());
+		copy.setAmountReceived(source.getAmountReceived());
+		copy.setCurrency(source.getCurrency());
+		copy.setStatus(source.getStatus());
+		copy.setCreated(source.getCreated());
+		copy.setClientSecret(source.getClientSecret());
+		copy.setCaptureMethod(source.getCaptureMethod());
+		copy.setPaymentMethod(source.getPaymentMethod());
+		copy.setCanceledAt(source.getCanceledAt());
+		copy.setLivemode(source.getLivemode());
+		return copy;
+	}
+}
@@ -0,0 +1,203 @@
+package com.payment.transaction.gateway;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.ApiException;
+import com.stripe.exception.AuthenticationException;
+import com.stripe.exception.CardException;
+import com.stripe.exception.IdempotencyException;
+import com.stripe.exception.InvalidRequestException;
+import com.stripe.exception.PermissionException;
+import com.stripe.exception.RateLimitException;
+import com.stripe.exception.StripeException;
+import com.stripe.model.PaymentIntent;
+import com.stripe.model.StripeError;
+import com.stripe.net.ApiResource;
+import com.stripe.net.HttpClient;
+import com.stripe.net.RequestOptions;
+import com.stripe.net.StripeRequest;
+import com.stripe.net.StripeResponse;
+import com.stripe.param.PaymentIntentConfirmParams;
+import com.stripe.param.PaymentIntentCreateParams;
+
+/**
+ * Implementación real de {@link AsyncPaymentGateway}: arma el mismo request
+ * que el SDK ({@link StripeRequest}: API key, Stripe-Version, Idempotency-Key y
+ * parámetros form-encoded) y lo envía con
+ * {@link JdkStripeHttpClient#requestAsync}, así que ningún hilo queda
+ * esperando la respuesta.
+ * <p>
+ * El SDK no tiene API asíncrona; lo que hace después de enviar se replica
+ * acá: los reintentos (mismas condiciones y backoff que
+ * {@link HttpClient#requestWithRetries}, esperados con un timer) y la
+ * traducción de errores HTTP a la subclase de {@link StripeException} que
+ * corresponde, con el {@link StripeError} adjunto.
+ */
+public class StripeAsyncPaymentGateway implements AsyncPaymentGateway {
+
+	private static final String PAYMENT_INTENTS_PATH = "/v1/payment_intents";
+
+	private final JdkStripeHttpClient httpClient;
+	private final String apiKey;
+	private final String apiBase;
+	private final int readTimeoutMs;
+	private final int maxNetworkRetries;
+
+	public StripeAsyncPaymentGateway(JdkStripeHttpClient httpClient, String apiKey, String apiBase, int readTimeoutMs,
+			int maxNetworkRetries) {
+		this.httpClient = httpClient;
+		this.apiKey = apiKey;
+		this.apiBase = apiBase;
+		this.readTimeoutMs = readTimeoutMs;
+		this.maxNetworkRetries = maxNetworkRetries;
+	}
+
+	@Override
+	public CompletableFuture<PaymentIntent> create(PaymentIntentCreateParams params, RequestOptions options) {
+		return post(PAYMENT_INTENTS_PATH, params.toMap(), options);
+	}
+
+	@Override
+	public CompletableFuture<PaymentIntent> confirm(String paymentIntentId, PaymentIntentConfirmParams params,
+			RequestOptions options) {
+		return post(paymentIntentPath(paymentIntentId, "/confirm"), params.toMap(), options);
+	}
+
+	@Override
+	public CompletableFuture<PaymentIntent> capture(String paymentIntentId, RequestOptions options) {
+		return post(paymentIntentPath(paymentIntentId, "/capture"), Map.of(), options);
+	}
+
+	private CompletableFuture<PaymentIntent> post(String path, Map<String, Object> params, RequestOptions options) {
+		StripeRequest request;
+		try {
+			request = new StripeRequest(ApiResource.RequestMethod.POST, apiBase + path, params,
+					withClientDefaults(options));
+		} catch (StripeException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+		return send(request, 0).thenApply(response -> ApiResource.GSON.fromJson(response.body(), PaymentIntent.class));
+	}
+
+	private CompletableFuture<StripeResponse> send(StripeRequest request, int retries) {
+		return httpClient.requestAsync(request).handle((response, error) -> {
+			Throwable failure = unwrap(error);
+			if (failure != null && !(failure instanceof StripeException)) {
+				return CompletableFuture.<StripeResponse>failedFuture(failure);
+			}
+			if (shouldRetry(request, retries, (StripeException) failure, response)) {
+				return CompletableFuture.supplyAsync(() -> request,
+						CompletableFuture.delayedExecutor(retryDelay(retries + 1).toMillis(), TimeUnit.MILLISECONDS))
+						.thenCompose(sameRequest -> send(sameRequest, retries + 1));
+			}
+			if (failure != null) {
+				return CompletableFuture.<StripeResponse>failedFuture(failure);
+			}
+			if (response.code() < 200 || response.code() >= 300) {
+				return CompletableFuture.<StripeResponse>failedFuture(apiError(response));
+			}
+			return CompletableFuture.completedFuture(response);
+		}).thenCompose(Function.identity());
+	}
+
+	// Mismas condiciones que el SDK: red, Stripe-Should-Retry, 409 y 5xx
+	private static boolean shouldRetry(StripeRequest request, int retries, StripeException failure,
+			StripeResponse response) {
+		if (retries >= request.options().getMaxNetworkRetries()) {
+			return false;
+		}
+		if (failure instanceof ApiConnectionException && failure.getCause() != null
+				&& (failure.getCause() instanceof ConnectException
+						|| failure.getCause() instanceof SocketTimeoutException)) {
+			return true;
+		}
+		if (response == null) {
+			return false;
+		}
+		String shouldRetry = response.headers().firstValue("Stripe-Should-Retry").orElse(null);
+		if (shouldRetry != null) {
+			return Boolean.parseBoolean(shouldRetry);
+		}
+		return response.code() == 409 || response.code() >= 500;
+	}
+
+	// Backoff exponencial desde 500 ms hasta 5 s, con jitter de 75-100 %, como el SDK
+	private static Duration retryDelay(int retries) {
+		long nanos = (long) (HttpClient.minNetworkRetriesDelay.toNanos() * Math.pow(2, retries - 1));
+		nanos = Math.min(nanos, HttpClient.maxNetworkRetriesDelay.toNanos());
+		nanos = (long) (nanos * ThreadLocalRandom.current().nextDouble(0.75, 1.0));
+		return Duration.ofNanos(Math.max(nanos, HttpClient.minNetworkRetriesDelay.toNanos()));
+	}
+
+	// Misma traducción que LiveStripeResponseGetter según el status de la respuesta
+	private static StripeException apiError(StripeResponse response) {
+		StripeError error;
+		try {
+			JsonObject body = ApiResource.GSON.fromJson(response.body(), JsonObject.class);
+			error = body != null && body.has("error") ? ApiResource.GSON.fromJson(body.get("error"), StripeError.class)
+					: null;
+		} catch (JsonParseException e) {
+			error = null;
+		}
+		if (error == null) {
+			return new ApiException(String.format("Invalid response object from API: %s. (HTTP response code was %d)",
+					response.body(), response.code()), response.requestId(), null, response.code(), null);
+		}
+
+		StripeException exception;
+		switch (response.code()) {
+			case 400, 404 -> exception = "idempotency_error".equals(error.getType())
+					? new IdempotencyException(error.getMessage(), response.requestId(), error.getCode(),
+							response.code())
+					: new InvalidRequestException(error.getMessage(), error.getParam(), response.requestId(),
+							error.getCode(), response.code(), null);
+			case 401 -> exception = new AuthenticationException(error.getMessage(), response.requestId(),
+					error.getCode(), response.code());
+			case 402 -> exception = new CardException(error.getMessage(), response.requestId(), error.getCode(),
+					error.getParam(), error.getDeclineCode(), error.getCharge(), response.code(), null);
+			case 403 -> exception = new PermissionException(error.getMessage(), response.requestId(),
+					error.getCode(), response.code());
+			case 429 -> exception = new RateLimitException(error.getMessage(), error.getParam(),
+					response.requestId(), error.getCode(), response.code(), null);
+			default -> exception = new ApiException(error.getMessage(), response.requestId(), error.getCode(),
+					response.code(), null);
+		}
+		exception.setStripeError(error);
+		return exception;
+	}
+
+	// Lo que el StripeClient toma de sus opciones cuando el request no las trae
+	private RequestOptions withClientDefaults(RequestOptions options) {
+		RequestOptions.RequestOptionsBuilder builder = options != null ? options.toBuilderFullCopy()
+				: RequestOptions.builder();
+		if (builder.getApiKey() == null) {
+			builder.setApiKey(apiKey);
+		}
+		if (builder.getReadTimeout() == null) {
+			builder.setReadTimeout(readTimeoutMs);
+		}
+		if (builder.getMaxNetworkRetries() == null) {
+			builder.setMaxNetworkRetries(maxNetworkRetries);
+		}
+		return builder.build();
+	}
+
+	private static String paymentIntentPath(String paymentIntentId, String action) {
+		return PAYMENT_INTENTS_PATH + "/" + ApiResource.urlEncode(paymentIntentId) + action;
+	}
+
+	private static Throwable unwrap(Throwable error) {
+		return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+	}
+}
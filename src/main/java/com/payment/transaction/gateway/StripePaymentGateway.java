@@ -0,0 +1,66 @@
+package com.payment.transaction.gateway;
+
+import com.stripe.StripeClient;
+import com.stripe.exception.StripeException;
+import com.stripe.model.PaymentIntent;
+import com.stripe.model.StripeCollection;
+import com.stripe.net.RequestOptions;
+import com.stripe.param.PaymentIntentConfirmParams;
+import com.stripe.param.PaymentIntentCreateParams;
+import com.stripe.param.PaymentIntentListParams;
+import com.stripe.param.PaymentIntentUpdateParams;
+
+/**
+ * Implementación real: delega cada operación en la API de Stripe. Las
+ * mutaciones se hacen por id, sin recuperar antes el PaymentIntent.
+ * <p>
+ * Las lecturas usan sus propios reintentos de red del SDK
+ * ({@code readNetworkRetries}): cuando {@link ResilientPaymentGateway} ya las
+ * reintenta, son 0 para que no se multipliquen las dos capas.
+ */
+public class StripePaymentGateway implements PaymentGateway {
+
+	private final StripeClient stripeClient;
+	private final RequestOptions readOptions;
+
+	public StripePaymentGateway(StripeClient stripeClient, int readNetworkRetries) {
+		this.stripeClient = stripeClient;
+		this.readOptions = RequestOptions.builder().setMaxNetworkRetries(readNetworkRetries).build();
+	}
+
+	@Override
+	public PaymentIntent create(PaymentIntentCreateParams params, RequestOptions options) throws StripeException {
+		return stripeClient.paymentIntents().create(params, options);
+	}
+
+	@Override
+	public PaymentIntent retrieve(String paymentIntentId) throws StripeException {
+		return stripeClient.paymentIntents().retrieve(paymentIntentId, readOptions);
+	}
+
+	@Override
+	public PaymentIntent update(String paymentIntentId, PaymentIntentUpdateParams params) throws StripeException {
+		return stripeClient.paymentIntents().update(paymentIntentId, params);
+	}
+
+	@Override
+	public PaymentIntent confirm(String paymentIntentId, PaymentIntentConfirmParams params, RequestOptions options)
+			throws StripeException {
+		return stripeClient.paymentIntents().confirm(paymentIntentId, params, options);
+	}
+
+	@Override
+	public PaymentIntent capture(String paymentIntentId, RequestOptions options) throws StripeException {
+		return stripeClient.paymentIntents().capture(paymentIntentId, options);
+	}
+
+	@Override
+	public PaymentIntent cancel(String paymentIntentId) throws StripeException {
+		return stripeClient.paymentIntents().cancel(paymentIntentId);
+	}
+
+	@Override
+	public StripeCollection<PaymentIntent> list(PaymentIntentListParams params) throws StripeException {
+		return stripeClient.paymentIntents().list(params, readOptions);
+	}
+}
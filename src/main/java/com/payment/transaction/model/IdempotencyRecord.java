@@ -0,0 +1,50 @@
+package com.payment.transaction.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Data;
+
+/**
+ * Respuesta ya completada de una operación enviada con Idempotency-Key. Es el
+ * respaldo durable de la caché local: sobrevive reinicios y la comparten todos
+ * los nodos.
+ */
+@Entity
+@Table(name = "idempotency_records", uniqueConstraints = @UniqueConstraint(name = "uk_idempotency_scope_key", columnNames = {
+		"scope", "idempotency_key" }), indexes = @Index(name = "idx_idempotency_created_at", columnList = "created_at"))
+@Data
+public class IdempotencyRecord {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "idempotency_records_seq")
+	@SequenceGenerator(name = "idempotency_records_seq", sequenceName = "idempotency_records_seq", allocationSize = 50)
+	private Long id;
+
+	// Operación a la que pertenece la clave (create, confirm, capture, automated)
+	@Column(nullable = false, length = 40)
+	private String scope;
+
+	@Column(name = "idempotency_key", nullable = false)
+	private String idempotencyKey;
+
+	// SHA-256 de la solicitud original: la misma clave con otros parámetros se rechaza
+	@Column(name = "request_hash", nullable = false, length = 64)
+	private String requestHash;
+
+	// JSON de la respuesta (text: hasta 64 KB)
+	@Column(name = "response_body", nullable = false, columnDefinition = "text")
+	private String responseBody;
+
+	@Column(name = "created_at", nullable = false)
+	private LocalDateTime createdAt;
+
+}
@@ -2,26 +2,34 @@ package com.payment.transaction.model;
 
 import java.time.LocalDateTime;
 
+import com.payment.transaction.enums.PaymentIntentStatusEnum;
+
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.Data;
 
 @Entity
-@Table(name = "payments")
+@Table(name = "payments", indexes = { @Index(name = "idx_payments_status_id", columnList = "status, id"),
+		@Index(name = "idx_payments_created_at", columnList = "created_at") })
 @Data
 public class Payment {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payments_seq")
+	@SequenceGenerator(name = "payments_seq", sequenceName = "payments_seq", allocationSize = 50)
 	private Long id;
 
 	@Column(name = "payment_intent_id", unique = true)
 	private String paymentIntentId;
-	private String status;
+	@Convert(converter = PaymentIntentStatusConverter.class)
+	private PaymentIntentStatusEnum status;
 	private Long amount;
 	private String currency;
 	private LocalDateTime createdAt;
@@ -0,0 +1,21 @@
+package com.payment.transaction.model;
+
+import com.payment.transaction.enums.PaymentIntentStatusEnum;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+// Persiste el estado como su código TINYINT (PaymentIntentStatusEnum.getCode) en lugar del texto de Stripe
+@Converter
+public class PaymentIntentStatusConverter implements AttributeConverter<PaymentIntentStatusEnum, Byte> {
+
+	@Override
+	public Byte convertToDatabaseColumn(PaymentIntentStatusEnum status) {
+		return status != null ? status.getCode() : null;
+	}
+
+	@Override
+	public PaymentIntentStatusEnum convertToEntityAttribute(Byte code) {
+		return code != null ? PaymentIntentStatusEnum.fromCode(code) : null;
+	}
+}
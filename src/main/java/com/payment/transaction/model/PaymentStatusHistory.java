@@ -2,31 +2,40 @@ package com.payment.transaction.model;
 
 import java.time.LocalDateTime;
 
+import com.payment.transaction.enums.PaymentIntentStatusEnum;
+
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.Data;
 
 @Entity
-@Table(name = "payment_status_history")
+@Table(name = "payment_status_history", indexes = {
+        @Index(name = "idx_payment_status_history_payment_created", columnList = "payment_id, created_at"),
+        @Index(name = "uk_payment_status_history_event", columnList = "stripe_event_id", unique = true) })
 @Data
 public class PaymentStatusHistory {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payment_status_history_seq")
+    @SequenceGenerator(name = "payment_status_history_seq", sequenceName = "payment_status_history_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
     @JoinColumn(name = "payment_id", nullable = false)
     private Payment payment;
 
+    @Convert(converter = PaymentIntentStatusConverter.class)
     @Column(nullable = false)
-    private String status;
+    private PaymentIntentStatusEnum status;
 
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
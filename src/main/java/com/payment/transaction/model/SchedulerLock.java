@@ -0,0 +1,31 @@
+package com.payment.transaction.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+@Entity
+@Table(name = "scheduler_locks")
+@Data
+public class SchedulerLock {
+
+	// Nombre de la tarea protegida (ej: "payment-sync-discover")
+	@Id
+	@Column(length = 64)
+	private String name;
+
+	// El lock está tomado hasta este instante; vencido, cualquier nodo puede tomarlo
+	@Column(name = "locked_until", nullable = false)
+	private LocalDateTime lockedUntil;
+
+	@Column(name = "locked_at", nullable = false)
+	private LocalDateTime lockedAt;
+
+	@Column(name = "locked_by", nullable = false)
+	private String lockedBy;
+
+}
@@ -0,0 +1,27 @@
+package com.payment.transaction.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+@Entity
+@Table(name = "scheduler_nodes")
+@Data
+public class SchedulerNode {
+
+	@Id
+	@Column(name = "node_id")
+	private String nodeId;
+
+	@Column(name = "started_at", nullable = false)
+	private LocalDateTime startedAt;
+
+	// Último tick del nodo; sin heartbeat reciente deja de contar para el reparto
+	@Column(name = "heartbeat_at", nullable = false)
+	private LocalDateTime heartbeatAt;
+
+}
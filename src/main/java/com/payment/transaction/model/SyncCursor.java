@@ -0,0 +1,35 @@
+package com.payment.transaction.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+@Entity
+@Table(name = "sync_cursors")
+@Data
+public class SyncCursor {
+
+	// Nombre lógico del cursor (ej: "stripe_payment_intents")
+	@Id
+	private String name;
+
+	// Marca de agua: valor de "created" (epoch seconds) del PaymentIntent más reciente visto
+	@Column(name = "created_gte", nullable = false)
+	private Long createdGte;
+
+	// Recorrido en curso: límite superior de "created" fijado al empezar (null si no hay ninguno)
+	@Column(name = "scan_until")
+	private Long scanUntil;
+
+	// Recorrido en curso: id del último PaymentIntent procesado (starting_after de la próxima página)
+	@Column(name = "resume_after")
+	private String resumeAfter;
+
+	@Column(name = "updated_at")
+	private LocalDateTime updatedAt;
+
+}
@@ -0,0 +1,25 @@
+package com.payment.transaction.repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.payment.transaction.model.IdempotencyRecord;
+
+@Transactional(readOnly = true)
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+	Optional<IdempotencyRecord> findByScopeAndIdempotencyKey(String scope, String idempotencyKey);
+
+	// Borrado masivo en una sola sentencia, sin cargar las entidades
+	@Transactional
+	@Modifying
+	@Query("delete from IdempotencyRecord r where r.createdAt < :before")
+	int deleteCreatedBefore(@Param("before") LocalDateTime before);
+
+}
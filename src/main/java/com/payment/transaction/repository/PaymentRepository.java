@@ -1,17 +1,45 @@
 package com.payment.transaction.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.payment.transaction.enums.PaymentIntentStatusEnum;
 import com.payment.transaction.model.Payment;
 
-public interface PaymentRepository extends JpaRepository<Payment, Long> {
+import jakarta.persistence.LockModeType;
+
+@Transactional(readOnly = true)
+public interface PaymentRepository extends JpaRepository<Payment, Long>, PaymentViewQueries {
 
 	// Método para encontrar el pago por PaymentIntentId
 	Optional<Payment> findByPaymentIntentId(String paymentIntentId);
 
-	List<Payment> findByStatusIn(List<String> statuses);
+	// Lectura con SELECT ... FOR UPDATE: quien sincroniza compara contra el estado confirmado
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("select p from Payment p where p.paymentIntentId = :paymentIntentId")
+	Optional<Payment> findForUpdateByPaymentIntentId(@Param("paymentIntentId") String paymentIntentId);
+
+	List<Payment> findByStatusIn(Collection<PaymentIntentStatusEnum> statuses);
+
+	// Porción de los pagos con estado en la lista que le toca a un nodo (id mod shardCount = shardIndex)
+	@Query("select p from Payment p where p.status in :statuses and mod(p.id, :shardCount) = :shardIndex")
+	List<Payment> findByStatusInAndShard(@Param("statuses") Collection<PaymentIntentStatusEnum> statuses,
+			@Param("shardCount") long shardCount, @Param("shardIndex") long shardIndex);
+
+	// Página del listado local, del más nuevo al más viejo (keyset por id)
+	List<Payment> findByIdLessThanOrderByIdDesc(long beforeId, Pageable pageable);
+
+	// Proyección: solo devuelve los ids que ya existen, sin materializar entidades
+	@Query("select p.paymentIntentId from Payment p where p.paymentIntentId in :paymentIntentIds")
+	Set<String> findPaymentIntentIdByPaymentIntentIdIn(@Param("paymentIntentIds") Collection<String> paymentIntentIds);
 
 }
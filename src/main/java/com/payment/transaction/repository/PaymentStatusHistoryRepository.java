@@ -9,4 +9,6 @@ import com.payment.transaction.model.PaymentStatusHistory;
 
 public interface PaymentStatusHistoryRepository extends JpaRepository<PaymentStatusHistory, Long> {
     List<PaymentStatusHistory> findByPaymentOrderByCreatedAtDesc(Payment payment);
+
+    boolean existsByStripeEventId(String stripeEventId);
 } 
\ No newline at end of file
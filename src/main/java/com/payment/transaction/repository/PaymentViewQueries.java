@@ -0,0 +1,27 @@
+package com.payment.transaction.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.Pageable;
+
+import com.payment.transaction.dto.PaymentView;
+import com.payment.transaction.enums.PaymentIntentStatusEnum;
+
+/**
+ * Consultas de {@link PaymentView} con filtros opcionales. Un filtro nulo no
+ * llega al SQL: la consulta solo lleva los predicados informados, así MySQL
+ * elige el índice que corresponde (p. ej. {@code (status, id)} al filtrar por
+ * estado) en lugar de un plan genérico con {@code :x is null or ...}.
+ */
+public interface PaymentViewQueries {
+
+	// Paginación por keyset: el costo de cada página no depende del offset
+	List<PaymentView> findViewsAfter(long afterId, PaymentIntentStatusEnum status, String currency,
+			LocalDateTime createdFrom, LocalDateTime createdTo, Pageable pageable);
+
+	// Exportación completa; el resultado se lee por bloques desde el cursor JDBC
+	Stream<PaymentView> streamViewsAfter(long afterId, PaymentIntentStatusEnum status, String currency,
+			LocalDateTime createdFrom, LocalDateTime createdTo);
+}
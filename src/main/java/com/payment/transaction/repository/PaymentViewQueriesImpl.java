@@ -0,0 +1,79 @@
+package com.payment.transaction.repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.payment.transaction.dto.PaymentView;
+import com.payment.transaction.enums.PaymentIntentStatusEnum;
+import com.payment.transaction.model.Payment;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+// Fragmento de PaymentRepository: la consulta se arma con Criteria según los filtros informados
+@Transactional(readOnly = true)
+class PaymentViewQueriesImpl implements PaymentViewQueries {
+
+	private static final int EXPORT_FETCH_SIZE = 500;
+
+	private final EntityManager entityManager;
+
+	PaymentViewQueriesImpl(EntityManager entityManager) {
+		this.entityManager = entityManager;
+	}
+
+	@Override
+	public List<PaymentView> findViewsAfter(long afterId, PaymentIntentStatusEnum status, String currency,
+			LocalDateTime createdFrom, LocalDateTime createdTo, Pageable pageable) {
+		return viewsAfter(afterId, status, currency, createdFrom, createdTo)
+				.setMaxResults(pageable.getPageSize())
+				.getResultList();
+	}
+
+	@Override
+	public Stream<PaymentView> streamViewsAfter(long afterId, PaymentIntentStatusEnum status, String currency,
+			LocalDateTime createdFrom, LocalDateTime createdTo) {
+		return viewsAfter(afterId, status, currency, createdFrom, createdTo)
+				.setHint(HibernateHints.HINT_FETCH_SIZE, EXPORT_FETCH_SIZE)
+				.getResultStream();
+	}
+
+	private TypedQuery<PaymentView> viewsAfter(long afterId, PaymentIntentStatusEnum status, String currency,
+			LocalDateTime createdFrom, LocalDateTime createdTo) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<PaymentView> query = cb.createQuery(PaymentView.class);
+		Root<Payment> payment = query.from(Payment.class);
+
+		List<Predicate> predicates = new ArrayList<>(5);
+		predicates.add(cb.greaterThan(payment.<Long>get("id"), afterId));
+		if (status != null) {
+			predicates.add(cb.equal(payment.get("status"), status));
+		}
+		if (currency != null) {
+			predicates.add(cb.equal(payment.get("currency"), currency));
+		}
+		if (createdFrom != null) {
+			predicates.add(cb.greaterThanOrEqualTo(payment.<LocalDateTime>get("createdAt"), createdFrom));
+		}
+		if (createdTo != null) {
+			predicates.add(cb.lessThan(payment.<LocalDateTime>get("createdAt"), createdTo));
+		}
+
+		query.select(cb.construct(PaymentView.class, payment.get("id"), payment.get("paymentIntentId"),
+				payment.get("status"), payment.get("amount"), payment.get("currency"), payment.get("createdAt"),
+				payment.get("updatedAt")))
+				.where(predicates.toArray(Predicate[]::new))
+				.orderBy(cb.asc(payment.get("id")));
+		return entityManager.createQuery(query);
+	}
+}
@@ -0,0 +1,45 @@
+package com.payment.transaction.repository;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.payment.transaction.model.SchedulerLock;
+
+public interface SchedulerLockRepository extends JpaRepository<SchedulerLock, String> {
+
+	// Toma el lock solo si está vencido; la sentencia es atómica, así que un solo nodo obtiene 1
+	@Transactional
+	@Modifying
+	@Query("update SchedulerLock l set l.lockedUntil = :lockedUntil, l.lockedAt = :now, l.lockedBy = :nodeId "
+			+ "where l.name = :name and l.lockedUntil <= :now")
+	int acquire(@Param("name") String name, @Param("nodeId") String nodeId, @Param("now") LocalDateTime now,
+			@Param("lockedUntil") LocalDateTime lockedUntil);
+
+	// Primera vez que se usa el lock; si otro nodo lo insertó antes falla por clave duplicada
+	@Transactional
+	@Modifying
+	@Query(value = "insert into scheduler_locks (name, locked_until, locked_at, locked_by) "
+			+ "values (:name, :lockedUntil, :now, :nodeId)", nativeQuery = true)
+	int insert(@Param("name") String name, @Param("nodeId") String nodeId, @Param("now") LocalDateTime now,
+			@Param("lockedUntil") LocalDateTime lockedUntil);
+
+	// Solo el dueño puede extender el lock; si venció y lo tomó otro nodo devuelve 0
+	@Transactional
+	@Modifying
+	@Query("update SchedulerLock l set l.lockedUntil = :lockedUntil where l.name = :name and l.lockedBy = :nodeId")
+	int renew(@Param("name") String name, @Param("nodeId") String nodeId,
+			@Param("lockedUntil") LocalDateTime lockedUntil);
+
+	// Solo el dueño puede liberar el lock
+	@Transactional
+	@Modifying
+	@Query("update SchedulerLock l set l.lockedUntil = :lockedUntil where l.name = :name and l.lockedBy = :nodeId")
+	int release(@Param("name") String name, @Param("nodeId") String nodeId,
+			@Param("lockedUntil") LocalDateTime lockedUntil);
+
+}
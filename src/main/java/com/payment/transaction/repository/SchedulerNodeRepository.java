@@ -0,0 +1,31 @@
+package com.payment.transaction.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.payment.transaction.model.SchedulerNode;
+
+@Transactional(readOnly = true)
+public interface SchedulerNodeRepository extends JpaRepository<SchedulerNode, String> {
+
+	@Query("select n.nodeId from SchedulerNode n where n.heartbeatAt > :aliveSince order by n.nodeId asc")
+	List<String> findLiveNodeIds(@Param("aliveSince") LocalDateTime aliveSince);
+
+	@Transactional
+	@Modifying
+	@Query("update SchedulerNode n set n.heartbeatAt = :now where n.nodeId = :nodeId")
+	int touch(@Param("nodeId") String nodeId, @Param("now") LocalDateTime now);
+
+	// Nodos que dejaron de enviar heartbeat (caídos sin desregistrarse)
+	@Transactional
+	@Modifying
+	@Query("delete from SchedulerNode n where n.heartbeatAt < :before")
+	int deleteStale(@Param("before") LocalDateTime before);
+
+}
@@ -0,0 +1,9 @@
+package com.payment.transaction.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.payment.transaction.model.SyncCursor;
+
+public interface SyncCursorRepository extends JpaRepository<SyncCursor, String> {
+
+}
@@ -1,66 +1,106 @@
 package com.payment.transaction.service;
 
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import com.payment.card.dto.CardDetailsDTO;
-import com.payment.card.dto.PaymentConfirmCardDetailsDTO;
-import com.payment.card.service.PaymentCardService;
 import com.payment.transaction.dto.AutomatedPaymentRequestDTO;
 import com.payment.transaction.dto.PaymentIntentDTO;
-import com.payment.transaction.enums.CapturablePaymentStatusEnum;
-import com.payment.transaction.exception.PaymentProcessingException;
 import com.stripe.exception.StripeException;
+import com.stripe.model.PaymentIntent;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Flujo bloqueante del pago automatizado: ejecuta en orden los pasos de
+ * {@link AutomatedPaymentSteps} en el hilo del request.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class AutomatedPaymentService {
-    
-    private final PaymentService paymentService;
-    private final PaymentCardService stripeCardService;
-    
-    @Transactional
+
+    private final AutomatedPaymentSteps steps;
+    private final IdempotencyService idempotencyService;
+
     public PaymentIntentDTO processPayment(AutomatedPaymentRequestDTO request) throws StripeException {
+        return processPayment(request, null);
+    }
+
+    /**
+     * Con Idempotency-Key, un reintento devuelve el resultado ya obtenido. Cada
+     * llamada a Stripe del flujo usa una clave derivada ("<clave>:create",
+     * "<clave>:confirm", "<clave>:capture").
+     */
+    public PaymentIntentDTO processPayment(AutomatedPaymentRequestDTO request, String idempotencyKey)
+            throws StripeException {
+        return processPayment(request, AutomatedPaymentSteps.paymentMethodFor(request), idempotencyKey);
+    }
+
+    /**
+     * Mismo flujo con la tarjeta ya resuelta a su payment method de prueba;
+     * los pagos masivos guardan solo ese id, así que no traen cardDetails.
+     */
+    public PaymentIntentDTO processPayment(AutomatedPaymentRequestDTO request, String paymentMethodId,
+            String idempotencyKey) throws StripeException {
+        return idempotencyService.execute("automated", idempotencyKey, request, PaymentIntentDTO.class, () -> {
+            if (steps.isMultiStep()) {
+                return processPaymentMultiStep(request, paymentMethodId, idempotencyKey);
+            }
+            return processPaymentSingleCall(request, paymentMethodId, idempotencyKey);
+        });
+    }
+
+    private PaymentIntentDTO processPaymentSingleCall(AutomatedPaymentRequestDTO request, String paymentMethodId,
+            String idempotencyKey) throws StripeException {
+        log.info("Starting single-call payment process for amount: {}", request.getPaymentRequest().getAmount());
+
+        // 1. Crear y confirmar en una sola llamada; una tarjeta rechazada también deja el intent registrado
+        PaymentIntent paymentIntent = steps.timed("create_confirm", () -> {
+            try {
+                return steps.persist(steps.createAndConfirm(request, paymentMethodId, idempotencyKey));
+            } catch (StripeException e) {
+                throw steps.persistDeclined(e);
+            }
+        });
+        PaymentIntentDTO confirmedPayment = AutomatedPaymentSteps.toDTO(paymentIntent);
+        log.info("Payment created and confirmed with ID: {} and status: {}", confirmedPayment.getId(),
+            confirmedPayment.getStatus());
+
+        // 2. 3D Secure: se devuelve el intent para continuar el flujo manualmente
+        return AutomatedPaymentSteps.requireNoAction(confirmedPayment);
+    }
+
+    private PaymentIntentDTO processPaymentMultiStep(AutomatedPaymentRequestDTO request, String paymentMethodId,
+            String idempotencyKey) throws StripeException {
         try {
             log.info("Starting automated payment process for amount: {}", request.getPaymentRequest().getAmount());
-            
-            // 1. Crear PaymentIntent
-            PaymentIntentDTO paymentIntent = paymentService.createPaymentIntent(request.getPaymentRequest());
-            log.info("PaymentIntent created with ID: {}", paymentIntent.getId());
-            
-            // 2. Preparar detalles de confirmación
-            PaymentConfirmCardDetailsDTO confirmDetails = new PaymentConfirmCardDetailsDTO();
-            confirmDetails.setCardDetails(request.getCardDetails());
-            
-            // 3. Confirmar el pago
-            PaymentIntentDTO confirmedPayment = stripeCardService.confirmPaymentIntentWithCardDetails(
-                paymentIntent.getId(), 
-                confirmDetails
-            );
+
+            // 1. Crear PaymentIntent (captura manual si autoCapture=false, igual que en single-call)
+            PaymentIntent created = steps.timed("create",
+                () -> steps.persist(steps.create(request, idempotencyKey)));
+            log.info("PaymentIntent created with ID: {}", created.getId());
+
+            // 2. Confirmar con el payment method de prueba
+            PaymentIntentDTO confirmedPayment = AutomatedPaymentSteps.toDTO(steps.timed("confirm",
+                () -> steps.persist(steps.confirm(created.getId(), paymentMethodId, idempotencyKey))));
             log.info("Payment confirmed with status: {}", confirmedPayment.getStatus());
-            
-            // 4. Manejar 3D Secure si es necesario
-            if ("requires_action".equals(confirmedPayment.getStatus())) {
-                log.warn("3D Secure authentication required. Manual intervention needed.");
-                throw new PaymentProcessingException("3D Secure authentication required", confirmedPayment);
-            }
-            
-            // 5. Captura automática si está habilitada y el estado lo permite
-            if (request.isAutoCapture() && CapturablePaymentStatusEnum.isCapturable(confirmedPayment.getStatus())) {
+
+            // 3. Manejar 3D Secure si es necesario
+            AutomatedPaymentSteps.requireNoAction(confirmedPayment);
+
+            // 4. Captura automática si está habilitada y el estado lo permite
+            if (AutomatedPaymentSteps.shouldCapture(request, confirmedPayment)) {
                 log.info("Auto-capturing payment");
-                confirmedPayment = paymentService.capturePaymentIntent(confirmedPayment.getId());
+                confirmedPayment = AutomatedPaymentSteps.toDTO(steps.timed("capture",
+                    () -> steps.persist(steps.capture(created.getId(), idempotencyKey))));
                 log.info("Payment captured successfully");
             }
-            
+
             return confirmedPayment;
-            
+
         } catch (StripeException e) {
             log.error("Error processing payment: {}", e.getMessage(), e);
             throw e;
         }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,215 @@
+package com.payment.transaction.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.payment.card.service.CardNumberResolver;
+import com.payment.transaction.dto.AutomatedPaymentRequestDTO;
+import com.payment.transaction.dto.PaymentIntentDTO;
+import com.payment.transaction.enums.PaymentIntentStatusEnum;
+import com.payment.transaction.exception.PaymentIntentStateErrors;
+import com.payment.transaction.exception.PaymentProcessingException;
+import com.payment.transaction.gateway.AsyncPaymentGateway;
+import com.payment.transaction.gateway.PaymentGateway;
+import com.stripe.exception.StripeException;
+import com.stripe.model.PaymentIntent;
+import com.stripe.param.PaymentIntentConfirmParams;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Pasos del pago automatizado que comparten {@link AutomatedPaymentService}
+ * y {@code ReactiveAutomatedPaymentService} (perfil reactive): el modo
+ * configurado, cada llamada a Stripe (con su Idempotency-Key derivada y la
+ * traducción de errores de estado), la escritura local, el registro de
+ * rechazos, el control de 3D Secure y la métrica
+ * {@code payment.automated.phase}. Cada llamada a Stripe tiene una variante
+ * {@code *Async} sobre {@link AsyncPaymentGateway} que no ocupa un hilo
+ * mientras Stripe responde; las escrituras están separadas para que la
+ * versión reactiva las ejecute aparte. Cada servicio solo decide cómo
+ * encadenarlas.
+ */
+@Component
+@Slf4j
+public class AutomatedPaymentSteps {
+
+	static final String MULTI_STEP_MODE = "multi-step";
+	static final String SINGLE_CALL_MODE = "single-call";
+
+	private static final String CONFIRM_STATE_ERROR = "Cannot confirm payment with status: ";
+	private static final String CAPTURE_STATE_ERROR = "Cannot capture payment with status: ";
+
+	private final PaymentGateway paymentGateway;
+	private final AsyncPaymentGateway asyncPaymentGateway;
+	private final PaymentSyncService paymentSyncService;
+	private final MeterRegistry meterRegistry;
+	private final String mode;
+
+	// "single-call" (por defecto): crea y confirma en una sola llamada a Stripe
+	// "multi-step": crea, confirma y captura en llamadas separadas
+	public AutomatedPaymentSteps(PaymentGateway paymentGateway, AsyncPaymentGateway asyncPaymentGateway,
+			PaymentSyncService paymentSyncService, MeterRegistry meterRegistry,
+			@Value("${payment.automated.mode:single-call}") String mode) {
+		this.paymentGateway = paymentGateway;
+		this.asyncPaymentGateway = asyncPaymentGateway;
+		this.paymentSyncService = paymentSyncService;
+		this.meterRegistry = meterRegistry;
+		this.mode = MULTI_STEP_MODE.equalsIgnoreCase(mode) ? MULTI_STEP_MODE : SINGLE_CALL_MODE;
+	}
+
+	public boolean isMultiStep() {
+		return MULTI_STEP_MODE.equals(mode);
+	}
+
+	// Crea y confirma en una sola llamada (con captura automática o manual)
+	public PaymentIntent createAndConfirm(AutomatedPaymentRequestDTO request, String paymentMethodId,
+			String idempotencyKey) throws StripeException {
+		return paymentGateway.create(
+				PaymentService.createAndConfirmParams(request.getPaymentRequest(), paymentMethodId,
+						request.isAutoCapture()),
+				IdempotencyService.requestOptions(IdempotencyService.stepKey(idempotencyKey, "create")));
+	}
+
+	public CompletableFuture<PaymentIntent> createAndConfirmAsync(AutomatedPaymentRequestDTO request,
+			String paymentMethodId, String idempotencyKey) {
+		return asyncPaymentGateway.create(
+				PaymentService.createAndConfirmParams(request.getPaymentRequest(), paymentMethodId,
+						request.isAutoCapture()),
+				IdempotencyService.requestOptions(IdempotencyService.stepKey(idempotencyKey, "create")));
+	}
+
+	public PaymentIntent create(AutomatedPaymentRequestDTO request, String idempotencyKey) throws StripeException {
+		return paymentGateway.create(PaymentService.createParams(request.getPaymentRequest(), request.isAutoCapture()),
+				IdempotencyService.requestOptions(IdempotencyService.stepKey(idempotencyKey, "create")));
+	}
+
+	public CompletableFuture<PaymentIntent> createAsync(AutomatedPaymentRequestDTO request, String idempotencyKey) {
+		return asyncPaymentGateway.create(
+				PaymentService.createParams(request.getPaymentRequest(), request.isAutoCapture()),
+				IdempotencyService.requestOptions(IdempotencyService.stepKey(idempotencyKey, "create")));
+	}
+
+	public PaymentIntent confirm(String paymentIntentId, String paymentMethodId, String idempotencyKey)
+			throws StripeException {
+		try {
+			return paymentGateway.confirm(paymentIntentId, confirmParams(paymentMethodId),
+					IdempotencyService.requestOptions(IdempotencyService.stepKey(idempotencyKey, "confirm")));
+		} catch (StripeException e) {
+			PaymentIntentStateErrors.rethrowIfUnexpectedState(e, CONFIRM_STATE_ERROR);
+			throw e;
+		}
+	}
+
+	public CompletableFuture<PaymentIntent> confirmAsync(String paymentIntentId, String paymentMethodId,
+			String idempotencyKey) {
+		return asyncPaymentGateway.confirm(paymentIntentId, confirmParams(paymentMethodId),
+				IdempotencyService.requestOptions(IdempotencyService.stepKey(idempotencyKey, "confirm")))
+				.exceptionallyCompose(e -> CompletableFuture.failedFuture(unexpectedState(e, CONFIRM_STATE_ERROR)));
+	}
+
+	public PaymentIntent capture(String paymentIntentId, String idempotencyKey) throws StripeException {
+		try {
+			return paymentGateway.capture(paymentIntentId,
+					IdempotencyService.requestOptions(IdempotencyService.stepKey(idempotencyKey, "capture")));
+		} catch (StripeException e) {
+			PaymentIntentStateErrors.rethrowIfUnexpectedState(e, CAPTURE_STATE_ERROR);
+			throw e;
+		}
+	}
+
+	public CompletableFuture<PaymentIntent> captureAsync(String paymentIntentId, String idempotencyKey) {
+		return asyncPaymentGateway.capture(paymentIntentId,
+				IdempotencyService.requestOptions(IdempotencyService.stepKey(idempotencyKey, "capture")))
+				.exceptionallyCompose(e -> CompletableFuture.failedFuture(unexpectedState(e, CAPTURE_STATE_ERROR)));
+	}
+
+	// Registra localmente el PaymentIntent que devolvió el paso
+	public PaymentIntent persist(PaymentIntent paymentIntent) {
+		paymentSyncService.syncPaymentStatus(paymentIntent);
+		return paymentIntent;
+	}
+
+	/**
+	 * Si la tarjeta fue rechazada el intent existe igual en Stripe: se registra
+	 * localmente y se devuelve el mismo error para propagarlo.
+	 */
+	public StripeException persistDeclined(StripeException e) {
+		log.error("Error processing payment: {}", e.getMessage());
+		if (e.getStripeError() != null && e.getStripeError().getPaymentIntent() != null) {
+			paymentSyncService.syncPaymentStatus(e.getStripeError().getPaymentIntent());
+		}
+		return e;
+	}
+
+	// 3D Secure: se devuelve el intent para continuar el flujo manualmente
+	public static PaymentIntentDTO requireNoAction(PaymentIntentDTO payment) {
+		if (PaymentIntentStatusEnum.REQUIRES_ACTION.getStatus().equals(payment.getStatus())) {
+			log.warn("3D Secure authentication required. Manual intervention needed.");
+			throw new PaymentProcessingException("3D Secure authentication required", payment);
+		}
+		return payment;
+	}
+
+	// Captura explícita: solo si se pidió autoCapture y el intent quedó autorizado
+	public static boolean shouldCapture(AutomatedPaymentRequestDTO request, PaymentIntentDTO payment) {
+		return request.isAutoCapture() && PaymentIntentStatusEnum.isCapturable(payment.getStatus());
+	}
+
+	public static PaymentIntentDTO toDTO(PaymentIntent paymentIntent) {
+		return new PaymentIntentDTO(paymentIntent.getId(), paymentIntent.getAmount(), paymentIntent.getCurrency(),
+				paymentIntent.getStatus(), paymentIntent.getClientSecret());
+	}
+
+	/**
+	 * Mide un paso del flujo en {@code payment.automated.phase} (llamada a
+	 * Stripe más la escritura local). Comparado con {@code stripe.requests}
+	 * muestra cuánto del paso es Stripe y cuánto es propio.
+	 */
+	public <T> T timed(String phase, IdempotencyService.StripeCall<T> step) throws StripeException {
+		Timer.Sample sample = startPhase();
+		String outcome = "error";
+		try {
+			T result = step.call();
+			outcome = "success";
+			return result;
+		} finally {
+			stopPhase(sample, phase, outcome);
+		}
+	}
+
+	// Para pasos que no terminan en el hilo que los empieza (Mono)
+	public Timer.Sample startPhase() {
+		return Timer.start(meterRegistry);
+	}
+
+	public void stopPhase(Timer.Sample sample, String phase, String outcome) {
+		sample.stop(Timer.builder("payment.automated.phase")
+				.tag("phase", phase)
+				.tag("mode", mode)
+				.tag("outcome", outcome)
+				.register(meterRegistry));
+	}
+
+	private static PaymentIntentConfirmParams confirmParams(String paymentMethodId) {
+		return PaymentIntentConfirmParams.builder().setPaymentMethod(paymentMethodId).build();
+	}
+
+	// Misma traducción que rethrowIfUnexpectedState para el error con que se completó un future
+	private static Throwable unexpectedState(Throwable error, String message) {
+		Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+		if (cause instanceof StripeException e && PaymentIntentStateErrors.isUnexpectedState(e)) {
+			return new IllegalArgumentException(message + PaymentIntentStateErrors.currentStatus(e), e);
+		}
+		return cause;
+	}
+
+	// Payment method de prueba que corresponde al número de tarjeta; se resuelve antes de llamar a Stripe
+	public static String paymentMethodFor(AutomatedPaymentRequestDTO request) {
+		return CardNumberResolver.resolveTestCard(request.getCardDetails().getCardNumber()).getPaymentMethodId();
+	}
+}
@@ -0,0 +1,270 @@
+package com.payment.transaction.service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.payment.transaction.model.IdempotencyRecord;
+import com.payment.transaction.repository.IdempotencyRecordRepository;
+import com.stripe.exception.StripeException;
+import com.stripe.net.RequestOptions;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Manejo del header Idempotency-Key para create/confirm/capture.
+ * <p>
+ * Las respuestas completadas se guardan en una caché local acotada (TTL y
+ * tamaño) respaldada por la tabla {@code idempotency_records}. Los reintentos
+ * concurrentes con la misma clave esperan a la llamada en curso en lugar de
+ * llegar dos veces a Stripe, y la clave también se envía a Stripe en
+ * {@link RequestOptions}, así que un reintento después de una caída devuelve
+ * el mismo PaymentIntent.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+
+	// Stripe acepta claves de hasta 255 caracteres; se reserva lugar para el sufijo de cada paso
+	private static final int MAX_KEY_LENGTH = 200;
+
+	@FunctionalInterface
+	public interface StripeCall<T> {
+		T call() throws StripeException;
+	}
+
+	private record StoredResponse(String requestHash, Object response) {
+	}
+
+	private final IdempotencyRecordRepository repository;
+	private final ObjectMapper objectMapper;
+	private final TransactionTemplate requiresNewTransaction;
+	private final Duration ttl;
+	private final Cache<String, StoredResponse> responses;
+	private final ConcurrentMap<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+	public IdempotencyService(IdempotencyRecordRepository repository, ObjectMapper objectMapper,
+			PlatformTransactionManager transactionManager,
+			@Value("${payment.idempotency.ttl-hours:24}") long ttlHours,
+			@Value("${payment.idempotency.cache-max-size:10000}") long cacheMaxSize) {
+		this.repository = repository;
+		this.objectMapper = objectMapper;
+		this.requiresNewTransaction = new TransactionTemplate(transactionManager);
+		this.requiresNewTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		this.ttl = Duration.ofHours(ttlHours);
+		this.responses = Caffeine.newBuilder().maximumSize(cacheMaxSize).expireAfterWrite(ttl).build();
+	}
+
+	// Opciones de Stripe con la clave del paso (ej: "<clave>:confirm"), o las opciones por defecto
+	public static RequestOptions requestOptions(String idempotencyKey) {
+		if (idempotencyKey == null || idempotencyKey.isBlank()) {
+			return RequestOptions.getDefault();
+		}
+		return RequestOptions.builder().setIdempotencyKey(idempotencyKey).build();
+	}
+
+	public static String stepKey(String idempotencyKey, String step) {
+		return idempotencyKey == null || idempotencyKey.isBlank() ? null : idempotencyKey + ":" + step;
+	}
+
+	/**
+	 * Ejecuta la operación una sola vez por (scope, clave). Sin clave, la ejecuta
+	 * siempre. Solo se guardan las respuestas exitosas: un error se puede
+	 * reintentar con la misma clave.
+	 */
+	public <T> T execute(String scope, String idempotencyKey, Object request, Class<T> responseType,
+			StripeCall<T> call) throws StripeException {
+		if (idempotencyKey == null || idempotencyKey.isBlank()) {
+			return call.call();
+		}
+		if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+			throw new IllegalArgumentException("Idempotency-Key must be at most " + MAX_KEY_LENGTH + " characters");
+		}
+
+		String cacheKey = scope + ":" + idempotencyKey;
+		String requestHash = hash(request);
+
+		StoredResponse cached = responses.getIfPresent(cacheKey);
+		if (cached != null) {
+			return resolve(cached, requestHash, responseType);
+		}
+
+		CompletableFuture<StoredResponse> future = new CompletableFuture<>();
+		CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(cacheKey, future);
+		if (running != null) {
+			log.debug("Idempotency-Key {} already in flight, waiting for its result", cacheKey);
+			return resolve(await(running), requestHash, responseType);
+		}
+
+		try {
+			StoredResponse stored = findRecord(scope, idempotencyKey, responseType);
+			if (stored == null) {
+				T response = call.call();
+				stored = new StoredResponse(requestHash, response);
+				saveRecord(scope, idempotencyKey, requestHash, response);
+			}
+			responses.put(cacheKey, stored);
+			future.complete(stored);
+			return resolve(stored, requestHash, responseType);
+		} catch (StripeException | RuntimeException e) {
+			future.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(cacheKey, future);
+		}
+	}
+
+	/**
+	 * Variante no bloqueante de {@link #execute} para el stack reactivo: la
+	 * operación devuelve un {@link CompletableFuture} y los accesos a
+	 * {@code idempotency_records} corren en {@code blockingExecutor}. Un
+	 * reintento concurrente con la misma clave se encadena a la llamada en curso
+	 * en lugar de esperarla con un hilo.
+	 */
+	public <T> CompletableFuture<T> executeAsync(String scope, String idempotencyKey, Object request,
+			Class<T> responseType, Supplier<CompletableFuture<T>> call, Executor blockingExecutor) {
+		if (idempotencyKey == null || idempotencyKey.isBlank()) {
+			return call.get();
+		}
+		if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+			return CompletableFuture.failedFuture(new IllegalArgumentException(
+					"Idempotency-Key must be at most " + MAX_KEY_LENGTH + " characters"));
+		}
+
+		String cacheKey = scope + ":" + idempotencyKey;
+		String requestHash = hash(request);
+
+		StoredResponse cached = responses.getIfPresent(cacheKey);
+		if (cached != null) {
+			try {
+				return CompletableFuture.completedFuture(resolve(cached, requestHash, responseType));
+			} catch (IllegalArgumentException e) {
+				return CompletableFuture.failedFuture(e);
+			}
+		}
+
+		CompletableFuture<StoredResponse> future = new CompletableFuture<>();
+		CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(cacheKey, future);
+		if (running != null) {
+			log.debug("Idempotency-Key {} already in flight, chaining to its result", cacheKey);
+			return running.thenApply(stored -> resolve(stored, requestHash, responseType));
+		}
+
+		CompletableFuture
+				.supplyAsync(() -> findRecord(scope, idempotencyKey, responseType), blockingExecutor)
+				.thenCompose(stored -> stored != null ? CompletableFuture.completedFuture(stored)
+						: call.get().thenApplyAsync(response -> {
+							saveRecord(scope, idempotencyKey, requestHash, response);
+							return new StoredResponse(requestHash, response);
+						}, blockingExecutor))
+				.whenComplete((stored, error) -> {
+					inFlight.remove(cacheKey, future);
+					if (error != null) {
+						future.completeExceptionally(error instanceof CompletionException ? error.getCause() : error);
+					} else {
+						responses.put(cacheKey, stored);
+						future.complete(stored);
+					}
+				});
+		return future.thenApply(stored -> resolve(stored, requestHash, responseType));
+	}
+
+	// Borra los registros vencidos; la caché local vence sola
+	@Scheduled(fixedDelayString = "${payment.idempotency.cleanup-interval-ms:3600000}")
+	public void purgeExpired() {
+		int deleted = repository.deleteCreatedBefore(LocalDateTime.now().minus(ttl));
+		if (deleted > 0) {
+			log.info("Purged {} expired idempotency records", deleted);
+		}
+	}
+
+	private <T> StoredResponse findRecord(String scope, String idempotencyKey, Class<T> responseType) {
+		Optional<IdempotencyRecord> record = repository.findByScopeAndIdempotencyKey(scope, idempotencyKey);
+		if (record.isEmpty() || record.get().getCreatedAt().isBefore(LocalDateTime.now().minus(ttl))) {
+			return null;
+		}
+		try {
+			return new StoredResponse(record.get().getRequestHash(),
+					objectMapper.readValue(record.get().getResponseBody(), responseType));
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Unreadable idempotency record " + record.get().getId(), e);
+		}
+	}
+
+	// Transacción propia: el registro queda aunque la transacción del llamador falle después
+	private void saveRecord(String scope, String idempotencyKey, String requestHash, Object response) {
+		try {
+			String body = objectMapper.writeValueAsString(response);
+			requiresNewTransaction.executeWithoutResult(status -> {
+				// Registro vencido con la misma clave: se borra antes de insertar el nuevo
+				repository.findByScopeAndIdempotencyKey(scope, idempotencyKey).ifPresent(expired -> {
+					repository.delete(expired);
+					repository.flush();
+				});
+				IdempotencyRecord record = new IdempotencyRecord();
+				record.setScope(scope);
+				record.setIdempotencyKey(idempotencyKey);
+				record.setRequestHash(requestHash);
+				record.setResponseBody(body);
+				record.setCreatedAt(LocalDateTime.now());
+				repository.saveAndFlush(record);
+			});
+		} catch (DataIntegrityViolationException e) {
+			// Otro nodo guardó la misma clave; Stripe ya devolvió a ambos la misma respuesta
+			log.debug("Idempotency record {}:{} already stored by another node", scope, idempotencyKey);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Cannot serialize idempotent response", e);
+		}
+	}
+
+	private static <T> T resolve(StoredResponse stored, String requestHash, Class<T> responseType) {
+		if (!stored.requestHash().equals(requestHash)) {
+			throw new IllegalArgumentException("Idempotency-Key was already used with different request parameters");
+		}
+		return responseType.cast(stored.response());
+	}
+
+	private static StoredResponse await(CompletableFuture<StoredResponse> running) throws StripeException {
+		try {
+			return running.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof StripeException stripeException) {
+				throw stripeException;
+			}
+			if (e.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			throw e;
+		}
+	}
+
+	private String hash(Object request) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+			return HexFormat.of().formatHex(digest);
+		} catch (JsonProcessingException | NoSuchAlgorithmException e) {
+			throw new IllegalStateException("Cannot hash idempotent request", e);
+		}
+	}
+}
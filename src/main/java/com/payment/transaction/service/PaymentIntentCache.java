@@ -0,0 +1,133 @@
+package com.payment.transaction.service;
+
+import java.time.Duration;
+import java.util.Collection;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.payment.transaction.dto.PaymentCacheStatsDTO;
+import com.payment.transaction.enums.PaymentIntentStatusEnum;
+import com.payment.transaction.gateway.PaymentGateway;
+import com.stripe.exception.StripeException;
+import com.stripe.model.PaymentIntent;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Caché de lectura de PaymentIntents delante de Stripe. La usan todas las
+ * lecturas de {@link PaymentReadService} que van a Stripe: {@code STRIPE_ONLY}
+ * y los refrescos de filas faltantes o desactualizadas de {@code LOCAL_FIRST}.
+ * <p>
+ * Se guarda el PaymentIntent sin el client secret: una lectura nunca lo
+ * devuelve, así que no queda en memoria. Los intents en estado final ({@code succeeded}, {@code canceled},
+ * {@code failed}) no vencen porque ya no cambian; el resto vence a los
+ * {@code payment.cache.open-ttl-seconds}. {@link PaymentSyncService} invalida
+ * la entrada cada vez que registra un cambio de estado. Las lecturas
+ * concurrentes de un mismo id que no está en caché hacen una sola llamada a
+ * Stripe. Las estadísticas también se publican como métricas {@code cache.*}
+ * con {@code cache=payment-intents}.
+ */
+@Slf4j
+@Service
+public class PaymentIntentCache {
+
+	private final PaymentGateway paymentGateway;
+	private final Cache<String, PaymentIntent> intents;
+
+	public PaymentIntentCache(PaymentGateway paymentGateway,
+			@Value("${payment.cache.max-size:10000}") long maxSize,
+			@Value("${payment.cache.open-ttl-seconds:5}") long openTtlSeconds, MeterRegistry meterRegistry) {
+		this.paymentGateway = paymentGateway;
+		this.intents = Caffeine.newBuilder()
+				.maximumSize(maxSize)
+				.expireAfter(new StatusExpiry(Duration.ofSeconds(openTtlSeconds).toNanos()))
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, intents, "payment-intents");
+	}
+
+	/**
+	 * Devuelve el PaymentIntent desde la caché o, si no está, lo consulta en
+	 * Stripe y lo guarda. El resultado es compartido: no se debe modificar.
+	 */
+	public PaymentIntent get(String paymentIntentId) throws StripeException {
+		try {
+			return intents.get(paymentIntentId, this::load);
+		} catch (StripeLoadException e) {
+			throw e.stripeException;
+		}
+	}
+
+	public void invalidate(String paymentIntentId) {
+		intents.invalidate(paymentIntentId);
+	}
+
+	public void invalidateAll(Collection<String> paymentIntentIds) {
+		intents.invalidateAll(paymentIntentIds);
+	}
+
+	public PaymentCacheStatsDTO getStats() {
+		CacheStats stats = intents.stats();
+		return new PaymentCacheStatsDTO(intents.estimatedSize(), stats.hitCount(), stats.missCount(),
+				stats.hitRate(), stats.evictionCount(), stats.loadFailureCount(),
+				Duration.ofNanos((long) stats.averageLoadPenalty()).toMillis());
+	}
+
+	private PaymentIntent load(String paymentIntentId) {
+		try {
+			PaymentIntent paymentIntent = paymentGateway.retrieve(paymentIntentId);
+			if (paymentIntent == null || paymentIntent.getId() == null) {
+				throw new IllegalArgumentException("Payment not found with ID: " + paymentIntentId);
+			}
+			log.debug("Payment {} loaded from Stripe with status {}", paymentIntentId, paymentIntent.getStatus());
+			paymentIntent.setClientSecret(null);
+			return paymentIntent;
+		} catch (StripeException e) {
+			throw new StripeLoadException(e);
+		}
+	}
+
+	// Transporta la StripeException (checked) fuera del loader de Caffeine
+	private static final class StripeLoadException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		private final transient StripeException stripeException;
+
+		StripeLoadException(StripeException stripeException) {
+			super(stripeException);
+			this.stripeException = stripeException;
+		}
+	}
+
+	// Estados finales sin vencimiento; estados abiertos con TTL corto
+	private static final class StatusExpiry implements Expiry<String, PaymentIntent> {
+
+		private final long openTtlNanos;
+
+		StatusExpiry(long openTtlNanos) {
+			this.openTtlNanos = openTtlNanos;
+		}
+
+		@Override
+		public long expireAfterCreate(String key, PaymentIntent value, long currentTime) {
+			return PaymentIntentStatusEnum.isTerminal(value.getStatus()) ? Long.MAX_VALUE : openTtlNanos;
+		}
+
+		@Override
+		public long expireAfterUpdate(String key, PaymentIntent value, long currentTime, long currentDuration) {
+			return expireAfterCreate(key, value, currentTime);
+		}
+
+		@Override
+		public long expireAfterRead(String key, PaymentIntent value, long currentTime, long currentDuration) {
+			return currentDuration;
+		}
+	}
+}
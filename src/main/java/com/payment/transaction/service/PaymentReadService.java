@@ -0,0 +1,198 @@
+package com.payment.transaction.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.payment.transaction.dto.PaymentIntentDTO;
+import com.payment.transaction.enums.PaymentReadStrategyEnum;
+import com.payment.transaction.exception.PaymentProviderUnavailableException;
+import com.payment.transaction.gateway.PaymentGateway;
+import com.payment.transaction.model.Payment;
+import com.payment.transaction.repository.PaymentRepository;
+import com.stripe.exception.StripeException;
+import com.stripe.model.PaymentIntent;
+import com.stripe.model.StripeCollection;
+import com.stripe.param.PaymentIntentListParams;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Lecturas de pagos según {@code payment.read.strategy}.
+ * <p>
+ * Con {@code LOCAL_FIRST} se responde desde la tabla {@code payments} cuando
+ * la fila está en un estado final o se sincronizó hace menos de
+ * {@code payment.read.max-staleness-seconds} ({@code updatedAt}). Si está
+ * desactualizada se consulta Stripe a través de {@link PaymentIntentCache} y
+ * se sincroniza la fila, así que la lectura siguiente vuelve a ser local y los
+ * refrescos simultáneos de un mismo pago hacen una sola llamada. Un pago que
+ * no existe localmente se responde desde Stripe sin insertarlo: las filas
+ * nuevas solo las crea el descubrimiento de pagos. En un listado solo se refrescan así
+ * las primeras {@code payment.read.max-list-refreshes} filas desactualizadas
+ * de la página; el resto se sirve de la base y lo actualiza el job de
+ * sincronización. Las lecturas locales no incluyen el client secret, que no se
+ * guarda en la base.
+ * <p>
+ * Si Stripe no está disponible (circuit breaker abierto o bulkhead lleno) las
+ * lecturas que irían a Stripe se responden con la fila local tal como está;
+ * solo un pago que no existe localmente responde 503.
+ */
+@Slf4j
+@Service
+public class PaymentReadService {
+
+	private static final int MAX_LIST_LIMIT = 100;
+
+	private final PaymentRepository paymentRepository;
+	private final PaymentGateway paymentGateway;
+	private final PaymentSyncService paymentSyncService;
+	private final PaymentIntentCache paymentIntentCache;
+	private final PaymentReadStrategyEnum strategy;
+	private final Duration maxStaleness;
+	private final int maxListRefreshes;
+
+	public PaymentReadService(PaymentRepository paymentRepository, PaymentGateway paymentGateway,
+			PaymentSyncService paymentSyncService, PaymentIntentCache paymentIntentCache,
+			@Value("${payment.read.strategy:LOCAL_FIRST}") PaymentReadStrategyEnum strategy,
+			@Value("${payment.read.max-staleness-seconds:60}") long maxStalenessSeconds,
+			@Value("${payment.read.max-list-refreshes:5}") int maxListRefreshes) {
+		this.paymentRepository = paymentRepository;
+		this.paymentGateway = paymentGateway;
+		this.paymentSyncService = paymentSyncService;
+		this.paymentIntentCache = paymentIntentCache;
+		this.strategy = strategy;
+		this.maxStaleness = Duration.ofSeconds(maxStalenessSeconds);
+		this.maxListRefreshes = maxListRefreshes;
+	}
+
+	public PaymentIntentDTO getPayment(String paymentIntentId) throws StripeException {
+		if (strategy == PaymentReadStrategyEnum.STRIPE_ONLY) {
+			try {
+				return toDTO(paymentIntentCache.get(paymentIntentId));
+			} catch (PaymentProviderUnavailableException e) {
+				return servedLocally(paymentIntentId, paymentRepository.findByPaymentIntentId(paymentIntentId), e);
+			}
+		}
+
+		Optional<Payment> payment = paymentRepository.findByPaymentIntentId(paymentIntentId);
+		if (strategy == PaymentReadStrategyEnum.LOCAL_ONLY) {
+			return payment.map(PaymentReadService::toDTO)
+					.orElseThrow(() -> new IllegalArgumentException("Payment not found with ID: " + paymentIntentId));
+		}
+		if (payment.isPresent() && isFresh(payment.get())) {
+			return toDTO(payment.get());
+		}
+
+		try {
+			if (payment.isEmpty()) {
+				// Un GET con un id cualquiera no debe crear filas
+				log.debug("Payment {} not stored locally, reading from Stripe", paymentIntentId);
+				return toDTO(paymentIntentCache.get(paymentIntentId));
+			}
+			log.debug("Payment {} stale locally, reading from Stripe", paymentIntentId);
+			return toDTO(refresh(paymentIntentId));
+		} catch (PaymentProviderUnavailableException e) {
+			return servedLocally(paymentIntentId, payment, e);
+		}
+	}
+
+	/**
+	 * Página de pagos, del más nuevo al más viejo como en Stripe.
+	 * {@code startingAfter} es el id del último PaymentIntent de la página
+	 * anterior.
+	 */
+	public List<PaymentIntentDTO> getPayments(int limit, String startingAfter) throws StripeException {
+		if (strategy == PaymentReadStrategyEnum.STRIPE_ONLY) {
+			try {
+				return getPaymentsFromStripe(limit, startingAfter);
+			} catch (PaymentProviderUnavailableException e) {
+				log.debug("Stripe unavailable, listing payments from the local table: {}", e.getMessage());
+				return getLocalPayments(limit, startingAfter, false);
+			}
+		}
+		return getLocalPayments(limit, startingAfter, strategy == PaymentReadStrategyEnum.LOCAL_FIRST);
+	}
+
+	private List<PaymentIntentDTO> getLocalPayments(int limit, String startingAfter, boolean refreshStale)
+			throws StripeException {
+		long beforeId = Long.MAX_VALUE;
+		if (startingAfter != null && !startingAfter.isBlank()) {
+			beforeId = paymentRepository.findByPaymentIntentId(startingAfter).map(Payment::getId)
+					.orElseThrow(() -> new IllegalArgumentException("Payment not found with ID: " + startingAfter));
+		}
+		int pageSize = Math.min(Math.max(limit, 1), MAX_LIST_LIMIT);
+		List<Payment> payments = paymentRepository.findByIdLessThanOrderByIdDesc(beforeId, PageRequest.of(0, pageSize));
+
+		List<PaymentIntentDTO> page = new ArrayList<>(payments.size());
+		// Llamadas a Stripe que puede hacer esta página en el hilo del request
+		int refreshesLeft = refreshStale ? maxListRefreshes : 0;
+		for (Payment payment : payments) {
+			// Solo las filas abiertas y desactualizadas van a Stripe
+			if (refreshesLeft > 0 && !isFresh(payment)) {
+				refreshesLeft--;
+				try {
+					page.add(toDTO(refresh(payment.getPaymentIntentId())));
+					continue;
+				} catch (PaymentProviderUnavailableException e) {
+					// El resto de la página sale de la base tal como está
+					log.debug("Stripe unavailable, serving the rest of the page locally: {}", e.getMessage());
+					refreshesLeft = 0;
+				}
+			}
+			page.add(toDTO(payment));
+		}
+		return page;
+	}
+
+	private List<PaymentIntentDTO> getPaymentsFromStripe(int limit, String startingAfter) throws StripeException {
+		PaymentIntentListParams.Builder paramsBuilder = PaymentIntentListParams.builder().setLimit((long) limit);
+
+		if (startingAfter != null && !startingAfter.isBlank()) {
+			paramsBuilder.setStartingAfter(startingAfter);
+		}
+
+		StripeCollection<PaymentIntent> paymentIntents = paymentGateway.list(paramsBuilder.build());
+
+		return paymentIntents.getData().stream().map(pi -> new PaymentIntentDTO(pi.getId(), pi.getAmount(),
+				pi.getCurrency(), pi.getStatus(), pi.getClientSecret())).toList();
+	}
+
+	// Consulta Stripe (o la caché) y actualiza la fila local (también su updatedAt)
+	private Payment refresh(String paymentIntentId) throws StripeException {
+		return paymentSyncService.syncPaymentStatus(paymentIntentCache.get(paymentIntentId));
+	}
+
+	// Modo degradado: con Stripe no disponible se responde con la fila local aunque esté desactualizada
+	private PaymentIntentDTO servedLocally(String paymentIntentId, Optional<Payment> payment,
+			PaymentProviderUnavailableException e) {
+		if (payment.isEmpty()) {
+			throw e;
+		}
+		log.debug("Stripe unavailable, serving payment {} from the local table", paymentIntentId);
+		return toDTO(payment.get());
+	}
+
+	private boolean isFresh(Payment payment) {
+		if (payment.getStatus().isTerminal()) {
+			return true;
+		}
+		return payment.getUpdatedAt() != null
+				&& payment.getUpdatedAt().isAfter(LocalDateTime.now().minus(maxStaleness));
+	}
+
+	private static PaymentIntentDTO toDTO(PaymentIntent paymentIntent) {
+		return new PaymentIntentDTO(paymentIntent.getId(), paymentIntent.getAmount(), paymentIntent.getCurrency(),
+				paymentIntent.getStatus(), null);
+	}
+
+	private static PaymentIntentDTO toDTO(Payment payment) {
+		return new PaymentIntentDTO(payment.getPaymentIntentId(), payment.getAmount(), payment.getCurrency(),
+				payment.getStatus().getStatus(), null);
+	}
+}
@@ -0,0 +1,271 @@
+package com.payment.transaction.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+
+import com.payment.transaction.dto.DiscoveryProgressDTO;
+import com.payment.transaction.enums.PaymentIntentStatusEnum;
+import com.payment.transaction.gateway.PaymentGateway;
+import com.payment.transaction.model.Payment;
+import com.payment.transaction.model.SyncCursor;
+import com.payment.transaction.repository.PaymentRepository;
+import com.payment.transaction.repository.SyncCursorRepository;
+import com.stripe.exception.StripeException;
+import com.stripe.model.PaymentIntent;
+import com.stripe.model.StripeCollection;
+import com.stripe.param.PaymentIntentListParams;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Motor de reconciliación incremental entre Stripe y la base de datos local.
+ * <p>
+ * Cada ejecución solo trabaja sobre lo que pudo haber cambiado: los
+ * PaymentIntents creados desde la última marca de agua (cursor persistido en
+ * {@code sync_cursors}) y los pagos locales que todavía no llegaron a un estado
+ * final. El costo de un tick depende del volumen de cambios, no del historial
+ * completo. Sin cursor (primera ejecución) se empieza
+ * {@code payment.sync.initial-lookback-ms} atrás, no desde el principio de la
+ * cuenta, y el avance se guarda en cada página: un recorrido interrumpido sigue
+ * donde quedó.
+ * <p>
+ * Con varias réplicas, el descubrimiento corre en un solo nodo a la vez (lock
+ * en {@code scheduler_locks}, renovado en cada página) y el refresco se
+ * reparte por shards; ver {@link SyncCoordinationService}.
+ */
+@Service
+@Slf4j
+public class PaymentReconciliationService {
+
+	static final String PAYMENT_INTENTS_CURSOR = "stripe_payment_intents";
+	static final String DISCOVER_LOCK = "payment-sync-discover";
+
+	private final PaymentRepository paymentRepository;
+	private final SyncCursorRepository syncCursorRepository;
+	private final PaymentSyncService paymentSyncService;
+	private final PaymentSyncDiffService paymentSyncDiffService;
+	private final PaymentGateway paymentGateway;
+	private final PaymentStatusRefresher paymentStatusRefresher;
+	private final MeterRegistry meterRegistry;
+	private final SyncCoordinationService coordinationService;
+	private final TaskExecutor discoveryExecutor;
+
+	// Recorrido en curso en este nodo (del job o de POST /sync) y resultado del último
+	private final AtomicBoolean discovering = new AtomicBoolean();
+	private final AtomicInteger pages = new AtomicInteger();
+	private final AtomicInteger scanned = new AtomicInteger();
+	private final AtomicInteger saved = new AtomicInteger();
+	private volatile LocalDateTime discoveryStartedAt;
+	private volatile DiscoveryProgressDTO lastDiscovery = new DiscoveryProgressDTO();
+
+	public PaymentReconciliationService(PaymentRepository paymentRepository,
+			SyncCursorRepository syncCursorRepository, PaymentSyncService paymentSyncService,
+			PaymentSyncDiffService paymentSyncDiffService,
+			@Qualifier("backgroundPaymentGateway") PaymentGateway paymentGateway,
+			PaymentStatusRefresher paymentStatusRefresher, MeterRegistry meterRegistry,
+			SyncCoordinationService coordinationService,
+			@Qualifier("paymentDiscoveryExecutor") TaskExecutor discoveryExecutor) {
+		this.paymentRepository = paymentRepository;
+		this.syncCursorRepository = syncCursorRepository;
+		this.paymentSyncService = paymentSyncService;
+		this.paymentSyncDiffService = paymentSyncDiffService;
+		this.paymentGateway = paymentGateway;
+		this.paymentStatusRefresher = paymentStatusRefresher;
+		this.meterRegistry = meterRegistry;
+		this.coordinationService = coordinationService;
+		this.discoveryExecutor = discoveryExecutor;
+	}
+
+	@Value("${payment.sync.page-size:100}")
+	private long pageSize;
+
+	// Vencimiento del lock de descubrimiento; se renueva en cada página, así que acota una sola página
+	@Value("${payment.sync.discover-lock-ms:300000}")
+	private long discoverLockMs;
+
+	// Sin cursor guardado, el primer recorrido empieza este tiempo atrás
+	@Value("${payment.sync.initial-lookback-ms:86400000}")
+	private long initialLookbackMs;
+
+	/**
+	 * Recorre en Stripe los PaymentIntents con {@code created >= cursor},
+	 * paginando con {@code starting_after}, guarda los que falten localmente y
+	 * avanza el cursor. Devuelve la cantidad de pagos nuevos guardados.
+	 * <p>
+	 * Lo usan el job programado y {@link #startDiscovery()} ({@code POST /sync}).
+	 * Corre una sola vez a la vez, también entre réplicas: si ya hay un
+	 * recorrido en este nodo o el lock lo tiene otro, no se hace nada y se
+	 * devuelve 0.
+	 */
+	public int discoverNewPayments() throws StripeException {
+		if (!discovering.compareAndSet(false, true)) {
+			log.debug("Payment discovery already running on this node, skipping");
+			return 0;
+		}
+		discoveryStartedAt = LocalDateTime.now();
+		pages.set(0);
+		scanned.set(0);
+		saved.set(0);
+		boolean skipped = false;
+		String error = null;
+		try {
+			if (!coordinationService.tryLock(DISCOVER_LOCK, Duration.ofMillis(discoverLockMs))) {
+				log.debug("Payment discovery already running on another node, skipping");
+				skipped = true;
+				return 0;
+			}
+			try {
+				return discover();
+			} finally {
+				coordinationService.unlock(DISCOVER_LOCK);
+			}
+		} catch (StripeException | RuntimeException e) {
+			error = e.getMessage();
+			throw e;
+		} finally {
+			DiscoveryProgressDTO progress = snapshot(false);
+			progress.setFinishedAt(LocalDateTime.now());
+			progress.setSkipped(skipped);
+			progress.setError(error);
+			lastDiscovery = progress;
+			discovering.set(false);
+		}
+	}
+
+	/**
+	 * Lanza un descubrimiento en {@code paymentDiscoveryExecutor} y devuelve su
+	 * avance sin esperarlo; si ya hay uno en curso en este nodo devuelve el
+	 * avance de ese.
+	 */
+	public DiscoveryProgressDTO startDiscovery() {
+		if (discovering.get()) {
+			return snapshot(true);
+		}
+		discoveryExecutor.execute(() -> {
+			try {
+				discoverNewPayments();
+			} catch (StripeException | RuntimeException e) {
+				log.error("Error in requested payment discovery: {}", e.getMessage());
+			}
+		});
+		// La tarea puede no haber empezado todavía: se informa en curso y sin avance
+		return new DiscoveryProgressDTO(true, LocalDateTime.now(), null, 0, 0, 0, false, null);
+	}
+
+	public DiscoveryProgressDTO getDiscoveryProgress() {
+		return discovering.get() ? snapshot(true) : lastDiscovery;
+	}
+
+	private int discover() throws StripeException {
+		SyncCursor cursor = syncCursorRepository.findById(PAYMENT_INTENTS_CURSOR).orElseGet(this::newCursor);
+		if (cursor.getScanUntil() == null) {
+			// Límite superior fijo: lo que se cree durante el recorrido entra en el próximo
+			cursor.setScanUntil(Instant.now().getEpochSecond());
+			cursor.setResumeAfter(null);
+		} else {
+			log.info("Resuming interrupted payment discovery after {}", cursor.getResumeAfter());
+		}
+		PaymentIntentListParams.Created created = PaymentIntentListParams.Created.builder()
+				.setGte(cursor.getCreatedGte()).setLte(cursor.getScanUntil()).build();
+
+		boolean completed = false;
+		try {
+			while (true) {
+				PaymentIntentListParams.Builder params = PaymentIntentListParams.builder().setLimit(pageSize)
+						.setCreated(created);
+				if (cursor.getResumeAfter() != null) {
+					params.setStartingAfter(cursor.getResumeAfter());
+				}
+
+				StripeCollection<PaymentIntent> page = paymentGateway.list(params.build());
+				List<PaymentIntent> intents = page.getData();
+				pages.incrementAndGet();
+				scanned.addAndGet(intents.size());
+
+				// El límite es inclusivo (gte), así que el último segundo se vuelve a leer
+				List<PaymentIntent> missing = paymentSyncDiffService.findMissing(intents);
+
+				// Una transacción por página con inserts en lote
+				if (!missing.isEmpty()) {
+					saved.addAndGet(paymentSyncService.saveAllInBatches(missing).size());
+					log.info("Synced {} missing payments", missing.size());
+				}
+
+				if (!Boolean.TRUE.equals(page.getHasMore()) || intents.isEmpty()) {
+					break;
+				}
+				// Si otro nodo tomó el lock vencido, él sigue desde el último avance guardado
+				if (!coordinationService.renewLock(DISCOVER_LOCK, Duration.ofMillis(discoverLockMs))) {
+					log.warn("Payment discovery lock lost after {} pages, stopping", pages.get());
+					return saved.get();
+				}
+				cursor.setResumeAfter(intents.get(intents.size() - 1).getId());
+				saveCursor(cursor);
+			}
+
+			// Recorrido completo: el próximo empieza en su límite superior
+			cursor.setCreatedGte(cursor.getScanUntil());
+			cursor.setScanUntil(null);
+			cursor.setResumeAfter(null);
+			saveCursor(cursor);
+			completed = true;
+			return saved.get();
+		} finally {
+			// PaymentIntents leídos de Stripe y pagos nuevos guardados en este recorrido
+			DistributionSummary.builder("payment.sync.rows.scanned").tag("stage", "discover")
+					.register(meterRegistry).record(scanned.get());
+			DistributionSummary.builder("payment.sync.rows.changed").tag("stage", "discover")
+					.register(meterRegistry).record(saved.get());
+			if (!completed) {
+				log.info("Payment discovery stopped after {} pages; the next run resumes after {}", pages.get(),
+						cursor.getResumeAfter());
+			}
+		}
+	}
+
+	// Primera ejecución: una ventana reciente, no el historial completo de la cuenta
+	private SyncCursor newCursor() {
+		SyncCursor cursor = new SyncCursor();
+		cursor.setName(PAYMENT_INTENTS_CURSOR);
+		cursor.setCreatedGte(Instant.now().minusMillis(initialLookbackMs).getEpochSecond());
+		return cursor;
+	}
+
+	private void saveCursor(SyncCursor cursor) {
+		cursor.setUpdatedAt(LocalDateTime.now());
+		syncCursorRepository.save(cursor);
+	}
+
+	private DiscoveryProgressDTO snapshot(boolean running) {
+		return new DiscoveryProgressDTO(running, discoveryStartedAt, null, pages.get(), scanned.get(), saved.get(),
+				false, null);
+	}
+
+	/**
+	 * Refresca contra Stripe solo los pagos locales en estado no final. Los pagos
+	 * {@code succeeded} o {@code canceled} no se vuelven a consultar.
+	 */
+	public int refreshOpenPayments() {
+		return refreshOpenPayments(SyncCoordinationService.Shard.ALL);
+	}
+
+	// Solo los pagos abiertos del shard de este nodo
+	public int refreshOpenPayments(SyncCoordinationService.Shard shard) {
+		List<Payment> openPayments = shard.count() == 1
+				? paymentRepository.findByStatusIn(PaymentIntentStatusEnum.openStatuses())
+				: paymentRepository.findByStatusInAndShard(PaymentIntentStatusEnum.openStatuses(), shard.count(),
+						shard.index());
+		return paymentStatusRefresher.refresh(openPayments);
+	}
+}
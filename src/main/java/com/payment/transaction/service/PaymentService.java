@@ -1,80 +1,79 @@
 package com.payment.transaction.service;
 
-import java.time.LocalDateTime;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.payment.transaction.dto.PaymentCacheStatsDTO;
 import com.payment.transaction.dto.PaymentIntentDTO;
 import com.payment.transaction.dto.PaymentRequestDTO;
-import com.payment.transaction.enums.CapturablePaymentStatusEnum;
+import com.payment.transaction.dto.PaymentView;
+import com.payment.transaction.dto.PaymentViewFilterDTO;
+import com.payment.transaction.dto.PaymentViewPageDTO;
 import com.payment.transaction.enums.PaymentIntentStatusEnum;
+import com.payment.transaction.exception.PaymentIntentStateErrors;
+import com.payment.transaction.gateway.PaymentGateway;
 import com.payment.transaction.model.Payment;
 import com.payment.transaction.repository.PaymentRepository;
-import com.stripe.Stripe;
 import com.stripe.exception.StripeException;
 import com.stripe.model.PaymentIntent;
-import com.stripe.model.PaymentIntentCollection;
+import com.stripe.net.RequestOptions;
 import com.stripe.param.PaymentIntentCreateParams;
-import com.stripe.param.PaymentIntentListParams;
 import com.stripe.param.PaymentIntentUpdateParams;
 
-import jakarta.annotation.PostConstruct;
-
 @Service
 public class PaymentService {
 
-	@Value("${STRIPE_API_KEY}")
-	private String secretKey;
-
-	@Value("${STRIPE_PUBLISHABLE_KEY}")
-	private String publishableKey;
+	private static final int MAX_DB_PAGE_SIZE = 1000;
 
 	private final PaymentRepository paymentRepository;
 	private final StripeService stripeService;
+	private final PaymentGateway paymentGateway;
+	private final PaymentSyncService paymentSyncService;
+	private final IdempotencyService idempotencyService;
+	private final PaymentIntentCache paymentIntentCache;
+	private final PaymentReadService paymentReadService;
 
 	@Autowired
-	public PaymentService(PaymentRepository paymentRepository, StripeService stripeService) {
+	public PaymentService(PaymentRepository paymentRepository, StripeService stripeService,
+			PaymentGateway paymentGateway, PaymentSyncService paymentSyncService,
+			IdempotencyService idempotencyService, PaymentIntentCache paymentIntentCache,
+			PaymentReadService paymentReadService) {
 		this.paymentRepository = paymentRepository;
 		this.stripeService = stripeService;
-	}
-
-	// Se ejecuta después de construir la instancia
-	@PostConstruct
-	public void init() {
-		Stripe.apiKey = secretKey;
+		this.paymentGateway = paymentGateway;
+		this.paymentSyncService = paymentSyncService;
+		this.idempotencyService = idempotencyService;
+		this.paymentIntentCache = paymentIntentCache;
+		this.paymentReadService = paymentReadService;
 	}
 
 	public PaymentIntentDTO createPaymentIntent(PaymentRequestDTO request) throws StripeException {
-		try {
-
-			// Convertir el monto de USD a centavos (multiplicar por 100)
-			// Stripe usa centavos
-			long amountInCents = (long) (request.getAmount() * 100);
+		return createPaymentIntent(request, null);
+	}
 
-			// Setear el pago
-			PaymentIntentCreateParams params = PaymentIntentCreateParams.builder().setAmount(amountInCents)
-					.setCurrency(request.getCurrency())
-					.setAutomaticPaymentMethods(PaymentIntentCreateParams.AutomaticPaymentMethods.builder()
-							.setEnabled(true)
-							.setAllowRedirects(PaymentIntentCreateParams.AutomaticPaymentMethods.AllowRedirects.NEVER)
-							.build())
-					.build();
+	// Con Idempotency-Key, un reintento devuelve el mismo PaymentIntent sin crear otro
+	public PaymentIntentDTO createPaymentIntent(PaymentRequestDTO request, String idempotencyKey)
+			throws StripeException {
+		return idempotencyService.execute("create", idempotencyKey, request, PaymentIntentDTO.class,
+				() -> doCreatePaymentIntent(request, IdempotencyService.requestOptions(idempotencyKey)));
+	}
 
-			PaymentIntent paymentIntent = PaymentIntent.create(params);
+	private PaymentIntentDTO doCreatePaymentIntent(PaymentRequestDTO request, RequestOptions options)
+			throws StripeException {
+		try {
 
-			// Guardar la transacción en la base de datos
-			Payment transaction = new Payment();
-			transaction.setPaymentIntentId(paymentIntent.getId());
-			transaction.setStatus(paymentIntent.getStatus());
-			transaction.setAmount(paymentIntent.getAmount());
-			transaction.setCurrency(paymentIntent.getCurrency());
-			transaction.setCreatedAt(LocalDateTime.now());
+			PaymentIntent paymentIntent = paymentGateway.create(createParams(request, true), options);
 
-			paymentRepository.save(transaction);
+			// Guardar la transacción en la base de datos; si Stripe devolvió un intent
+			// ya registrado (reintento con la misma clave) se actualiza la misma fila
+			paymentSyncService.syncPaymentStatus(paymentIntent);
 
 			return new PaymentIntentDTO(paymentIntent.getId(), paymentIntent.getAmount(), paymentIntent.getCurrency(),
 					paymentIntent.getStatus(), paymentIntent.getClientSecret());
@@ -84,25 +83,64 @@ public class PaymentService {
 		}
 	}
 
-	public PaymentIntentDTO capturePaymentIntent(String paymentIntentId) throws StripeException {
-		try {
-			PaymentIntent paymentIntent = PaymentIntent.retrieve(paymentIntentId);
+	// Parámetros del create; los comparte el pago automatizado (AutomatedPaymentSteps)
+	static PaymentIntentCreateParams createParams(PaymentRequestDTO request, boolean autoCapture) {
+		// Convertir el monto de USD a centavos (multiplicar por 100)
+		// Stripe usa centavos
+		long amountInCents = (long) (request.getAmount() * 100);
+
+		return withCapture(PaymentIntentCreateParams.builder().setAmount(amountInCents)
+				.setCurrency(request.getCurrency())
+				.setAutomaticPaymentMethods(PaymentIntentCreateParams.AutomaticPaymentMethods.builder()
+						.setEnabled(true)
+						.setAllowRedirects(PaymentIntentCreateParams.AutomaticPaymentMethods.AllowRedirects.NEVER)
+						.build()), autoCapture)
+				.build();
+	}
 
-			if (paymentIntent == null || paymentIntent.getId() == null) {
-				throw new IllegalArgumentException("PaymentIntent not found with ID: " + paymentIntentId);
-			}
+	static PaymentIntentCreateParams createAndConfirmParams(PaymentRequestDTO request, String paymentMethodId,
+			boolean autoCapture) {
+		long amountInCents = (long) (request.getAmount() * 100);
+
+		return withCapture(PaymentIntentCreateParams.builder().setAmount(amountInCents)
+				.setCurrency(request.getCurrency())
+				.setPaymentMethod(paymentMethodId)
+				.setConfirm(true)
+				.setAutomaticPaymentMethods(PaymentIntentCreateParams.AutomaticPaymentMethods.builder()
+						.setEnabled(true)
+						.setAllowRedirects(PaymentIntentCreateParams.AutomaticPaymentMethods.AllowRedirects.NEVER)
+						.build()), autoCapture)
+				.build();
+	}
 
-			String status = paymentIntent.getStatus();
+	// Los dos modos del flujo automatizado usan la misma captura: sin autoCapture el intent
+	// queda autorizado en requires_capture; con autoCapture se deja la captura por defecto de Stripe
+	private static PaymentIntentCreateParams.Builder withCapture(PaymentIntentCreateParams.Builder builder,
+			boolean autoCapture) {
+		return autoCapture ? builder : builder.setCaptureMethod(PaymentIntentCreateParams.CaptureMethod.MANUAL);
+	}
 
-			if (!CapturablePaymentStatusEnum.isCapturable(status)) {
-				throw new IllegalArgumentException("Cannot capture payment with status: " + status);
-			}
+	// Captura directamente y deja que Stripe valide el estado (sin retrieve previo)
+	public PaymentIntentDTO capturePaymentIntent(String paymentIntentId) throws StripeException {
+		return capturePaymentIntent(paymentIntentId, null);
+	}
 
-			PaymentIntent capturedIntent = paymentIntent.capture();
+	public PaymentIntentDTO capturePaymentIntent(String paymentIntentId, String idempotencyKey)
+			throws StripeException {
+		return idempotencyService.execute("capture", idempotencyKey, paymentIntentId, PaymentIntentDTO.class,
+				() -> doCapturePaymentIntent(paymentIntentId, IdempotencyService.requestOptions(idempotencyKey)));
+	}
+
+	private PaymentIntentDTO doCapturePaymentIntent(String paymentIntentId, RequestOptions options)
+			throws StripeException {
+		try {
+			PaymentIntent capturedIntent = paymentGateway.capture(paymentIntentId, options);
+			paymentSyncService.syncPaymentStatus(capturedIntent);
 
 			return new PaymentIntentDTO(capturedIntent.getId(), capturedIntent.getAmount(),
 					capturedIntent.getCurrency(), capturedIntent.getStatus(), capturedIntent.getClientSecret());
 		} catch (StripeException e) {
+			PaymentIntentStateErrors.rethrowIfUnexpectedState(e, "Cannot capture payment with status: ");
 			throw e;
 		}
 	}
@@ -110,17 +148,6 @@ public class PaymentService {
 	public PaymentIntentDTO updatePaymentIntent(String paymentIntentId, PaymentRequestDTO request)
 			throws StripeException {
 		try {
-			// Recuperar el PaymentIntent
-			PaymentIntent paymentIntent = PaymentIntent.retrieve(paymentIntentId);
-
-			if (paymentIntent == null || paymentIntent.getId() == null) {
-				throw new IllegalArgumentException("Payment not found with ID: " + paymentIntentId);
-			}
-			if (!PaymentIntentStatusEnum.isUpdatable(paymentIntent.getStatus())) {
-				throw new IllegalArgumentException(
-						"Cannot update amount of payment intent with status: " + paymentIntent.getStatus());
-			}
-
 			// Convertir el monto de USD a centavos (multiplicar por 100)
 			// Stripe usa centavos
 			long amountInCents = (long) (request.getAmount() * 100);
@@ -128,87 +155,52 @@ public class PaymentService {
 			// Actualizar el pago
 			PaymentIntentUpdateParams params = PaymentIntentUpdateParams.builder().setAmount(amountInCents).build();
 
-			PaymentIntent updatedPaymentIntent = paymentIntent.update(params);
+			PaymentIntent updatedPaymentIntent = paymentGateway.update(paymentIntentId, params);
+			// Se guarda el nuevo monto localmente; como el estado no cambia, la
+			// sincronización no invalida la caché de lectura
+			paymentSyncService.syncPaymentStatus(updatedPaymentIntent);
+			paymentIntentCache.invalidate(paymentIntentId);
 
 			return new PaymentIntentDTO(updatedPaymentIntent.getId(), updatedPaymentIntent.getAmount(),
 					updatedPaymentIntent.getCurrency(), updatedPaymentIntent.getStatus(),
 					updatedPaymentIntent.getClientSecret());
 
 		} catch (StripeException e) {
+			PaymentIntentStateErrors.rethrowIfUnexpectedState(e,
+					"Cannot update amount of payment intent with status: ");
 			throw e;
 		}
 	}
 
 	public boolean cancelPaymentIntent(String paymentIntentId) throws StripeException {
 		try {
-			// Recuperar el PaymentIntent
-			PaymentIntent paymentIntent = PaymentIntent.retrieve(paymentIntentId);
-
-			if (paymentIntent == null || paymentIntent.getId() == null) {
-				throw new IllegalArgumentException("Payment not found with ID: " + paymentIntentId);
-			}
-
-			if (!PaymentIntentStatusEnum.isCancellable(paymentIntent.getStatus())) {
-				throw new IllegalArgumentException(
-						"Cannot cancel payment intent with status: " + paymentIntent.getStatus());
-			}
-
-			// Verificar si el PaymentIntent ya fue completado
-			if ("succeeded".equals(paymentIntent.getStatus()) || "failed".equals(paymentIntent.getStatus())) {
-				throw new IllegalStateException("Cannot cancel a Payment that has already been completed.");
-			}
-
-			// Cancelar el PaymentIntent
-			paymentIntent.cancel();
+			// Cancelar el PaymentIntent; Stripe rechaza los que ya están finalizados
+			PaymentIntent cancelledIntent = paymentGateway.cancel(paymentIntentId);
+			paymentSyncService.syncPaymentStatus(cancelledIntent);
 
 			return true; // Indicar que se canceló con éxito
 
 		} catch (StripeException e) {
+			PaymentIntentStateErrors.rethrowIfUnexpectedState(e, "Cannot cancel payment intent with status: ");
 			throw e;
 		}
 	}
 
+	// Según payment.read.strategy: base local primero, solo Stripe o solo base local
 	public List<PaymentIntentDTO> getAllPayments(int limit, String startingAfter) throws StripeException {
-		try {
-			PaymentIntentListParams.Builder paramsBuilder = PaymentIntentListParams.builder().setLimit((long) limit);
-
-			if (startingAfter != null && !startingAfter.isBlank()) {
-				paramsBuilder.setStartingAfter(startingAfter);
-			}
-
-			PaymentIntentCollection paymentIntents = PaymentIntent.list(paramsBuilder.build());
-
-			return paymentIntents.getData().stream().map(pi -> new PaymentIntentDTO(pi.getId(), pi.getAmount(),
-					pi.getCurrency(), pi.getStatus(), pi.getClientSecret())).toList();
-		} catch (StripeException e) {
-			// Lanza el error original para que sea manejado por el GlobalExceptionHandler
-			throw e;
-		}
-
+		return paymentReadService.getPayments(limit, startingAfter);
 	}
 
 	public PaymentIntentDTO getPaymentStatusById(String paymentIntentId) throws StripeException {
-		try {
-			PaymentIntent paymentIntent = PaymentIntent.retrieve(paymentIntentId);
-
-			if (paymentIntent == null || paymentIntent.getId() == null) {
-				throw new IllegalArgumentException("Payment not found with ID: " + paymentIntentId);
-			}
-
-			return new PaymentIntentDTO(paymentIntent.getId(), paymentIntent.getAmount(), paymentIntent.getCurrency(),
-					paymentIntent.getStatus(), paymentIntent.getClientSecret());
-		} catch (StripeException e) {
-			// Lanza el error original para que sea manejado por el GlobalExceptionHandler
-			throw e;
-		}
+		return paymentReadService.getPayment(paymentIntentId);
 	}
 
 	public PaymentIntentDTO createPayment(PaymentIntentDTO paymentIntentDTO) throws StripeException {
 		// Create payment in Stripe
-		PaymentIntent paymentIntent = PaymentIntent.create(Map.of(
-			"amount", paymentIntentDTO.getAmount(),
-			"currency", paymentIntentDTO.getCurrency()
-		));
+		PaymentIntent paymentIntent = paymentGateway.create(PaymentIntentCreateParams.builder()
+			.setAmount((long) paymentIntentDTO.getAmount())
+			.setCurrency(paymentIntentDTO.getCurrency())
+			.build());
 
 		// Convert to DTO
 		PaymentIntentDTO createdPayment = stripeService.convertToDTO(paymentIntent);
@@ -218,31 +210,61 @@ public class PaymentService {
 		payment.setPaymentIntentId(createdPayment.getId());
 		payment.setAmount((long) createdPayment.getAmount());
 		payment.setCurrency(createdPayment.getCurrency());
-		payment.setStatus(createdPayment.getStatus());
+		payment.setStatus(PaymentIntentStatusEnum.fromStatus(createdPayment.getStatus()));
 		paymentRepository.save(payment);
 
 		return createdPayment;
 	}
 
 	public PaymentIntentDTO getPayment(String paymentIntentId) throws StripeException {
-		// Get from Stripe
-		PaymentIntent paymentIntent = PaymentIntent.retrieve(paymentIntentId);
-		return stripeService.convertToDTO(paymentIntent);
+		// Local database or Stripe, per payment.read.strategy; this endpoint does not expose the client secret
+		PaymentIntentDTO payment = paymentReadService.getPayment(paymentIntentId);
+		return new PaymentIntentDTO(payment.getId(), payment.getAmount(), payment.getCurrency(), payment.getStatus(),
+				null);
+	}
+
+	public PaymentCacheStatsDTO getCacheStats() {
+		return paymentIntentCache.getStats();
+	}
+
+	// Página de pagos locales por keyset (id > afterId), sin entidades administradas
+	public PaymentViewPageDTO getPaymentViews(PaymentViewFilterDTO filter, long afterId, int limit) {
+		int pageSize = Math.min(Math.max(limit, 1), MAX_DB_PAGE_SIZE);
+		List<PaymentView> items = paymentRepository.findViewsAfter(afterId, statusOf(filter), filter.getCurrency(),
+				filter.getCreatedFrom(), filter.getCreatedTo(), PageRequest.of(0, pageSize));
+
+		Long nextCursor = items.size() == pageSize ? items.get(items.size() - 1).getId() : null;
+		return new PaymentViewPageDTO(items, nextCursor);
+	}
+
+	// Recorre todos los pagos que cumplen el filtro en memoria constante
+	@Transactional(readOnly = true)
+	public long exportPaymentViews(PaymentViewFilterDTO filter, long afterId, Consumer<PaymentView> consumer) {
+		try (Stream<PaymentView> views = paymentRepository.streamViewsAfter(afterId, statusOf(filter),
+				filter.getCurrency(), filter.getCreatedFrom(), filter.getCreatedTo())) {
+			long exported = 0;
+			Iterator<PaymentView> iterator = views.iterator();
+			while (iterator.hasNext()) {
+				consumer.accept(iterator.next());
+				exported++;
+			}
+			return exported;
+		}
 	}
 
-	public List<Payment> getAllPaymentsFromDb() {
-		return paymentRepository.findAll();
+	// Un estado desconocido en el filtro responde 400 en lugar de devolver una página vacía
+	private static PaymentIntentStatusEnum statusOf(PaymentViewFilterDTO filter) {
+		return PaymentIntentStatusEnum.fromStatus(filter.getStatus());
 	}
 
 	public PaymentIntentDTO cancelPayment(String paymentIntentId) throws StripeException {
 		// Cancel in Stripe
-		PaymentIntent paymentIntent = PaymentIntent.retrieve(paymentIntentId);
-		PaymentIntent cancelledPayment = paymentIntent.cancel();
+		PaymentIntent cancelledPayment = paymentGateway.cancel(paymentIntentId);
 
 		// Update in database
 		Payment payment = paymentRepository.findByPaymentIntentId(paymentIntentId)
 			.orElseThrow(() -> new RuntimeException("Payment not found in database"));
-		payment.setStatus(cancelledPayment.getStatus());
+		payment.setStatus(PaymentIntentStatusEnum.fromStatus(cancelledPayment.getStatus()));
 		paymentRepository.save(payment);
 
 		return stripeService.convertToDTO(cancelledPayment);
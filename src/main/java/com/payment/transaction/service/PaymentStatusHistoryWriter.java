@@ -0,0 +1,198 @@
+package com.payment.transaction.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.payment.transaction.model.PaymentStatusHistory;
+import com.payment.transaction.repository.PaymentStatusHistoryRepository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Escritura del historial de estados de pago.
+ * <p>
+ * Por defecto cada entrada se inserta en la transacción de
+ * {@link PaymentSyncService}. Con {@code payment.history.write-behind.enabled}
+ * las entradas se encolan en un buffer acotado después del commit del pago y
+ * un hilo de fondo las inserta en lotes, así que el request no espera el
+ * insert del historial. Si el buffer está lleno el llamador espera hasta
+ * {@code offer-timeout-ms} y, si sigue lleno, escribe la entrada él mismo: no
+ * se pierden entradas. Al detener la aplicación se vacía el buffer. Las
+ * entradas pendientes se exponen en {@code payment.history.buffer.size}.
+ * <p>
+ * Las entradas que vienen de un webhook se escriben siempre en la misma
+ * transacción, porque su {@code stripe_event_id} es la clave que evita aplicar
+ * dos veces el mismo evento.
+ */
+@Component
+@Slf4j
+public class PaymentStatusHistoryWriter {
+
+	// Espera máxima de cada poll: el hilo nota la parada sin esperar el intervalo completo
+	private static final long POLL_SLICE_MS = 100;
+
+	private final PaymentStatusHistoryRepository statusHistoryRepository;
+	private final TransactionTemplate requiresNewTransaction;
+	private final boolean writeBehind;
+	private final BlockingQueue<PaymentStatusHistory> buffer;
+	private final int batchSize;
+	private final long flushIntervalMs;
+	private final long offerTimeoutMs;
+
+	private volatile boolean running;
+	private Thread writerThread;
+
+	public PaymentStatusHistoryWriter(PaymentStatusHistoryRepository statusHistoryRepository,
+			PlatformTransactionManager transactionManager,
+			@Value("${payment.history.write-behind.enabled:false}") boolean writeBehind,
+			@Value("${payment.history.write-behind.buffer-capacity:10000}") int bufferCapacity,
+			@Value("${payment.history.write-behind.batch-size:100}") int batchSize,
+			@Value("${payment.history.write-behind.flush-interval-ms:200}") long flushIntervalMs,
+			@Value("${payment.history.write-behind.offer-timeout-ms:50}") long offerTimeoutMs,
+			MeterRegistry meterRegistry) {
+		this.statusHistoryRepository = statusHistoryRepository;
+		// Transacción propia: se escribe desde afterCommit o desde el hilo de fondo
+		this.requiresNewTransaction = new TransactionTemplate(transactionManager);
+		this.requiresNewTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		this.writeBehind = writeBehind;
+		this.buffer = new ArrayBlockingQueue<>(bufferCapacity);
+		this.batchSize = batchSize;
+		this.flushIntervalMs = flushIntervalMs;
+		this.offerTimeoutMs = offerTimeoutMs;
+		Gauge.builder("payment.history.buffer.size", buffer, BlockingQueue::size).register(meterRegistry);
+	}
+
+	@PostConstruct
+	public void start() {
+		if (!writeBehind) {
+			return;
+		}
+		running = true;
+		writerThread = new Thread(this::drainLoop, "payment-history-writer");
+		writerThread.setDaemon(true);
+		writerThread.start();
+	}
+
+	@PreDestroy
+	public void stop() throws InterruptedException {
+		if (writerThread == null) {
+			return;
+		}
+		running = false;
+		writerThread.join(TimeUnit.SECONDS.toMillis(30));
+		// Entradas encoladas mientras el hilo terminaba
+		List<PaymentStatusHistory> remaining = new ArrayList<>();
+		buffer.drainTo(remaining);
+		if (!remaining.isEmpty()) {
+			writeBatch(remaining);
+		}
+		log.info("Payment history writer stopped");
+	}
+
+	public void record(PaymentStatusHistory history) {
+		if (!running || history.getStripeEventId() != null) {
+			statusHistoryRepository.save(history);
+			return;
+		}
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			// Se encola solo si el pago se confirma; así el hilo de fondo nunca ve un pago sin commit
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					enqueue(history);
+				}
+			});
+		} else {
+			enqueue(history);
+		}
+	}
+
+	public int size() {
+		return buffer.size();
+	}
+
+	private void enqueue(PaymentStatusHistory history) {
+		try {
+			if (running && buffer.offer(history, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+				return;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		// Buffer lleno o writer detenido: contrapresión sobre el llamador
+		log.debug("Payment history buffer full, writing entry for payment {} inline", history.getPayment().getId());
+		requiresNewTransaction.executeWithoutResult(status -> statusHistoryRepository.save(history));
+	}
+
+	private void drainLoop() {
+		List<PaymentStatusHistory> batch = new ArrayList<>(batchSize);
+		// Al detenerse se termina de vaciar el buffer antes de salir
+		while (running || !buffer.isEmpty()) {
+			try {
+				PaymentStatusHistory first = buffer.poll(POLL_SLICE_MS, TimeUnit.MILLISECONDS);
+				if (first == null) {
+					continue;
+				}
+				batch.add(first);
+				fillBatch(batch);
+				writeBatch(batch);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} finally {
+				batch.clear();
+			}
+		}
+	}
+
+	// Junta entradas hasta completar el lote o cumplir el intervalo desde la primera
+	private void fillBatch(List<PaymentStatusHistory> batch) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+		while (batch.size() < batchSize) {
+			buffer.drainTo(batch, batchSize - batch.size());
+			long remaining = deadline - System.nanoTime();
+			if (batch.size() >= batchSize || remaining <= 0 || !running) {
+				return;
+			}
+			PaymentStatusHistory next = buffer.poll(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(POLL_SLICE_MS)),
+					TimeUnit.NANOSECONDS);
+			if (next != null) {
+				batch.add(next);
+			}
+		}
+	}
+
+	private void writeBatch(List<PaymentStatusHistory> batch) {
+		try {
+			requiresNewTransaction.executeWithoutResult(status -> statusHistoryRepository.saveAll(batch));
+		} catch (RuntimeException e) {
+			// Si falla el lote se reintenta entrada por entrada para aislar la fallida
+			log.warn("Error writing payment history batch of {} entries, retrying one by one: {}", batch.size(),
+					e.getMessage());
+			for (PaymentStatusHistory history : batch) {
+				try {
+					history.setId(null);
+					requiresNewTransaction.executeWithoutResult(status -> statusHistoryRepository.save(history));
+				} catch (RuntimeException ex) {
+					log.error("Error writing history entry for payment {}: {}", history.getPayment().getId(),
+							ex.getMessage());
+				}
+			}
+		}
+	}
+}
@@ -1,75 +1,66 @@
 package com.payment.transaction.service;
 
-import java.util.List;
-import java.util.Map;
-
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import com.payment.transaction.dto.PaymentIntentDTO;
-import com.payment.transaction.model.Payment;
-import com.payment.transaction.repository.PaymentRepository;
-import com.stripe.exception.StripeException;
-import com.stripe.model.PaymentIntent;
-import com.stripe.model.PaymentIntentCollection;
-
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 @Service
+@ConditionalOnProperty(name = "payment.sync.enabled", havingValue = "true", matchIfMissing = true)
 @RequiredArgsConstructor
 @Slf4j
 public class PaymentStatusPollingService {
 
-    private final PaymentRepository paymentRepository;
-    private final PaymentSyncService paymentSyncService;
-    private final StripeService stripeService;
-    private final PaymentService paymentService;
+    private final PaymentReconciliationService reconciliationService;
+    private final SyncCoordinationService coordinationService;
+    private final MeterRegistry meterRegistry;
+    private final CircuitBreaker stripeCircuitBreaker;
 
-    // Verifica cada 30 segundos los pagos pendientes
-    @Scheduled(fixedRate = 30000)
+    // Verifica cada 30 segundos (desde el fin de la ejecución anterior) los pagos pendientes
+    @Scheduled(fixedDelayString = "${payment.sync.interval-ms:30000}")
     public void syncPayments() {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        String exception = "none";
         try {
-            // 1. Sincronizar pagos faltantes
-            syncMissingPayments();
-            
-            // 2. Verificar estados de pagos pendientes
-            List<Payment> pendingPayments = paymentService.getAllPaymentsFromDb();
-            for (Payment payment : pendingPayments) {
-                try {
-                    PaymentIntent paymentIntent = PaymentIntent.retrieve(payment.getPaymentIntentId());
-                    paymentSyncService.syncPaymentStatus(paymentIntent);
-                } catch (StripeException e) {
-                    log.error("Error syncing payment {}: {}", payment.getPaymentIntentId(), e.getMessage());
-                }
+            // 1. Heartbeat del nodo y porción de pagos abiertos que le toca
+            SyncCoordinationService.Shard shard = coordinationService.heartbeat();
+
+            // Con Stripe caído no se dispara una llamada (y un error) por pago: se espera al próximo tick
+            if (isProviderDown()) {
+                outcome = "skipped";
+                log.warn("Stripe circuit breaker is {}, skipping payment sync tick", stripeCircuitBreaker.getState());
+                return;
             }
+
+            // 2. Sincronizar pagos nuevos desde el último cursor (un solo nodo a la vez)
+            int discovered = reconciliationService.discoverNewPayments();
+
+            // 3. Verificar estados de pagos no finales del shard
+            int refreshed = reconciliationService.refreshOpenPayments(shard);
+
+            log.debug("Payment sync tick finished on shard {}/{}: {} discovered, {} refreshed", shard.index(),
+                    shard.count(), discovered, refreshed);
         } catch (Exception e) {
+            outcome = "error";
+            exception = e.getClass().getSimpleName();
             log.error("Error in payment sync job: {}", e.getMessage());
+        } finally {
+            // Duración del tick completo; los errores quedan contados por outcome y no solo en el log
+            sample.stop(Timer.builder("payment.sync.tick")
+                    .tag("outcome", outcome)
+                    .tag("exception", exception)
+                    .register(meterRegistry));
         }
     }
 
-    private void syncMissingPayments() throws StripeException {
-        // Get all payments from Stripe
-        PaymentIntentCollection paymentIntents = PaymentIntent.list(Map.of("limit", 100));
-        List<PaymentIntent> stripePayments = paymentIntents.getData();
-
-        // Get all payments from database
-        List<Payment> dbPayments = paymentService.getAllPaymentsFromDb();
-        List<String> dbPaymentIds = dbPayments.stream()
-            .map(Payment::getPaymentIntentId)
-            .toList();
-
-        // Find and save missing payments
-        for (PaymentIntent stripePayment : stripePayments) {
-            if (!dbPaymentIds.contains(stripePayment.getId())) {
-                Payment newPayment = new Payment();
-                newPayment.setPaymentIntentId(stripePayment.getId());
-                newPayment.setAmount(stripePayment.getAmount());
-                newPayment.setCurrency(stripePayment.getCurrency());
-                newPayment.setStatus(stripePayment.getStatus());
-                paymentService.savePayment(newPayment);
-                log.info("Synced missing payment: {}", stripePayment.getId());
-            }
-        }
+    private boolean isProviderDown() {
+        CircuitBreaker.State state = stripeCircuitBreaker.getState();
+        return state == CircuitBreaker.State.OPEN || state == CircuitBreaker.State.FORCED_OPEN;
     }
-} 
\ No newline at end of file
+}
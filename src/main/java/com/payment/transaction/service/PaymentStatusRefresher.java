@@ -0,0 +1,246 @@
+package com.payment.transaction.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+
+import com.payment.transaction.dto.RefreshProgressDTO;
+import com.payment.transaction.exception.PaymentProviderUnavailableException;
+import com.payment.transaction.gateway.PaymentGateway;
+import com.payment.transaction.model.Payment;
+import com.stripe.exception.RateLimitException;
+import com.stripe.exception.StripeException;
+import com.stripe.model.PaymentIntent;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Etapa de refresco de pagos abiertos: reparte los {@code retrieve} contra
+ * Stripe en el executor {@code paymentRefreshExecutor}, que limita cuántas
+ * llamadas hay en vuelo a la vez. Con
+ * {@code spring.threads.virtual.enabled=true} (Java 21) cada llamada corre en
+ * un hilo virtual.
+ * <p>
+ * Cada llamada toma un permiso del token bucket {@code stripeReadRateLimiter}.
+ * Ante un 429 se pausa el limitador según {@code Retry-After} (o con backoff
+ * exponencial) y se reintenta. Un tick nunca envía llamadas después de su
+ * presupuesto de tiempo; los pagos pendientes se retoman en el próximo tick a
+ * partir del último id refrescado, para que ninguno quede sin atender.
+ * <p>
+ * Cada tick registra los pagos revisados y los que cambiaron de estado en
+ * {@code payment.sync.rows.scanned} y {@code payment.sync.rows.changed}
+ * ({@code stage=refresh}); las llamadas en vuelo se exponen en el gauge
+ * {@code payment.sync.refresh.in-flight}.
+ * <p>
+ * Usa el gateway de fondo ({@code backgroundPaymentGateway}). Si el circuit
+ * breaker de Stripe se abre a mitad del tick, no se envían más llamadas y los
+ * pagos que faltan cuentan como diferidos.
+ */
+@Service
+@Slf4j
+public class PaymentStatusRefresher {
+
+	private static final Duration MAX_BACKOFF = Duration.ofSeconds(30);
+
+	private final PaymentGateway paymentGateway;
+	private final PaymentSyncService paymentSyncService;
+	private final TaskExecutor refreshExecutor;
+	private final TokenBucketRateLimiter rateLimiter;
+	private final DistributionSummary scannedRows;
+	private final DistributionSummary changedRows;
+
+	@Value("${payment.sync.refresh-budget-ms:25000}")
+	private long refreshBudgetMs;
+
+	@Value("${payment.sync.rate-limit-retries:3}")
+	private int rateLimitRetries;
+
+	@Value("${payment.sync.progress-log-every:500}")
+	private int progressLogEvery;
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicInteger maxInFlight = new AtomicInteger();
+	private final AtomicInteger completed = new AtomicInteger();
+	private final AtomicInteger changed = new AtomicInteger();
+	private final AtomicInteger failed = new AtomicInteger();
+	private final AtomicInteger rateLimited = new AtomicInteger();
+	private final AtomicInteger skipped = new AtomicInteger();
+	private final AtomicBoolean providerUnavailable = new AtomicBoolean();
+
+	private volatile RefreshProgressDTO lastProgress = new RefreshProgressDTO();
+	private volatile boolean running;
+	private volatile LocalDateTime startedAt;
+	private volatile int total;
+	private volatile long lastRefreshedId;
+
+	public PaymentStatusRefresher(@Qualifier("backgroundPaymentGateway") PaymentGateway paymentGateway,
+			PaymentSyncService paymentSyncService,
+			@Qualifier("paymentRefreshExecutor") TaskExecutor refreshExecutor,
+			@Qualifier("stripeReadRateLimiter") TokenBucketRateLimiter rateLimiter, MeterRegistry meterRegistry) {
+		this.paymentGateway = paymentGateway;
+		this.paymentSyncService = paymentSyncService;
+		this.refreshExecutor = refreshExecutor;
+		this.rateLimiter = rateLimiter;
+		this.scannedRows = DistributionSummary.builder("payment.sync.rows.scanned").tag("stage", "refresh")
+				.register(meterRegistry);
+		this.changedRows = DistributionSummary.builder("payment.sync.rows.changed").tag("stage", "refresh")
+				.register(meterRegistry);
+		Gauge.builder("payment.sync.refresh.in-flight", inFlight, AtomicInteger::get).register(meterRegistry);
+	}
+
+	/**
+	 * Refresca los pagos recibidos dentro del presupuesto de tiempo del tick y
+	 * espera a que terminen. Devuelve la cantidad de pagos refrescados sin error.
+	 */
+	public int refresh(List<Payment> payments) {
+		startTick(payments.size());
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(refreshBudgetMs);
+
+		List<CompletableFuture<Void>> tasks = new ArrayList<>(payments.size());
+		int deferred = 0;
+		List<Payment> ordered = rotate(payments);
+
+		for (int i = 0; i < ordered.size(); i++) {
+			// Sin tiempo o con Stripe no disponible, el resto queda para el próximo tick
+			if (System.nanoTime() - deadline > 0 || providerUnavailable.get()) {
+				deferred = ordered.size() - i;
+				break;
+			}
+			Payment payment = ordered.get(i);
+			tasks.add(CompletableFuture.runAsync(() -> refreshOne(payment), refreshExecutor));
+			lastRefreshedId = payment.getId();
+		}
+		CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new)).join();
+
+		RefreshProgressDTO progress = snapshot(deferred);
+		progress.setFinishedAt(LocalDateTime.now());
+		lastProgress = progress;
+		running = false;
+		scannedRows.record(progress.getCompleted() + progress.getFailed());
+		changedRows.record(progress.getChanged());
+		log.info("Refresh tick finished: {}/{} refreshed ({} changed), {} failed, {} rate limited, {} deferred, "
+				+ "max {} in flight", progress.getCompleted(), progress.getTotal(), progress.getChanged(),
+				progress.getFailed(), progress.getRateLimited(), progress.getDeferred(), progress.getMaxInFlight());
+		return progress.getCompleted();
+	}
+
+	// Avance del tick en curso, o el resultado del último si no hay uno en curso
+	public RefreshProgressDTO getProgress() {
+		return running ? snapshot(0) : lastProgress;
+	}
+
+	// Máximo de llamadas simultáneas a Stripe observado en el último refresco
+	public int getMaxInFlight() {
+		return maxInFlight.get();
+	}
+
+	private void refreshOne(Payment payment) {
+		maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+		try {
+			PaymentIntent paymentIntent = retrieveWithBackoff(payment.getPaymentIntentId());
+			Payment synced = paymentSyncService.syncPaymentStatus(paymentIntent);
+			if (synced.getStatus() != payment.getStatus()) {
+				changed.incrementAndGet();
+			}
+			int done = completed.incrementAndGet();
+			if (progressLogEvery > 0 && done % progressLogEvery == 0) {
+				log.info("Refresh progress: {}/{} payments", done, total);
+			}
+		} catch (StripeException e) {
+			failed.incrementAndGet();
+			log.error("Error syncing payment {}: {}", payment.getPaymentIntentId(), e.getMessage());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			failed.incrementAndGet();
+		} catch (PaymentProviderUnavailableException e) {
+			skipped.incrementAndGet();
+			if (providerUnavailable.compareAndSet(false, true)) {
+				log.warn("Stripe unavailable, deferring the rest of the refresh tick: {}", e.getMessage());
+			}
+		} catch (RuntimeException e) {
+			failed.incrementAndGet();
+			log.error("Error saving payment {}: {}", payment.getPaymentIntentId(), e.getMessage());
+		} finally {
+			inFlight.decrementAndGet();
+		}
+	}
+
+	private PaymentIntent retrieveWithBackoff(String paymentIntentId) throws StripeException, InterruptedException {
+		for (int attempt = 0;; attempt++) {
+			rateLimiter.acquire();
+			try {
+				return paymentGateway.retrieve(paymentIntentId);
+			} catch (RateLimitException e) {
+				rateLimited.incrementAndGet();
+				if (attempt >= rateLimitRetries) {
+					throw e;
+				}
+				Duration backoff = backoffFor(e, attempt);
+				log.warn("Stripe rate limit hit, pausing refresh for {} ms", backoff.toMillis());
+				rateLimiter.pauseFor(backoff);
+			}
+		}
+	}
+
+	// Retry-After si Stripe lo envía; si no, backoff exponencial con jitter
+	private static Duration backoffFor(RateLimitException e, int attempt) {
+		if (e.getStripeError() != null && e.getStripeError().getLastResponse() != null) {
+			String retryAfter = e.getStripeError().getLastResponse().headers().firstValue("Retry-After").orElse(null);
+			if (retryAfter != null) {
+				try {
+					return Duration.ofSeconds(Long.parseLong(retryAfter.trim()));
+				} catch (NumberFormatException ignored) {
+					// Formato fecha HTTP: se usa el backoff exponencial
+				}
+			}
+		}
+		long baseMs = Math.min(MAX_BACKOFF.toMillis(), 500L << Math.min(attempt, 10));
+		return Duration.ofMillis(baseMs / 2 + ThreadLocalRandom.current().nextLong(baseMs / 2 + 1));
+	}
+
+	// Ordena por id y empieza después del último pago refrescado en el tick anterior
+	private List<Payment> rotate(List<Payment> payments) {
+		List<Payment> sorted = new ArrayList<>(payments);
+		sorted.sort(Comparator.comparing(Payment::getId));
+		int start = 0;
+		while (start < sorted.size() && sorted.get(start).getId() <= lastRefreshedId) {
+			start++;
+		}
+		List<Payment> rotated = new ArrayList<>(sorted.subList(start, sorted.size()));
+		rotated.addAll(sorted.subList(0, start));
+		return rotated;
+	}
+
+	private void startTick(int size) {
+		total = size;
+		completed.set(0);
+		changed.set(0);
+		failed.set(0);
+		rateLimited.set(0);
+		skipped.set(0);
+		providerUnavailable.set(false);
+		maxInFlight.set(0);
+		startedAt = LocalDateTime.now();
+		running = true;
+	}
+
+	private RefreshProgressDTO snapshot(int deferred) {
+		return new RefreshProgressDTO(startedAt, null, total, completed.get(), changed.get(), failed.get(),
+				rateLimited.get(), deferred + skipped.get(), maxInFlight.get());
+	}
+}
@@ -0,0 +1,35 @@
+package com.payment.transaction.service;
+
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.stereotype.Service;
+
+import com.payment.transaction.repository.PaymentRepository;
+import com.stripe.model.PaymentIntent;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Calcula qué PaymentIntents de una página de Stripe faltan en la base local.
+ * Solo se consulta a la base por los ids de la página (una consulta
+ * {@code IN}) y la comparación se hace contra un {@link Set}, por lo que el
+ * costo por página no depende del tamaño de la tabla {@code payments}.
+ */
+@Service
+@RequiredArgsConstructor
+public class PaymentSyncDiffService {
+
+	private final PaymentRepository paymentRepository;
+
+	public List<PaymentIntent> findMissing(List<PaymentIntent> stripePage) {
+		if (stripePage.isEmpty()) {
+			return List.of();
+		}
+
+		List<String> candidateIds = stripePage.stream().map(PaymentIntent::getId).toList();
+		Set<String> existingIds = paymentRepository.findPaymentIntentIdByPaymentIntentIdIn(candidateIds);
+
+		return stripePage.stream().filter(intent -> !existingIds.contains(intent.getId())).toList();
+	}
+}
@@ -1,14 +1,23 @@
 package com.payment.transaction.service;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.payment.transaction.dto.PaymentIntentDTO;
+import com.payment.transaction.enums.PaymentIntentStatusEnum;
 import com.payment.transaction.model.Payment;
 import com.payment.transaction.model.PaymentStatusHistory;
 import com.payment.transaction.repository.PaymentRepository;
 import com.payment.transaction.repository.PaymentStatusHistoryRepository;
 import com.stripe.model.PaymentIntent;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -20,46 +29,148 @@ public class PaymentSyncService {
     private final PaymentRepository paymentRepository;
     private final PaymentStatusHistoryRepository statusHistoryRepository;
     private final StripeService stripeService;
+    private final EntityManager entityManager;
+    private final PaymentIntentCache paymentIntentCache;
+    private final PaymentStatusHistoryWriter historyWriter;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
 
+    @Transactional
     public Payment syncPaymentStatus(PaymentIntent paymentIntent) {
-        Payment payment = paymentRepository.findByPaymentIntentId(paymentIntent.getId())
+        return syncPaymentStatus(paymentIntent, null);
+    }
+
+    /**
+     * Sincroniza el estado local con el PaymentIntent recibido. Cuando el cambio
+     * proviene de un webhook se informa el id del evento de Stripe, que queda
+     * registrado en el historial y evita aplicar dos veces el mismo evento.
+     * El pago y su historial se escriben en la misma transacción, salvo con
+     * {@code payment.history.write-behind.enabled}: entonces el historial lo
+     * escribe en lotes {@link PaymentStatusHistoryWriter} después del commit.
+     * <p>
+     * El pago se lee bloqueado hasta el commit: un refresco y un webhook del
+     * mismo pago se aplican uno detrás del otro, y la validación de la
+     * transición se hace contra el estado que dejó el anterior.
+     */
+    @Transactional
+    public Payment syncPaymentStatus(PaymentIntent paymentIntent, String stripeEventId) {
+        Payment payment = paymentRepository.findForUpdateByPaymentIntentId(paymentIntent.getId())
             .orElseGet(() -> {
                 Payment newPayment = new Payment();
                 newPayment.setPaymentIntentId(paymentIntent.getId());
+                newPayment.setCreatedAt(LocalDateTime.now());
                 return newPayment;
             });
 
-        String oldStatus = payment.getStatus();
-        String newStatus = paymentIntent.getStatus();
+        // Con el bloqueo tomado, dos entregas del mismo evento no pasan ambas este control
+        if (stripeEventId != null && statusHistoryRepository.existsByStripeEventId(stripeEventId)) {
+            log.debug("Stripe event {} already applied, skipping", stripeEventId);
+            return payment.getId() != null ? payment : null;
+        }
 
-        if (!newStatus.equals(oldStatus)) {
-            payment.setStatus(newStatus);
-            payment.setAmount(paymentIntent.getAmount());
-            payment.setCurrency(paymentIntent.getCurrency());
-            paymentRepository.save(payment);
+        PaymentIntentStatusEnum oldStatus = payment.getStatus();
+        PaymentIntentStatusEnum newStatus = PaymentIntentStatusEnum.fromStatus(paymentIntent.getStatus());
 
+        // Un poll o un evento atrasados no pueden devolver un pago a un estado anterior (succeeded -> processing)
+        if (oldStatus != null && !oldStatus.canTransitionTo(newStatus)) {
+            log.warn("Ignoring stale status for {}: {} -> {}", paymentIntent.getId(), oldStatus.getStatus(),
+                    newStatus.getStatus());
+            meterRegistry.counter("payment.status.transitions.rejected", "from", oldStatus.getStatus(), "to",
+                    newStatus.getStatus()).increment();
+            return payment;
+        }
+
+        // updatedAt marca la última sincronización con Stripe: las lecturas locales
+        // (payment.read.strategy) la usan como cota de antigüedad
+        payment.setStatus(newStatus);
+        payment.setAmount(paymentIntent.getAmount());
+        payment.setCurrency(paymentIntent.getCurrency());
+        payment.setUpdatedAt(LocalDateTime.now());
+        paymentRepository.save(payment);
+
+        if (newStatus != oldStatus) {
             // Registrar el cambio de estado
             PaymentStatusHistory history = new PaymentStatusHistory();
             history.setPayment(payment);
             history.setStatus(newStatus);
-            history.setStripeEventId(paymentIntent.getId());
-            statusHistoryRepository.save(history);
+            history.setStripeEventId(stripeEventId);
+            history.setCreatedAt(LocalDateTime.now());
+            historyWriter.record(history);
 
-            log.info("Payment status updated: {} -> {}", paymentIntent.getId(), newStatus);
+            // La próxima lectura vuelve a Stripe en lugar de servir el estado anterior
+            paymentIntentCache.invalidate(paymentIntent.getId());
+
+            log.info("Payment status updated: {} -> {}", paymentIntent.getId(), newStatus.getStatus());
         }
 
         return payment;
     }
 
+    /**
+     * Guarda en una sola transacción los PaymentIntents que todavía no existen
+     * localmente junto con su primera entrada de historial. Se hace flush y
+     * clear cada {@code batch_size} filas para que Hibernate envíe los inserts
+     * en lotes JDBC y el contexto de persistencia no crezca sin límite.
+     */
+    @Transactional
+    public List<Payment> saveAllInBatches(List<PaymentIntent> paymentIntents) {
+        List<Payment> saved = new ArrayList<>(paymentIntents.size());
+        List<Payment> payments = new ArrayList<>(batchSize);
+        List<PaymentStatusHistory> histories = new ArrayList<>(batchSize);
+        LocalDateTime now = LocalDateTime.now();
+
+        for (PaymentIntent paymentIntent : paymentIntents) {
+            Payment payment = new Payment();
+            payment.setPaymentIntentId(paymentIntent.getId());
+            payment.setAmount(paymentIntent.getAmount());
+            payment.setCurrency(paymentIntent.getCurrency());
+            payment.setStatus(PaymentIntentStatusEnum.fromStatus(paymentIntent.getStatus()));
+            payment.setCreatedAt(now);
+            payment.setUpdatedAt(now);
+            payments.add(payment);
+
+            PaymentStatusHistory history = new PaymentStatusHistory();
+            history.setPayment(payment);
+            history.setStatus(payment.getStatus());
+            history.setCreatedAt(now);
+            histories.add(history);
+
+            if (payments.size() == batchSize) {
+                saved.addAll(flushBatch(payments, histories));
+            }
+        }
+        if (!payments.isEmpty()) {
+            saved.addAll(flushBatch(payments, histories));
+        }
+
+        paymentIntentCache.invalidateAll(paymentIntents.stream().map(PaymentIntent::getId).toList());
+        log.info("Saved {} payments in batches of {}", saved.size(), batchSize);
+        return saved;
+    }
+
+    private List<Payment> flushBatch(List<Payment> payments, List<PaymentStatusHistory> histories) {
+        List<Payment> saved = paymentRepository.saveAll(payments);
+        statusHistoryRepository.saveAll(histories);
+        entityManager.flush();
+        entityManager.clear();
+        payments.clear();
+        histories.clear();
+        return saved;
+    }
+
     public void syncPaymentError(String paymentIntentId, String errorMessage) {
         Payment payment = paymentRepository.findByPaymentIntentId(paymentIntentId)
             .orElseThrow(() -> new RuntimeException("Payment not found"));
 
         PaymentStatusHistory history = new PaymentStatusHistory();
         history.setPayment(payment);
-        history.setStatus("error");
+        // El error no es un estado del PaymentIntent: la entrada conserva el estado actual y lleva el mensaje
+        history.setStatus(payment.getStatus());
         history.setErrorMessage(errorMessage);
-        statusHistoryRepository.save(history);
+        history.setCreatedAt(LocalDateTime.now());
+        historyWriter.record(history);
 
         log.error("Payment error recorded: {} - {}", paymentIntentId, errorMessage);
     }
@@ -0,0 +1,158 @@
+package com.payment.transaction.service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import com.payment.transaction.model.SchedulerNode;
+import com.payment.transaction.repository.SchedulerLockRepository;
+import com.payment.transaction.repository.SchedulerNodeRepository;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Coordinación del job de sincronización entre réplicas usando solo la base
+ * de datos.
+ * <p>
+ * Las tareas que deben correr en un solo nodo a la vez (el descubrimiento de
+ * pagos nuevos) toman un lock con vencimiento en {@code scheduler_locks}: si el
+ * nodo se cae con el lock tomado, otro lo obtiene cuando vence.
+ * <p>
+ * El refresco de pagos abiertos se reparte: en cada tick el nodo registra su
+ * heartbeat en {@code scheduler_nodes} y recibe su {@link Shard} según su
+ * posición entre los nodos vivos (ordenados por id). Con {@code n} nodos cada
+ * uno refresca los pagos con {@code id mod n == índice}, así que agregar nodos
+ * reparte el trabajo en lugar de repetirlo. Mientras un nodo entra o sale, un
+ * tick puede refrescar un pago dos veces o saltearlo hasta el siguiente.
+ */
+@Service
+@Slf4j
+public class SyncCoordinationService {
+
+	/**
+	 * Porción de los pagos abiertos que le toca a este nodo: los de
+	 * {@code id mod count == index}.
+	 */
+	public record Shard(int index, int count) {
+
+		public static final Shard ALL = new Shard(0, 1);
+	}
+
+	private final SchedulerLockRepository lockRepository;
+	private final SchedulerNodeRepository nodeRepository;
+	private final String nodeId;
+	private final Duration nodeTtl;
+
+	private volatile boolean registered;
+
+	public SyncCoordinationService(SchedulerLockRepository lockRepository, SchedulerNodeRepository nodeRepository,
+			@Value("${payment.sync.node-id:}") String nodeId,
+			@Value("${payment.sync.node-ttl-ms:90000}") long nodeTtlMs) {
+		this.lockRepository = lockRepository;
+		this.nodeRepository = nodeRepository;
+		this.nodeId = nodeId.isBlank() ? defaultNodeId() : nodeId;
+		this.nodeTtl = Duration.ofMillis(nodeTtlMs);
+	}
+
+	public String getNodeId() {
+		return nodeId;
+	}
+
+	/**
+	 * Registra el heartbeat del nodo y devuelve su shard entre los nodos vivos.
+	 */
+	public Shard heartbeat() {
+		LocalDateTime now = LocalDateTime.now();
+		if (nodeRepository.touch(nodeId, now) == 0) {
+			SchedulerNode node = new SchedulerNode();
+			node.setNodeId(nodeId);
+			node.setStartedAt(now);
+			node.setHeartbeatAt(now);
+			nodeRepository.save(node);
+			log.info("Sync node {} registered", nodeId);
+		}
+		registered = true;
+
+		LocalDateTime aliveSince = now.minus(nodeTtl);
+		int removed = nodeRepository.deleteStale(aliveSince);
+		if (removed > 0) {
+			log.info("Removed {} sync nodes without heartbeat since {}", removed, aliveSince);
+		}
+
+		List<String> liveNodes = nodeRepository.findLiveNodeIds(aliveSince);
+		int index = liveNodes.indexOf(nodeId);
+		if (index < 0) {
+			// Solo si otro nodo, con el reloj muy adelantado, borró este registro como vencido
+			log.warn("Sync node {} not found among live nodes, refreshing all open payments", nodeId);
+			return Shard.ALL;
+		}
+		return new Shard(index, liveNodes.size());
+	}
+
+	/**
+	 * Intenta tomar el lock {@code name} hasta {@code lockAtMostFor}. Devuelve
+	 * {@code false} si lo tiene otro nodo.
+	 */
+	public boolean tryLock(String name, Duration lockAtMostFor) {
+		LocalDateTime now = LocalDateTime.now();
+		LocalDateTime lockedUntil = now.plus(lockAtMostFor);
+		if (lockRepository.acquire(name, nodeId, now, lockedUntil) == 1) {
+			return true;
+		}
+		if (lockRepository.existsById(name)) {
+			return false;
+		}
+		try {
+			lockRepository.insert(name, nodeId, now, lockedUntil);
+			return true;
+		} catch (DataIntegrityViolationException e) {
+			// Otro nodo creó el lock al mismo tiempo y lo tiene
+			return false;
+		}
+	}
+
+	/**
+	 * Extiende el lock {@code name} hasta {@code lockAtMostFor} desde ahora si
+	 * este nodo todavía lo tiene. Devuelve {@code false} si lo tomó otro nodo.
+	 */
+	public boolean renewLock(String name, Duration lockAtMostFor) {
+		return lockRepository.renew(name, nodeId, LocalDateTime.now().plus(lockAtMostFor)) == 1;
+	}
+
+	public void unlock(String name) {
+		lockRepository.release(name, nodeId, LocalDateTime.now());
+	}
+
+	// Los demás nodos toman la porción de este en su próximo tick, sin esperar al TTL
+	@PreDestroy
+	public void deregister() {
+		if (!registered) {
+			return;
+		}
+		try {
+			nodeRepository.deleteById(nodeId);
+			log.info("Sync node {} deregistered", nodeId);
+		} catch (RuntimeException e) {
+			log.warn("Could not deregister sync node {}: {}", nodeId, e.getMessage());
+		}
+	}
+
+	// Host más un sufijo por arranque: dos procesos en el mismo host no comparten id
+	private static String defaultNodeId() {
+		String host;
+		try {
+			host = InetAddress.getLocalHost().getHostName();
+		} catch (UnknownHostException e) {
+			host = "node";
+		}
+		return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+	}
+}
@@ -0,0 +1,79 @@
+package com.payment.transaction.service;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Token bucket: permite hasta {@code permitsPerSecond} operaciones por
+ * segundo con ráfagas de hasta {@code burst}. Además admite una pausa global
+ * ({@link #pauseFor(Duration)}) para cuando Stripe responde 429, de modo que
+ * todos los hilos que comparten el limitador esperan juntos.
+ */
+public class TokenBucketRateLimiter {
+
+	private final double permitsPerNano;
+	private final double burst;
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private double tokens;
+	private long lastRefillNanos;
+	private long pausedUntilNanos;
+
+	public TokenBucketRateLimiter(double permitsPerSecond, int burst) {
+		if (permitsPerSecond <= 0 || burst < 1) {
+			throw new IllegalArgumentException("permitsPerSecond must be > 0 and burst >= 1");
+		}
+		this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+		this.burst = burst;
+		this.tokens = burst;
+		this.lastRefillNanos = System.nanoTime();
+	}
+
+	// Bloquea hasta obtener un permiso
+	public void acquire() throws InterruptedException {
+		while (true) {
+			long waitNanos;
+			lock.lock();
+			try {
+				long now = System.nanoTime();
+				refill(now);
+				if (now - pausedUntilNanos < 0) {
+					waitNanos = pausedUntilNanos - now;
+				} else if (tokens >= 1) {
+					tokens -= 1;
+					return;
+				} else {
+					waitNanos = (long) Math.ceil((1 - tokens) / permitsPerNano);
+				}
+			} finally {
+				lock.unlock();
+			}
+			TimeUnit.NANOSECONDS.sleep(waitNanos);
+		}
+	}
+
+	// Detiene la entrega de permisos durante el tiempo indicado
+	public void pauseFor(Duration duration) {
+		lock.lock();
+		try {
+			long until = System.nanoTime() + duration.toNanos();
+			if (until - pausedUntilNanos > 0) {
+				pausedUntilNanos = until;
+				// Al reanudar no se acumula una ráfaga
+				tokens = 0;
+				lastRefillNanos = until;
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void refill(long now) {
+		if (now - lastRefillNanos <= 0) {
+			return;
+		}
+		tokens = Math.min(burst, tokens + (now - lastRefillNanos) * permitsPerNano);
+		lastRefillNanos = now;
+	}
+}
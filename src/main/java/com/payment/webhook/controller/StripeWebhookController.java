@@ -0,0 +1,37 @@
+package com.payment.webhook.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.payment.transaction.exception.GlobalExceptionHandler;
+import com.payment.webhook.service.StripeWebhookService;
+import com.stripe.exception.SignatureVerificationException;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/v1/webhooks/stripe")
+@Tag(name = "Stripe Webhook Controller", description = "Endpoint for Stripe webhook events")
+@RequiredArgsConstructor
+public class StripeWebhookController extends GlobalExceptionHandler {
+
+	private final StripeWebhookService stripeWebhookService;
+
+	@PostMapping
+	@Operation(summary = "Receive a Stripe event", description = "Verifies the Stripe signature, enqueues payment_intent.* events and acknowledges immediately")
+	public ResponseEntity<String> receiveEvent(@RequestBody String payload,
+			@RequestHeader("Stripe-Signature") String signatureHeader) throws SignatureVerificationException {
+		if (!stripeWebhookService.receive(payload, signatureHeader)) {
+			// Cola llena: Stripe reintenta la entrega más tarde
+			return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Event queue is full");
+		}
+		return ResponseEntity.ok("Event received");
+	}
+}
@@ -0,0 +1,14 @@
+package com.payment.webhook.dto;
+
+import com.stripe.model.PaymentIntent;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class StripePaymentEventDTO {
+	private String eventId;
+	private String type;
+	private PaymentIntent paymentIntent;
+}
@@ -0,0 +1,45 @@
+package com.payment.webhook.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * Evento de Stripe que no se pudo aplicar. El webhook ya respondió 200, así
+ * que Stripe no lo reenvía: queda acá hasta que un reintento lo aplica. Solo
+ * se guarda el id del PaymentIntent; al reintentar se lee su estado actual.
+ */
+@Entity
+@Table(name = "webhook_dead_letters", indexes = @Index(name = "idx_webhook_dead_letters_next_attempt", columnList = "next_attempt_at"))
+@Data
+public class WebhookDeadLetter {
+
+	@Id
+	@Column(name = "event_id")
+	private String eventId;
+
+	@Column(name = "payment_intent_id", nullable = false)
+	private String paymentIntentId;
+
+	@Column(name = "event_type", length = 100)
+	private String eventType;
+
+	// Intentos fallidos, contando el procesamiento original
+	@Column(nullable = false)
+	private int attempts;
+
+	@Column(name = "last_error", length = 500)
+	private String lastError;
+
+	@Column(name = "created_at", nullable = false)
+	private LocalDateTime createdAt;
+
+	@Column(name = "next_attempt_at", nullable = false)
+	private LocalDateTime nextAttemptAt;
+
+}
@@ -0,0 +1,17 @@
+package com.payment.webhook.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.payment.webhook.model.WebhookDeadLetter;
+
+public interface WebhookDeadLetterRepository extends JpaRepository<WebhookDeadLetter, String> {
+
+	// Eventos cuyo próximo reintento ya venció y que no agotaron los intentos
+	List<WebhookDeadLetter> findByNextAttemptAtLessThanEqualAndAttemptsLessThanOrderByNextAttemptAtAsc(
+			LocalDateTime now, int maxAttempts, Pageable pageable);
+
+}
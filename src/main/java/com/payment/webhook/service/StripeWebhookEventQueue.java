@@ -0,0 +1,160 @@
+package com.payment.webhook.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.payment.transaction.service.PaymentSyncService;
+import com.payment.webhook.dto.StripePaymentEventDTO;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cola acotada en memoria para los eventos {@code payment_intent.*} recibidos
+ * por webhook. Un conjunto fijo de hilos la drena en lotes y aplica cada lote
+ * en una sola transacción a través de {@link PaymentSyncService}. La
+ * profundidad de la cola se expone en {@code payment.webhook.queue.size}.
+ * <p>
+ * Un evento que falla también al reintentarlo solo se guarda en
+ * {@link WebhookDeadLetterService} y se olvida su id, así que un reenvío
+ * manual desde Stripe vuelve a procesarse. Si el fallo es la restricción única
+ * de {@code stripe_event_id}, el evento ya estaba aplicado y se descarta.
+ */
+@Component
+@Slf4j
+public class StripeWebhookEventQueue {
+
+	private final PaymentSyncService paymentSyncService;
+	private final WebhookDeadLetterService deadLetterService;
+	private final TransactionTemplate transactionTemplate;
+	private final BlockingQueue<StripePaymentEventDTO> queue;
+	private final Set<String> recentEventIds;
+	private final int workers;
+	private final int batchSize;
+	private final List<Thread> workerThreads = new ArrayList<>();
+
+	private volatile boolean running;
+
+	public StripeWebhookEventQueue(PaymentSyncService paymentSyncService, WebhookDeadLetterService deadLetterService,
+			TransactionTemplate transactionTemplate,
+			@Value("${payment.webhook.queue-capacity:10000}") int queueCapacity,
+			@Value("${payment.webhook.workers:2}") int workers,
+			@Value("${payment.webhook.batch-size:100}") int batchSize,
+			@Value("${payment.webhook.dedup-cache-size:50000}") int dedupCacheSize, MeterRegistry meterRegistry) {
+		this.paymentSyncService = paymentSyncService;
+		this.deadLetterService = deadLetterService;
+		this.transactionTemplate = transactionTemplate;
+		this.queue = new ArrayBlockingQueue<>(queueCapacity);
+		this.workers = workers;
+		this.batchSize = batchSize;
+		// Ids de eventos recientes: Stripe reintenta entregas, se descartan antes de encolar
+		this.recentEventIds = Collections.synchronizedSet(Collections.newSetFromMap(new LinkedHashMap<>() {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+				return size() > dedupCacheSize;
+			}
+		}));
+		Gauge.builder("payment.webhook.queue.size", queue, BlockingQueue::size).register(meterRegistry);
+	}
+
+	@PostConstruct
+	public void start() {
+		running = true;
+		for (int i = 0; i < workers; i++) {
+			Thread worker = new Thread(this::drainLoop, "stripe-webhook-worker-" + i);
+			worker.setDaemon(true);
+			worker.start();
+			workerThreads.add(worker);
+		}
+	}
+
+	@PreDestroy
+	public void stop() throws InterruptedException {
+		running = false;
+		for (Thread worker : workerThreads) {
+			worker.join(TimeUnit.SECONDS.toMillis(10));
+		}
+	}
+
+	/**
+	 * Encola un evento sin bloquear. Devuelve {@code false} si la cola está
+	 * llena, para que el webhook responda con error y Stripe reintente.
+	 */
+	public boolean offer(StripePaymentEventDTO event) {
+		if (!recentEventIds.add(event.getEventId())) {
+			log.debug("Duplicate Stripe event {} ignored", event.getEventId());
+			return true;
+		}
+		if (!queue.offer(event)) {
+			recentEventIds.remove(event.getEventId());
+			return false;
+		}
+		return true;
+	}
+
+	public int size() {
+		return queue.size();
+	}
+
+	private void drainLoop() {
+		List<StripePaymentEventDTO> batch = new ArrayList<>(batchSize);
+		// Al detenerse se termina de vaciar la cola antes de salir
+		while (running || !queue.isEmpty()) {
+			try {
+				StripePaymentEventDTO first = queue.poll(1, TimeUnit.SECONDS);
+				if (first == null) {
+					continue;
+				}
+				batch.add(first);
+				queue.drainTo(batch, batchSize - 1);
+				applyBatch(batch);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} finally {
+				batch.clear();
+			}
+		}
+	}
+
+	private void applyBatch(List<StripePaymentEventDTO> batch) {
+		try {
+			transactionTemplate.executeWithoutResult(status -> batch.forEach(this::apply));
+		} catch (RuntimeException e) {
+			// Si falla el lote se reintenta evento por evento para aislar el fallido
+			log.warn("Error applying webhook batch of {} events, retrying one by one: {}", batch.size(),
+					e.getMessage());
+			for (StripePaymentEventDTO event : batch) {
+				try {
+					transactionTemplate.executeWithoutResult(status -> apply(event));
+				} catch (RuntimeException ex) {
+					if (WebhookDeadLetterService.isDuplicateEvent(ex)) {
+						log.debug("Stripe event {} already applied by another worker", event.getEventId());
+						continue;
+					}
+					log.error("Error applying Stripe event {}: {}", event.getEventId(), ex.getMessage());
+					recentEventIds.remove(event.getEventId());
+					deadLetterService.park(event, ex);
+				}
+			}
+		}
+	}
+
+	private void apply(StripePaymentEventDTO event) {
+		paymentSyncService.syncPaymentStatus(event.getPaymentIntent(), event.getEventId());
+	}
+}
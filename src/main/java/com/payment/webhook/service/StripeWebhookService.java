@@ -0,0 +1,65 @@
+package com.payment.webhook.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.payment.webhook.dto.StripePaymentEventDTO;
+import com.stripe.exception.EventDataObjectDeserializationException;
+import com.stripe.exception.SignatureVerificationException;
+import com.stripe.model.Event;
+import com.stripe.model.EventDataObjectDeserializer;
+import com.stripe.model.PaymentIntent;
+import com.stripe.model.StripeObject;
+import com.stripe.net.Webhook;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Service
+@Slf4j
+public class StripeWebhookService {
+
+	private static final String PAYMENT_INTENT_EVENT_PREFIX = "payment_intent.";
+
+	@Value("${stripe.webhook.secret}")
+	private String webhookSecret;
+
+	private final StripeWebhookEventQueue eventQueue;
+
+	public StripeWebhookService(StripeWebhookEventQueue eventQueue) {
+		this.eventQueue = eventQueue;
+	}
+
+	/**
+	 * Verifica la firma, descarta los eventos que no son {@code payment_intent.*}
+	 * y encola el resto. Devuelve {@code false} solo si la cola está llena.
+	 */
+	public boolean receive(String payload, String signatureHeader) throws SignatureVerificationException {
+		Event event = Webhook.constructEvent(payload, signatureHeader, webhookSecret);
+
+		if (event.getType() == null || !event.getType().startsWith(PAYMENT_INTENT_EVENT_PREFIX)) {
+			log.debug("Ignoring Stripe event {} of type {}", event.getId(), event.getType());
+			return true;
+		}
+
+		PaymentIntent paymentIntent = extractPaymentIntent(event);
+		if (paymentIntent == null) {
+			log.warn("Stripe event {} has no PaymentIntent payload", event.getId());
+			return true;
+		}
+
+		return eventQueue.offer(new StripePaymentEventDTO(event.getId(), event.getType(), paymentIntent));
+	}
+
+	private PaymentIntent extractPaymentIntent(Event event) {
+		EventDataObjectDeserializer deserializer = event.getDataObjectDeserializer();
+		try {
+			// Si la versión de API del evento no coincide con la del SDK se deserializa igual
+			StripeObject object = deserializer.getObject().isPresent() ? deserializer.getObject().get()
+					: deserializer.deserializeUnsafe();
+			return object instanceof PaymentIntent paymentIntent ? paymentIntent : null;
+		} catch (EventDataObjectDeserializationException e) {
+			log.error("Error deserializing Stripe event {}: {}", event.getId(), e.getMessage());
+			return null;
+		}
+	}
+}
@@ -0,0 +1,161 @@
+package com.payment.webhook.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.payment.transaction.exception.PaymentProviderUnavailableException;
+import com.payment.transaction.gateway.PaymentGateway;
+import com.payment.transaction.service.PaymentSyncService;
+import com.payment.webhook.dto.StripePaymentEventDTO;
+import com.payment.webhook.model.WebhookDeadLetter;
+import com.payment.webhook.repository.WebhookDeadLetterRepository;
+import com.stripe.exception.StripeException;
+import com.stripe.model.PaymentIntent;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Eventos de webhook que fallaron después de responder 200 a Stripe. Se
+ * guardan en {@code webhook_dead_letters} y un job los reintenta con espera
+ * exponencial, leyendo el estado actual del PaymentIntent con el gateway de
+ * fondo. Al agotar {@code max-attempts} quedan en la tabla para revisarlos a
+ * mano. La cantidad de eventos guardados y el resultado de cada reintento se
+ * cuentan en {@code payment.webhook.dead_letter.parked} y
+ * {@code payment.webhook.dead_letter.retries}.
+ */
+@Service
+@Slf4j
+public class WebhookDeadLetterService {
+
+	private static final String EVENT_CONSTRAINT = "uk_payment_status_history_event";
+	private static final int MAX_ERROR_LENGTH = 500;
+
+	private final WebhookDeadLetterRepository deadLetterRepository;
+	private final PaymentSyncService paymentSyncService;
+	private final PaymentGateway paymentGateway;
+	private final MeterRegistry meterRegistry;
+	private final int maxAttempts;
+	private final int batchSize;
+	private final long backoffMs;
+	private final long maxBackoffMs;
+
+	public WebhookDeadLetterService(WebhookDeadLetterRepository deadLetterRepository,
+			PaymentSyncService paymentSyncService,
+			@Qualifier("backgroundPaymentGateway") PaymentGateway paymentGateway, MeterRegistry meterRegistry,
+			@Value("${payment.webhook.dead-letter.max-attempts:10}") int maxAttempts,
+			@Value("${payment.webhook.dead-letter.batch-size:100}") int batchSize,
+			@Value("${payment.webhook.dead-letter.backoff-ms:60000}") long backoffMs,
+			@Value("${payment.webhook.dead-letter.max-backoff-ms:3600000}") long maxBackoffMs) {
+		this.deadLetterRepository = deadLetterRepository;
+		this.paymentSyncService = paymentSyncService;
+		this.paymentGateway = paymentGateway;
+		this.meterRegistry = meterRegistry;
+		this.maxAttempts = maxAttempts;
+		this.batchSize = batchSize;
+		this.backoffMs = backoffMs;
+		this.maxBackoffMs = maxBackoffMs;
+	}
+
+	/**
+	 * Guarda un evento que no se pudo aplicar. Si no se puede guardar (por
+	 * ejemplo, con la base caída) solo queda el log: el evento se pierde hasta
+	 * que Stripe o el job de sincronización vuelvan a traer el pago.
+	 */
+	public void park(StripePaymentEventDTO event, RuntimeException error) {
+		try {
+			WebhookDeadLetter deadLetter = deadLetterRepository.findById(event.getEventId()).orElseGet(() -> {
+				WebhookDeadLetter created = new WebhookDeadLetter();
+				created.setEventId(event.getEventId());
+				created.setPaymentIntentId(event.getPaymentIntent().getId());
+				created.setEventType(event.getType());
+				created.setCreatedAt(LocalDateTime.now());
+				return created;
+			});
+			recordFailure(deadLetter, error);
+			meterRegistry.counter("payment.webhook.dead_letter.parked").increment();
+			log.warn("Stripe event {} parked for retry: {}", event.getEventId(), error.getMessage());
+		} catch (RuntimeException e) {
+			log.error("Stripe event {} for {} could not be parked and is lost: {}", event.getEventId(),
+					event.getPaymentIntent().getId(), e.getMessage());
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${payment.webhook.dead-letter.retry-interval-ms:60000}")
+	public void retryDue() {
+		List<WebhookDeadLetter> due = deadLetterRepository
+			.findByNextAttemptAtLessThanEqualAndAttemptsLessThanOrderByNextAttemptAtAsc(LocalDateTime.now(),
+					maxAttempts, PageRequest.of(0, batchSize));
+		for (WebhookDeadLetter deadLetter : due) {
+			try {
+				retry(deadLetter);
+			} catch (PaymentProviderUnavailableException e) {
+				// Con el circuito abierto no se consumen intentos: se sigue en el próximo tick
+				log.warn("Stripe unavailable, postponing {} parked webhook events", due.size());
+				return;
+			}
+		}
+	}
+
+	private void retry(WebhookDeadLetter deadLetter) {
+		String outcome = "applied";
+		try {
+			PaymentIntent paymentIntent = paymentGateway.retrieve(deadLetter.getPaymentIntentId());
+			try {
+				paymentSyncService.syncPaymentStatus(paymentIntent, deadLetter.getEventId());
+			} catch (RuntimeException e) {
+				if (!isDuplicateEvent(e)) {
+					throw e;
+				}
+				outcome = "duplicate";
+			}
+			deadLetterRepository.delete(deadLetter);
+			log.info("Parked Stripe event {} applied on attempt {}", deadLetter.getEventId(),
+					deadLetter.getAttempts() + 1);
+		} catch (PaymentProviderUnavailableException e) {
+			outcome = "skipped";
+			throw e;
+		} catch (StripeException | RuntimeException e) {
+			outcome = "failed";
+			recordFailure(deadLetter, e);
+			if (deadLetter.getAttempts() >= maxAttempts) {
+				log.error("Giving up on Stripe event {} after {} attempts: {}", deadLetter.getEventId(),
+						deadLetter.getAttempts(), e.getMessage());
+			}
+		} finally {
+			meterRegistry.counter("payment.webhook.dead_letter.retries", "outcome", outcome).increment();
+		}
+	}
+
+	// Espera que se duplica en cada intento fallido, hasta max-backoff-ms
+	private void recordFailure(WebhookDeadLetter deadLetter, Exception error) {
+		deadLetter.setAttempts(deadLetter.getAttempts() + 1);
+		String message = String.valueOf(error.getMessage());
+		deadLetter.setLastError(message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message);
+		long delay = Math.min(maxBackoffMs, backoffMs << Math.min(deadLetter.getAttempts() - 1, 20));
+		deadLetter.setNextAttemptAt(LocalDateTime.now().plusNanos(delay * 1_000_000));
+		deadLetterRepository.save(deadLetter);
+	}
+
+	/**
+	 * Si el error es la restricción única sobre {@code stripe_event_id}: otra
+	 * réplica (u otra entrega) ya aplicó el evento, no es un fallo.
+	 */
+	static boolean isDuplicateEvent(Throwable error) {
+		for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+			if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null
+					&& violation.getConstraintName().toLowerCase(Locale.ROOT).contains(EVENT_CONSTRAINT)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
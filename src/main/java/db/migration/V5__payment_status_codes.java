@@ -0,0 +1,94 @@
+package db.migration;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+/**
+ * Estado de pagos e historial como código TINYINT
+ * ({@code PaymentIntentStatusEnum.code}) en lugar del texto de Stripe: filas e
+ * índice (status, id) más chicos y comparaciones enteras. Los códigos no se
+ * reutilizan ni se cambian.
+ * <p>
+ * Es una migración Java para poder validar antes de cualquier DDL (en MySQL no
+ * es transaccional): un estado NULL o desconocido dejaría la migración a
+ * medias, así que primero se cuentan esas filas en las dos tablas y, si hay,
+ * la migración falla sin tocar nada con un mensaje que dice cuántas son y
+ * dónde. Hay que corregirlas a mano y volver a migrar.
+ */
+public class V5__payment_status_codes extends BaseJavaMigration {
+
+	private static final String PAYMENT_STATUSES = "'requires_payment_method', 'requires_confirmation', "
+			+ "'requires_action', 'processing', 'requires_capture', 'succeeded', 'canceled', 'failed'";
+
+	private static final String STATUS_TO_CODE = """
+			case status
+			    when 'requires_payment_method' then 1
+			    when 'requires_confirmation' then 2
+			    when 'requires_action' then 3
+			    when 'processing' then 4
+			    when 'requires_capture' then 5
+			    when 'succeeded' then 6
+			    when 'canceled' then 7
+			    when 'failed' then 8
+			""";
+
+	private static final List<String> STATEMENTS = List.of(
+			"alter table payments add column status_code tinyint",
+			"update payments set status_code = " + STATUS_TO_CODE + "end",
+			"drop index idx_payments_status_id on payments",
+			"alter table payments drop column status",
+			"alter table payments rename column status_code to status",
+			"create index idx_payments_status_id on payments (status, id)",
+			// Las entradas de error ('error') no son un estado: toman el estado actual del pago
+			"alter table payment_status_history add column status_code tinyint",
+			"update payment_status_history set status_code = " + STATUS_TO_CODE
+					+ "    else (select p.status from payments p where p.id = payment_status_history.payment_id)\nend",
+			"alter table payment_status_history drop column status",
+			"alter table payment_status_history rename column status_code to status",
+			"alter table payment_status_history modify column status tinyint not null");
+
+	@Override
+	public void migrate(Context context) throws SQLException {
+		Connection connection = context.getConnection();
+		try (Statement statement = connection.createStatement()) {
+			checkStatuses(statement);
+			for (String sql : STATEMENTS) {
+				statement.execute(sql);
+			}
+		}
+	}
+
+	private static void checkStatuses(Statement statement) throws SQLException {
+		List<String> problems = new ArrayList<>();
+		long payments = count(statement,
+				"select count(*) from payments where status is null or status not in (" + PAYMENT_STATUSES + ")");
+		if (payments > 0) {
+			problems.add(payments + " in payments");
+		}
+		// En el historial 'error' también es válido: toma el estado (ya validado) del pago
+		long history = count(statement, "select count(*) from payment_status_history where status is null"
+				+ " or status not in (" + PAYMENT_STATUSES + ", 'error')");
+		if (history > 0) {
+			problems.add(history + " in payment_status_history");
+		}
+		if (!problems.isEmpty()) {
+			throw new FlywayException("V5 cannot convert status to codes: rows with a NULL or unknown status ("
+					+ String.join(", ", problems) + "). Fix them by hand and migrate again; nothing was changed.");
+		}
+	}
+
+	private static long count(Statement statement, String sql) throws SQLException {
+		try (ResultSet result = statement.executeQuery(sql)) {
+			result.next();
+			return result.getLong(1);
+		}
+	}
+}
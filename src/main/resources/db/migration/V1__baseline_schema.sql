@@ -0,0 +1,110 @@
+-- Esquema base, equivalente al que generaba ddl-auto: update.
+-- Usa IF NOT EXISTS para que también se pueda aplicar sobre bases ya creadas
+-- por Hibernate (baseline-version: 0): las tablas existentes no se tocan.
+--
+-- Las secuencias usan el optimizador pooled de Hibernate (allocationSize = 50):
+-- un next_val v distinto del valor inicial 1 reparte los ids v-49..v. En una
+-- base adoptada cada *_seq queda en al menos max(id) + 50, así el primer
+-- bloque empieza después del último id existente; vacía, arranca en 1.
+
+create table if not exists payments (
+    id bigint not null,
+    payment_intent_id varchar(255),
+    status varchar(255),
+    amount bigint,
+    currency varchar(255),
+    created_at datetime(6),
+    updated_at datetime(6),
+    primary key (id),
+    constraint uk_payments_payment_intent_id unique (payment_intent_id)
+) engine=InnoDB;
+
+create table if not exists payments_seq (
+    next_val bigint
+) engine=InnoDB;
+
+insert into payments_seq (next_val)
+select seed from (select coalesce(max(id) + 50, 1) as seed from payments) s
+where not exists (select * from payments_seq);
+update payments_seq set next_val = (select max(id) + 50 from payments)
+where next_val < (select max(id) + 50 from payments);
+
+create table if not exists payment_status_history (
+    id bigint not null,
+    payment_id bigint not null,
+    status varchar(255) not null,
+    created_at datetime(6) not null,
+    stripe_event_id varchar(255),
+    error_message varchar(255),
+    primary key (id),
+    constraint fk_payment_status_history_payment foreign key (payment_id) references payments (id)
+) engine=InnoDB;
+
+create table if not exists payment_status_history_seq (
+    next_val bigint
+) engine=InnoDB;
+
+insert into payment_status_history_seq (next_val)
+select seed from (select coalesce(max(id) + 50, 1) as seed from payment_status_history) s
+where not exists (select * from payment_status_history_seq);
+update payment_status_history_seq set next_val = (select max(id) + 50 from payment_status_history)
+where next_val < (select max(id) + 50 from payment_status_history);
+
+create table if not exists sync_cursors (
+    name varchar(255) not null,
+    created_gte bigint not null,
+    updated_at datetime(6),
+    primary key (name)
+) engine=InnoDB;
+
+create table if not exists idempotency_records (
+    id bigint not null,
+    scope varchar(40) not null,
+    idempotency_key varchar(255) not null,
+    request_hash varchar(64) not null,
+    response_body text not null,
+    created_at datetime(6) not null,
+    primary key (id),
+    constraint uk_idempotency_scope_key unique (scope, idempotency_key),
+    index idx_idempotency_created_at (created_at)
+) engine=InnoDB;
+
+create table if not exists idempotency_records_seq (
+    next_val bigint
+) engine=InnoDB;
+
+insert into idempotency_records_seq (next_val)
+select seed from (select coalesce(max(id) + 50, 1) as seed from idempotency_records) s
+where not exists (select * from idempotency_records_seq);
+update idempotency_records_seq set next_val = (select max(id) + 50 from idempotency_records)
+where next_val < (select max(id) + 50 from idempotency_records);
+
+create table if not exists bulk_payment_items (
+    id bigint not null,
+    job_id varchar(36) not null,
+    line_number integer not null,
+    amount float(53),
+    currency varchar(255),
+    card_number varchar(255),
+    exp_month integer,
+    exp_year integer,
+    auto_capture bit not null,
+    status enum ('FAILED','PENDING','REQUIRES_ACTION','SUCCEEDED') not null,
+    payment_intent_id varchar(255),
+    payment_status varchar(255),
+    error_message varchar(500),
+    created_at datetime(6) not null,
+    updated_at datetime(6),
+    primary key (id),
+    index idx_bulk_payment_items_job_status (job_id, status, id)
+) engine=InnoDB;
+
+create table if not exists bulk_payment_items_seq (
+    next_val bigint
+) engine=InnoDB;
+
+insert into bulk_payment_items_seq (next_val)
+select seed from (select coalesce(max(id) + 50, 1) as seed from bulk_payment_items) s
+where not exists (select * from bulk_payment_items_seq);
+update bulk_payment_items_seq set next_val = (select max(id) + 50 from bulk_payment_items)
+where next_val < (select max(id) + 50 from bulk_payment_items);
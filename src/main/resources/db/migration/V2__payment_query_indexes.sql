@@ -0,0 +1,15 @@
+-- Índices para las consultas de pagos e historial.
+
+-- findByStatusIn (refresco de pagos abiertos) y /database/list filtrado por
+-- estado: el id en el índice evita ordenar al paginar por keyset
+create index idx_payments_status_id on payments (status, id);
+
+-- Filtros createdFrom/createdTo de /database/list
+create index idx_payments_created_at on payments (created_at);
+
+-- findByPaymentOrderByCreatedAtDesc: también cubre la FK a payments, así que
+-- MySQL descarta el índice que había creado implícitamente para ella
+create index idx_payment_status_history_payment_created on payment_status_history (payment_id, created_at);
+
+-- existsByStripeEventId: deduplicación de eventos de webhook
+create index idx_payment_status_history_event on payment_status_history (stripe_event_id);
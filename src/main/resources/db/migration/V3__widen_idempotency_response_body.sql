@@ -0,0 +1,2 @@
+-- Bases creadas por ddl-auto: el @Lob sin largo quedó como tinytext (255 bytes)
+alter table idempotency_records modify column response_body text not null;
@@ -0,0 +1,18 @@
+-- Coordinación del job de sincronización entre réplicas
+
+-- Locks con vencimiento: el que toma el lock lo tiene hasta locked_until aunque se caiga
+create table scheduler_locks (
+    name varchar(64) not null,
+    locked_until datetime(6) not null,
+    locked_at datetime(6) not null,
+    locked_by varchar(255) not null,
+    primary key (name)
+) engine=InnoDB;
+
+-- Nodos vivos (último heartbeat); definen el reparto de pagos abiertos por id
+create table scheduler_nodes (
+    node_id varchar(255) not null,
+    started_at datetime(6) not null,
+    heartbeat_at datetime(6) not null,
+    primary key (node_id)
+) engine=InnoDB;
@@ -0,0 +1,32 @@
+-- Deduplicación de eventos de webhook respaldada por la base y eventos fallidos.
+
+-- Entregas aplicadas dos veces antes de que existiera la restricción: la
+-- primera entrada conserva el id del evento, las repetidas quedan sin él.
+-- La tabla derivada evita el error 1093 de MySQL (update con subconsulta
+-- sobre la misma tabla).
+update payment_status_history set stripe_event_id = null
+where id in (
+    select id from (
+        select h.id from payment_status_history h
+        join payment_status_history o on o.stripe_event_id = h.stripe_event_id and o.id < h.id
+    ) duplicated
+);
+
+-- Un mismo evento de Stripe se aplica una sola vez aunque lo procesen dos
+-- réplicas; las entradas sin evento (NULL) no chocan entre sí
+drop index idx_payment_status_history_event on payment_status_history;
+create unique index uk_payment_status_history_event on payment_status_history (stripe_event_id);
+
+-- Eventos cuyo procesamiento falló después de responder 200 a Stripe: Stripe
+-- no los vuelve a enviar, así que se reintentan desde acá
+create table webhook_dead_letters (
+    event_id varchar(255) not null,
+    payment_intent_id varchar(255) not null,
+    event_type varchar(100),
+    attempts integer not null,
+    last_error varchar(500),
+    created_at datetime(6) not null,
+    next_attempt_at datetime(6) not null,
+    primary key (event_id),
+    index idx_webhook_dead_letters_next_attempt (next_attempt_at)
+) engine=InnoDB;
@@ -0,0 +1,4 @@
+-- Recorrido de descubrimiento en curso: límite superior fijo y último PaymentIntent procesado.
+-- Se guardan en cada página para que un recorrido interrumpido siga desde ahí y no desde el cursor.
+alter table sync_cursors add column scan_until bigint null;
+alter table sync_cursors add column resume_after varchar(255) null;
@@ -0,0 +1,19 @@
+-- Los ítems de pagos masivos guardan el payment method de prueba (pm_card_*)
+-- en lugar del número de tarjeta. Los ítems existentes se convierten con el
+-- mismo catálogo que TestCardTypeEnum; un número fuera del catálogo queda en
+-- NULL y, si el ítem sigue PENDING, el job lo marca FAILED.
+alter table bulk_payment_items add column payment_method_id varchar(255);
+
+update bulk_payment_items set payment_method_id = case card_number
+    when '4242424242424242' then 'pm_card_visa'
+    when '4000056655665556' then 'pm_card_visa_debit'
+    when '5555555555554444' then 'pm_card_mastercard'
+    when '2223003122003222' then 'pm_card_mastercard'
+    when '378282246310005' then 'pm_card_amex'
+    when '6011111111111117' then 'pm_card_discover'
+    when '30569309025904' then 'pm_card_diners'
+    when '3566002020360505' then 'pm_card_jcb'
+    when '6200000000000005' then 'pm_card_unionpay'
+end;
+
+alter table bulk_payment_items drop column card_number;
@@ -0,0 +1,47 @@
+package com.payment.transaction.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Schedulers acotados del stack reactivo (perfil {@code reactive}). JPA es
+ * bloqueante: las escrituras y consultas corren en {@code db-io} y nunca en los
+ * event loops de Netty. El pago automatizado llama a Stripe sin bloquear
+ * ({@link com.payment.transaction.gateway.AsyncPaymentGateway}); {@code stripe-io}
+ * queda para los endpoints de {@code ReactivePaymentController} que reutilizan
+ * servicios bloqueantes (llamada al SDK y escritura en un mismo método). Cada
+ * scheduler tiene un máximo de hilos y de tareas en cola; con la cola llena la
+ * tarea se rechaza y el request responde 503.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveSchedulersConfig {
+
+	@Value("${payment.reactive.stripe-threads:64}")
+	private int stripeThreads;
+
+	@Value("${payment.reactive.stripe-queue:1000}")
+	private int stripeQueue;
+
+	// Más hilos que conexiones del pool solo agregaría espera por una conexión
+	@Value("${payment.reactive.db-threads:20}")
+	private int dbThreads;
+
+	@Value("${payment.reactive.db-queue:1000}")
+	private int dbQueue;
+
+	@Bean(destroyMethod = "dispose")
+	public Scheduler stripeScheduler() {
+		return Schedulers.newBoundedElastic(stripeThreads, stripeQueue, "stripe-io");
+	}
+
+	@Bean(destroyMethod = "dispose")
+	public Scheduler dbScheduler() {
+		return Schedulers.newBoundedElastic(dbThreads, dbQueue, "db-io");
+	}
+}
@@ -0,0 +1,21 @@
+package com.payment.transaction.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Servidor del perfil {@code reactive}. Con Tomcat en el classpath (lo usa el
+ * stack servlet) Spring Boot lo elegiría también para WebFlux; se fija Netty
+ * para que los requests corran en sus event loops.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveWebServerConfig {
+
+	@Bean
+	public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+		return new NettyReactiveWebServerFactory();
+	}
+}
@@ -0,0 +1,44 @@
+package com.payment.transaction.controller;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.payment.transaction.dto.AutomatedPaymentRequestDTO;
+import com.payment.transaction.dto.PaymentIntentDTO;
+import com.payment.transaction.exception.GlobalExceptionHandler;
+import com.payment.transaction.exception.PaymentProcessingException;
+import com.payment.transaction.service.ReactiveAutomatedPaymentService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+
+// Mismo contrato que AutomatedPaymentController, sobre WebFlux (perfil reactive)
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/api/v1/payments/automated")
+@Tag(name = "Automated Payment Controller", description = "Endpoints for automated payment processing")
+@RequiredArgsConstructor
+public class ReactiveAutomatedPaymentController extends GlobalExceptionHandler {
+
+    private final ReactiveAutomatedPaymentService automatedPaymentService;
+
+    @PostMapping("/process")
+    @Operation(summary = "Process a payment automatically",
+              description = "Creates a payment intent, confirms it with card details, and optionally captures it in a single step")
+    public Mono<ResponseEntity<PaymentIntentDTO>> processPayment(
+            @Validated @RequestBody AutomatedPaymentRequestDTO request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        return automatedPaymentService.processPayment(request, idempotencyKey)
+                // En caso de 3D Secure, devolvemos el PaymentIntent para manejo manual
+                .onErrorResume(PaymentProcessingException.class, e -> Mono.just(e.getPaymentIntent()))
+                .map(ResponseEntity::ok);
+    }
+}
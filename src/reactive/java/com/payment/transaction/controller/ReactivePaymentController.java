@@ -0,0 +1,154 @@
+package com.payment.transaction.controller;
+
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.payment.transaction.dto.DiscoveryProgressDTO;
+import com.payment.transaction.dto.PaymentCacheStatsDTO;
+import com.payment.transaction.dto.PaymentIntentDTO;
+import com.payment.transaction.dto.PaymentRequestDTO;
+import com.payment.transaction.dto.PaymentView;
+import com.payment.transaction.dto.PaymentViewFilterDTO;
+import com.payment.transaction.dto.PaymentViewPageDTO;
+import com.payment.transaction.dto.RefreshProgressDTO;
+import com.payment.transaction.exception.GlobalExceptionHandler;
+import com.payment.transaction.service.BlockingOffloader;
+import com.payment.transaction.service.PaymentReconciliationService;
+import com.payment.transaction.service.PaymentService;
+import com.payment.transaction.service.PaymentStatusRefresher;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Mismo contrato que {@link PaymentController}, sobre WebFlux (perfil
+ * {@code reactive}). Los servicios son los mismos; sus llamadas a Stripe y a
+ * la base se ejecutan en los schedulers acotados de {@link BlockingOffloader}.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/api/v1/payments")
+@Tag(name = "Payment Controller", description = "Endpoints for payment management")
+@RequiredArgsConstructor
+public class ReactivePaymentController extends GlobalExceptionHandler {
+
+	private static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+	private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+	private static final int EXPORT_PAGE_SIZE = 500;
+
+	private final PaymentService paymentService;
+	private final PaymentReconciliationService reconciliationService;
+	private final PaymentStatusRefresher paymentStatusRefresher;
+	private final BlockingOffloader offloader;
+
+	@PostMapping("/create")
+	@Operation(summary = "Create a new payment", description = "Creates a new payment in both Stripe and local database")
+	public Mono<ResponseEntity<PaymentIntentDTO>> createPayment(@RequestBody PaymentRequestDTO request,
+			@RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+		return offloader.stripe(() -> paymentService.createPaymentIntent(request, idempotencyKey))
+				.map(ResponseEntity::ok);
+	}
+
+	@PutMapping("/update/{paymentIntentId}")
+	@Operation(summary = "Update payment intent", description = "Update the amount of a payment intent.")
+	public Mono<ResponseEntity<PaymentIntentDTO>> updatePaymentIntent(@PathVariable String paymentIntentId,
+			@RequestBody PaymentRequestDTO request) {
+		return offloader.stripe(() -> paymentService.updatePaymentIntent(paymentIntentId, request))
+				.map(ResponseEntity::ok);
+	}
+
+	@PatchMapping("/capture/{paymentIntentId}")
+	@Operation(summary = "Capture a PaymentIntent", description = "Captures a previously authorized PaymentIntent.")
+	public Mono<ResponseEntity<PaymentIntentDTO>> capturePayment(@PathVariable String paymentIntentId,
+			@RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+		return offloader.stripe(() -> paymentService.capturePaymentIntent(paymentIntentId, idempotencyKey))
+				.map(ResponseEntity::ok);
+	}
+
+	@PostMapping("/cancel/{paymentIntentId}")
+	@Operation(summary = "Cancel payment intent", description = "Cancel an uncompleted payment intent.")
+	public Mono<ResponseEntity<String>> cancelPaymentIntent(@PathVariable String paymentIntentId) {
+		return offloader.stripe(() -> paymentService.cancelPaymentIntent(paymentIntentId))
+				.map(cancelled -> ResponseEntity.ok("PaymentIntent cancelled successfully."));
+	}
+
+	@GetMapping("/list")
+	@Operation(summary = "Get all paginated payment", description = "Fetches all paginated payment")
+	public Mono<ResponseEntity<List<PaymentIntentDTO>>> getAllPayments(@RequestParam(defaultValue = "30") int limit,
+			@RequestParam(required = false) String startingAfter) {
+		return offloader.stripe(() -> paymentService.getAllPayments(limit, startingAfter)).map(ResponseEntity::ok);
+	}
+
+	@GetMapping(value = "/database/list", produces = MediaType.APPLICATION_JSON_VALUE)
+	@Operation(summary = "List payments from database", description = "Retrieves a keyset-paginated page of payments stored in the local database. Use nextCursor as afterId to fetch the next page")
+	public Mono<ResponseEntity<PaymentViewPageDTO>> getPaymentsFromDb(PaymentViewFilterDTO filter,
+			@RequestParam(defaultValue = "0") long afterId, @RequestParam(defaultValue = "100") int limit) {
+		return offloader.db(() -> paymentService.getPaymentViews(filter, afterId, limit)).map(ResponseEntity::ok);
+	}
+
+	/**
+	 * Exporta por páginas de keyset: la página siguiente se consulta recién
+	 * cuando el cliente consumió la anterior, así que un cliente lento no hace
+	 * crecer la memoria ni retiene una conexión con un cursor abierto.
+	 */
+	@GetMapping(value = "/database/list", produces = NDJSON_MEDIA_TYPE)
+	@Operation(summary = "Export payments from database as NDJSON", description = "Streams every payment matching the filters, one JSON object per line, in constant memory")
+	public Flux<PaymentView> streamPaymentsFromDb(PaymentViewFilterDTO filter,
+			@RequestParam(defaultValue = "0") long afterId) {
+		return fetchPage(filter, afterId)
+				.expand(page -> page.getNextCursor() == null ? Mono.empty()
+						: fetchPage(filter, page.getNextCursor()))
+				.concatMapIterable(PaymentViewPageDTO::getItems, 1);
+	}
+
+	@GetMapping("/cache/stats")
+	@Operation(summary = "Get payment read cache statistics", description = "Returns size, hits, misses and evictions of the payment read-through cache")
+	public ResponseEntity<PaymentCacheStatsDTO> getCacheStats() {
+		return ResponseEntity.ok(paymentService.getCacheStats());
+	}
+
+	@GetMapping("/{paymentIntentId}")
+	@Operation(summary = "Get payment by ID", description = "Retrieves a payment by its ID from both Stripe and local database")
+	public Mono<ResponseEntity<PaymentIntentDTO>> getPayment(@PathVariable String paymentIntentId) {
+		return offloader.stripe(() -> paymentService.getPayment(paymentIntentId)).map(ResponseEntity::ok);
+	}
+
+	// Solo encola el descubrimiento en su executor, así que no bloquea el event loop
+	@PostMapping("/sync")
+	@Operation(summary = "Sync payments from Stripe to database", description = "Starts finding payments in Stripe created since the last sync cursor that are not in our database and adds them. Returns 202 with the progress of the running discovery")
+	public ResponseEntity<DiscoveryProgressDTO> syncPayments() {
+		return ResponseEntity.accepted().body(reconciliationService.startDiscovery());
+	}
+
+	@GetMapping("/sync/discover/progress")
+	@Operation(summary = "Get payment discovery progress", description = "Returns the progress of the running discovery, or the result of the last one")
+	public ResponseEntity<DiscoveryProgressDTO> getDiscoveryProgress() {
+		return ResponseEntity.ok(reconciliationService.getDiscoveryProgress());
+	}
+
+	@GetMapping("/sync/progress")
+	@Operation(summary = "Get open payments refresh progress", description = "Returns the progress of the running refresh tick, or the result of the last one")
+	public ResponseEntity<RefreshProgressDTO> getSyncProgress() {
+		return ResponseEntity.ok(paymentStatusRefresher.getProgress());
+	}
+
+	private Mono<PaymentViewPageDTO> fetchPage(PaymentViewFilterDTO filter, long afterId) {
+		return offloader.db(() -> paymentService.getPaymentViews(filter, afterId, EXPORT_PAGE_SIZE));
+	}
+}
@@ -0,0 +1,58 @@
+package com.payment.transaction.service;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+
+import com.payment.transaction.exception.PaymentProviderUnavailableException;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Ejecuta llamadas bloqueantes del stack reactivo en los schedulers acotados
+ * de {@link com.payment.transaction.config.ReactiveSchedulersConfig}: las
+ * llamadas a Stripe en {@code stripeScheduler} y las de la base en
+ * {@code dbScheduler}.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class BlockingOffloader {
+
+	private final Scheduler stripeScheduler;
+	private final Scheduler dbScheduler;
+
+	public BlockingOffloader(@Qualifier("stripeScheduler") Scheduler stripeScheduler,
+			@Qualifier("dbScheduler") Scheduler dbScheduler) {
+		this.stripeScheduler = stripeScheduler;
+		this.dbScheduler = dbScheduler;
+	}
+
+	// Servicio bloqueante que llama al SDK de Stripe y luego escribe en la base
+	public <T> Mono<T> stripe(Callable<T> call) {
+		return offload(call, stripeScheduler);
+	}
+
+	public <T> Mono<T> db(Callable<T> call) {
+		return offload(call, dbScheduler);
+	}
+
+	// Para APIs basadas en CompletableFuture (IdempotencyService.executeAsync)
+	public Executor dbExecutor() {
+		return dbScheduler::schedule;
+	}
+
+	// Cola del scheduler llena: se rechaza enseguida en lugar de acumular requests
+	public static <T> Mono<T> rejectWhenSaturated(Mono<T> mono) {
+		return mono.onErrorMap(RejectedExecutionException.class,
+				e -> new PaymentProviderUnavailableException("Too many payments in progress", 1, e));
+	}
+
+	private static <T> Mono<T> offload(Callable<T> call, Scheduler scheduler) {
+		return rejectWhenSaturated(Mono.fromCallable(call).subscribeOn(scheduler));
+	}
+}
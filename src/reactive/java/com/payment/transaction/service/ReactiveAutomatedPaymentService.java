@@ -0,0 +1,110 @@
+package com.payment.transaction.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+
+import com.payment.transaction.dto.AutomatedPaymentRequestDTO;
+import com.payment.transaction.dto.PaymentIntentDTO;
+import com.stripe.exception.StripeException;
+import com.stripe.model.PaymentIntent;
+
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * Versión reactiva de {@link AutomatedPaymentService} (perfil
+ * {@code reactive}). Usa los mismos pasos ({@link AutomatedPaymentSteps});
+ * acá solo se decide dónde corre cada uno: las llamadas a Stripe usan las
+ * variantes {@code *Async} (HTTP no bloqueante, sin hilo mientras Stripe
+ * responde) y solo las escrituras del pago, que son JPA, se ejecutan en
+ * {@code dbScheduler}. El siguiente paso se encadena cuando termina el
+ * anterior.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveAutomatedPaymentService {
+
+	private final AutomatedPaymentSteps steps;
+	private final IdempotencyService idempotencyService;
+	private final BlockingOffloader offloader;
+
+	public Mono<PaymentIntentDTO> processPayment(AutomatedPaymentRequestDTO request, String idempotencyKey) {
+		Mono<PaymentIntentDTO> pipeline = Mono.defer(() -> steps.isMultiStep()
+				? processPaymentMultiStep(request, idempotencyKey)
+				: processPaymentSingleCall(request, idempotencyKey));
+		return BlockingOffloader.rejectWhenSaturated(Mono.fromFuture(() -> idempotencyService.executeAsync(
+				"automated", idempotencyKey, request, PaymentIntentDTO.class, pipeline::toFuture,
+				offloader.dbExecutor())));
+	}
+
+	private Mono<PaymentIntentDTO> processPaymentSingleCall(AutomatedPaymentRequestDTO request,
+			String idempotencyKey) {
+		log.info("Starting single-call payment process for amount: {}", request.getPaymentRequest().getAmount());
+		String paymentMethodId = AutomatedPaymentSteps.paymentMethodFor(request);
+
+		// Crear y confirmar en una sola llamada; una tarjeta rechazada también deja el intent registrado
+		Mono<PaymentIntent> confirmed = Mono
+				.fromFuture(() -> steps.createAndConfirmAsync(request, paymentMethodId, idempotencyKey))
+				.onErrorResume(StripeException.class,
+						e -> offloader.db(() -> steps.persistDeclined(e)).flatMap(Mono::error))
+				.flatMap(this::persist);
+
+		return timed("create_confirm", confirmed)
+				.map(AutomatedPaymentSteps::toDTO)
+				.doOnNext(payment -> log.info("Payment created and confirmed with ID: {} and status: {}",
+						payment.getId(), payment.getStatus()))
+				.map(AutomatedPaymentSteps::requireNoAction);
+	}
+
+	private Mono<PaymentIntentDTO> processPaymentMultiStep(AutomatedPaymentRequestDTO request,
+			String idempotencyKey) {
+		log.info("Starting automated payment process for amount: {}", request.getPaymentRequest().getAmount());
+		String paymentMethodId = AutomatedPaymentSteps.paymentMethodFor(request);
+
+		// 1. Crear PaymentIntent
+		Mono<PaymentIntent> created = timed("create",
+				Mono.fromFuture(() -> steps.createAsync(request, idempotencyKey)).flatMap(this::persist));
+
+		// 2. Confirmar con el payment method de prueba
+		Mono<PaymentIntentDTO> confirmed = created.flatMap(intent -> {
+			log.info("PaymentIntent created with ID: {}", intent.getId());
+			return timed("confirm",
+					Mono.<PaymentIntent>fromFuture(() -> steps.confirmAsync(intent.getId(), paymentMethodId, idempotencyKey))
+							.flatMap(this::persist));
+		}).map(AutomatedPaymentSteps::toDTO);
+
+		// 3. 3D Secure o captura automática si está habilitada y el estado lo permite
+		return confirmed
+				.doOnNext(payment -> log.info("Payment confirmed with status: {}", payment.getStatus()))
+				.map(AutomatedPaymentSteps::requireNoAction)
+				.flatMap(payment -> {
+					if (!AutomatedPaymentSteps.shouldCapture(request, payment)) {
+						return Mono.just(payment);
+					}
+					log.info("Auto-capturing payment");
+					return timed("capture",
+							Mono.<PaymentIntent>fromFuture(() -> steps.captureAsync(payment.getId(), idempotencyKey))
+									.flatMap(this::persist))
+							.map(AutomatedPaymentSteps::toDTO)
+							.doOnNext(captured -> log.info("Payment captured successfully"));
+				});
+	}
+
+	private Mono<PaymentIntent> persist(PaymentIntent paymentIntent) {
+		return offloader.db(() -> steps.persist(paymentIntent));
+	}
+
+	// Mismo timer que la versión bloqueante: desde la suscripción hasta el resultado
+	private <T> Mono<T> timed(String phase, Mono<T> step) {
+		return Mono.defer(() -> {
+			Timer.Sample sample = steps.startPhase();
+			return step
+					.doOnSuccess(result -> steps.stopPhase(sample, phase, "success"))
+					.doOnError(e -> steps.stopPhase(sample, phase, "error"));
+		});
+	}
+}
@@ -0,0 +1,23 @@
+package com.payment;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Las mismas comprobaciones contra MySQL 8.0 (la imagen de docker-compose) en
+ * un contenedor: ahí se ve lo que H2 tolera y MySQL no. Sin Docker se omite.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers(disabledWithoutDocker = true)
+class MySqlSchemaMigrationTest extends SchemaMigrationTestSupport {
+
+	// El datasource del perfil test se reemplaza por el del contenedor
+	@Container
+	@ServiceConnection
+	static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0");
+}
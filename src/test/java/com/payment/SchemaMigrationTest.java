@@ -0,0 +1,13 @@
+package com.payment;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Migraciones y validación del esquema sobre H2 en modo MySQL (perfil test):
+ * corre siempre, sin Docker.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class SchemaMigrationTest extends SchemaMigrationTestSupport {
+}
@@ -0,0 +1,54 @@
+package com.payment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.flywaydb.core.api.MigrationInfoService;
+import org.flywaydb.core.api.MigrationState;
+import org.flywaydb.core.api.MigrationVersion;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+
+/**
+ * Lo que tiene que cumplir el esquema en cualquier base: la aplicación
+ * arranca después de aplicar todas las migraciones de Flyway (V1 en adelante,
+ * incluida la V5 en Java) y Hibernate lo valida con {@code ddl-auto: validate}
+ * contra las entidades. Cada subclase elige la base.
+ */
+abstract class SchemaMigrationTestSupport {
+
+	@Autowired
+	private Flyway flyway;
+
+	@Autowired
+	private Environment environment;
+
+	// Si el contexto arrancó, Hibernate ya comparó las entidades con las tablas migradas
+	@Test
+	void validatesEntitiesAgainstMigratedSchema() {
+		assertThat(environment.getProperty("spring.jpa.hibernate.ddl-auto")).isEqualTo("validate");
+	}
+
+	@Test
+	void appliesEveryMigration() {
+		MigrationInfoService info = flyway.info();
+
+		assertThat(info.pending()).as("pending migrations").isEmpty();
+		assertThat(info.applied())
+				.filteredOn(migration -> migration.getVersion() != null)
+				.allSatisfy(migration -> assertThat(migration.getState())
+						.as("V%s", migration.getVersion()).isEqualTo(MigrationState.SUCCESS));
+
+		MigrationVersion latest = Arrays.stream(info.all())
+				.map(MigrationInfo::getVersion)
+				.max(Comparator.naturalOrder())
+				.orElseThrow();
+		assertThat(info.current().getVersion()).isEqualTo(latest);
+		assertThat(flyway.validateWithResult().validationSuccessful).isTrue();
+	}
+}
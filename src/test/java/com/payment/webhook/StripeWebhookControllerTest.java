@@ -0,0 +1,126 @@
+package com.payment.webhook;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import com.payment.transaction.service.PaymentSyncService;
+import com.stripe.Stripe;
+import com.stripe.model.PaymentIntent;
+import com.stripe.net.Webhook;
+
+/**
+ * Webhook de Stripe de punta a punta: firma verificada con el secreto del
+ * perfil test, encolado y aplicación del evento en la base, una sola vez por
+ * {@code stripe_event_id}.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class StripeWebhookControllerTest {
+
+	private static final String WEBHOOK_SECRET = "whsec_test";
+	private static final String WEBHOOK_PATH = "/api/v1/webhooks/stripe";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PaymentSyncService paymentSyncService;
+
+	@Test
+	void rejectsPayloadWithInvalidSignature() throws Exception {
+		String payload = event("evt_bad_signature", "pi_bad_signature", "succeeded");
+
+		deliver(payload, signature(payload, "whsec_other")).andExpect(status().isBadRequest());
+		deliver(payload, "t=" + Instant.now().getEpochSecond() + ",v1=deadbeef").andExpect(status().isBadRequest());
+
+		assertThat(historyEntries("evt_bad_signature")).isZero();
+	}
+
+	@Test
+	void appliesSignedEvent() throws Exception {
+		String payload = event("evt_valid", "pi_valid", "succeeded");
+
+		deliver(payload, signature(payload, WEBHOOK_SECRET)).andExpect(status().isOk());
+
+		awaitTrue(() -> historyEntries("evt_valid") == 1);
+		assertThat(jdbcTemplate.queryForObject("select status from payments where payment_intent_id = ?",
+				Integer.class, "pi_valid")).isEqualTo(6);
+	}
+
+	@Test
+	void appliesRedeliveredEventOnce() throws Exception {
+		String payload = event("evt_redelivered", "pi_redelivered", "processing");
+
+		// Stripe reintenta la entrega: cada intento lleva su propia firma
+		deliver(payload, signature(payload, WEBHOOK_SECRET)).andExpect(status().isOk());
+		awaitTrue(() -> historyEntries("evt_redelivered") == 1);
+		deliver(payload, signature(payload, WEBHOOK_SECRET)).andExpect(status().isOk());
+
+		// Otra réplica sin el id en su caché de duplicados: lo frena la base
+		PaymentIntent paymentIntent = new PaymentIntent();
+		paymentIntent.setId("pi_redelivered");
+		paymentIntent.setObject("payment_intent");
+		paymentIntent.setStatus("processing");
+		paymentIntent.setAmount(500L);
+		paymentIntent.setCurrency("usd");
+		paymentSyncService.syncPaymentStatus(paymentIntent, "evt_redelivered");
+
+		Thread.sleep(300);
+		assertThat(historyEntries("evt_redelivered")).isEqualTo(1);
+	}
+
+	private ResultActions deliver(String payload, String signatureHeader) throws Exception {
+		return mockMvc.perform(post(WEBHOOK_PATH)
+				.contentType(MediaType.APPLICATION_JSON)
+				.header("Stripe-Signature", signatureHeader)
+				.content(payload));
+	}
+
+	private int historyEntries(String stripeEventId) {
+		return jdbcTemplate.queryForObject("select count(*) from payment_status_history where stripe_event_id = ?",
+				Integer.class, stripeEventId);
+	}
+
+	// Cabecera Stripe-Signature como la arma Stripe: HMAC-SHA256 de "<timestamp>.<payload>"
+	private static String signature(String payload, String secret) throws Exception {
+		long timestamp = Instant.now().getEpochSecond();
+		String v1 = Webhook.Util.computeHmacSha256(secret, timestamp + "." + payload);
+		return "t=" + timestamp + ",v1=" + v1;
+	}
+
+	private static String event(String eventId, String paymentIntentId, String paymentIntentStatus) {
+		return """
+				{"id":"%s","object":"event","api_version":"%s","type":"payment_intent.%s","created":%d,
+				"data":{"object":{"id":"%s","object":"payment_intent","amount":500,"currency":"usd","status":"%s"}}}"""
+				.formatted(eventId, Stripe.API_VERSION, paymentIntentStatus, Instant.now().getEpochSecond(),
+						paymentIntentId, paymentIntentStatus);
+	}
+
+	// Los eventos se aplican en los hilos de la cola, fuera del request
+	private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+		Instant deadline = Instant.now().plus(Duration.ofSeconds(10));
+		while (!condition.getAsBoolean()) {
+			assertThat(Instant.now()).as("condition not met within 10 s").isBefore(deadline);
+			Thread.sleep(50);
+		}
+	}
+}